@@ -0,0 +1,36 @@
+#!/usr/bin/env bash
+# Starts the JVM jar and the native executable one after the other and prints startup time and RSS.
+# Build both first:  ./mvnw -DskipTests package  and  ./mvnw -Pnative -DskipTests native:compile
+# Both need the datasource from application.properties (or SPRING_DATASOURCE_* variables) to be reachable.
+set -euo pipefail
+
+JAR=${JAR:-target/VIRTUALPETS-0.0.1-SNAPSHOT.jar}
+NATIVE=${NATIVE:-target/virtualpets}
+PORT=${PORT:-18080}
+
+measure() {
+  local name=$1
+  shift
+  local log
+  log=$(mktemp)
+  "$@" --server.port="$PORT" --logging.level.root=INFO >"$log" 2>&1 &
+  local pid=$!
+  until grep -q "Started VirtualpetsApplication" "$log"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "$name failed to start:" >&2
+      tail -n 40 "$log" >&2
+      exit 1
+    fi
+    sleep 0.1
+  done
+  local startup rss
+  startup=$(grep -o "Started VirtualpetsApplication in [0-9.]* seconds" "$log" | grep -o "[0-9][0-9.]*" | head -n 1)
+  rss=$(ps -o rss= -p "$pid" | tr -d ' ')
+  printf "%-8s startup %8ss   rss %8s MB\n" "$name" "$startup" "$((rss / 1024))"
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  rm -f "$log"
+}
+
+measure jvm java -jar "$JAR"
+measure native "$NATIVE"
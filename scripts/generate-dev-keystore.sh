@@ -0,0 +1,15 @@
+#!/usr/bin/env bash
+# Writes a self-signed localhost keystore for the http2 profile. It is for local testing only and
+# is never packaged: the profile reads its location and password from the environment.
+#   VIRTUALPETS_SSL_KEY_STORE_PASSWORD=... scripts/generate-dev-keystore.sh
+set -euo pipefail
+
+KEY_STORE=${VIRTUALPETS_SSL_KEY_STORE:-ssl/virtualpets-local.p12}
+: "${VIRTUALPETS_SSL_KEY_STORE_PASSWORD:?set VIRTUALPETS_SSL_KEY_STORE_PASSWORD}"
+
+mkdir -p "$(dirname "$KEY_STORE")"
+rm -f "$KEY_STORE"
+keytool -genkeypair -alias virtualpets-local -keyalg RSA -keysize 2048 -validity 365 \
+  -dname "CN=localhost" -ext "SAN=dns:localhost,ip:127.0.0.1" \
+  -storetype PKCS12 -keystore "$KEY_STORE" -storepass "$VIRTUALPETS_SSL_KEY_STORE_PASSWORD"
+echo "Wrote $KEY_STORE"
@@ -2,12 +2,20 @@ package S502.virtualPets;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Profiles;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class VirtualpetsApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(VirtualpetsApplication.class, args);
+		ConfigurableApplicationContext context = SpringApplication.run(VirtualpetsApplication.class, args);
+		// the rebalance profile is a one-off run: its runner is done once run() returns
+		if (context.getEnvironment().acceptsProfiles(Profiles.of("rebalance"))) {
+			context.close();
+		}
 	}
 
 }
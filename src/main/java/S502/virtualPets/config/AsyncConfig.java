@@ -0,0 +1,47 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+
+@Configuration
+public class AsyncConfig {
+
+    /**
+     * Small dedicated pool for export/import jobs so bulk data moves never compete with
+     * request threads. Extra jobs queue up instead of starting more threads, and their
+     * queries run on the bulk connection pool.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor petTransferExecutor(@Value("${pets.transfer.max-concurrent-jobs:2}") int maxConcurrentJobs,
+                                                      @Value("${pets.transfer.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxConcurrentJobs);
+        executor.setMaxPoolSize(maxConcurrentJobs);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pet-transfer-");
+        executor.setTaskDecorator(WorkloadContext::bulk);
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    /**
+     * Work-stealing pool for tournament simulations. Every round splits its matches into
+     * subtasks, so a single tournament keeps all workers busy without touching the
+     * common pool used by parallel streams.
+     */
+    @Bean(destroyMethod = "shutdownNow")
+    public ForkJoinPool tournamentPool(@Value("${pets.tournament.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors(), pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("tournament-" + thread.getPoolIndex());
+            return thread;
+        }, null, false);
+    }
+}
@@ -0,0 +1,88 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.persistence.coherence.CacheCoherenceService;
+import S502.virtualPets.persistence.coherence.CacheInvalidationEventListener;
+import S502.virtualPets.persistence.coherence.HibernateCacheInvalidator;
+import S502.virtualPets.persistence.coherence.InvalidationTransport;
+import S502.virtualPets.persistence.coherence.LoopbackTransport;
+import S502.virtualPets.persistence.coherence.SignedTransport;
+import S502.virtualPets.persistence.coherence.TcpTransport;
+import S502.virtualPets.persistence.coherence.UdpTransport;
+import S502.virtualPets.service.PetReadCache;
+import S502.virtualPets.service.PetRuleService;
+import S502.virtualPets.persistence.enums.CoherenceTransportEnum;
+import S502.virtualPets.service.RoleSnapshotService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Cluster-wide invalidation of the second-level cache and the role snapshot, for running
+ * several instances behind a load balancer. Only active with
+ * {@code pets.cache.coherence.enabled=true}; a single instance does not need it.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pets.cache.coherence.enabled", havingValue = "true")
+@EnableConfigurationProperties(CacheCoherenceProperties.class)
+public class CacheCoherenceConfig {
+
+    @Bean
+    public CacheCoherenceService cacheCoherenceService(CacheCoherenceProperties properties, EntityManagerFactory entityManagerFactory,
+                                                       RoleSnapshotService roleSnapshotService, PetReadCache petReadCache,
+                                                       PetRuleService petRuleService, MeterRegistry meterRegistry) {
+        SessionFactoryImplementor sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        CacheCoherenceService service = new CacheCoherenceService(transport(properties),
+                new HibernateCacheInvalidator(sessionFactory, roleSnapshotService::reload).andThen(petReadCache).andThen(petRuleService),
+                properties.maxBatchSize(), properties.heartbeatInterval(), meterRegistry);
+
+        CacheInvalidationEventListener listener = new CacheInvalidationEventListener(service);
+        EventListenerRegistry listeners = sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.POST_INSERT, listener);
+        listeners.appendListeners(EventType.POST_UPDATE, listener);
+        listeners.appendListeners(EventType.POST_DELETE, listener);
+        listeners.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        listeners.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        listeners.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+
+        service.start();
+        return service;
+    }
+
+    private static InvalidationTransport transport(CacheCoherenceProperties properties) {
+        List<InetSocketAddress> peers = properties.peers() == null ? List.of() : properties.peers().stream()
+                .map(peer -> {
+                    int colon = peer.lastIndexOf(':');
+                    return new InetSocketAddress(peer.substring(0, colon).trim(), Integer.parseInt(peer.substring(colon + 1).trim()));
+                })
+                .toList();
+        if (properties.transport() == CoherenceTransportEnum.LOOPBACK) {
+            return new LoopbackTransport(properties.channel());
+        }
+        if (properties.secret() == null || properties.secret().isBlank()) {
+            throw new IllegalStateException("pets.cache.coherence.secret must be set for the " + properties.transport() + " transport.");
+        }
+        InetAddress bindAddress;
+        try {
+            bindAddress = properties.bindAddress() == null || properties.bindAddress().isBlank()
+                    ? InetAddress.getLoopbackAddress() : InetAddress.getByName(properties.bindAddress().trim());
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException("Unknown pets.cache.coherence.bind-address " + properties.bindAddress() + ".", e);
+        }
+        InvalidationTransport transport = properties.transport() == CoherenceTransportEnum.UDP
+                ? new UdpTransport(bindAddress, properties.port(), peers)
+                : new TcpTransport(bindAddress, properties.port(), peers);
+        return new SignedTransport(transport, properties.secret().getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,18 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.persistence.enums.CoherenceTransportEnum;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings for {@code pets.cache.coherence.*}. {@code peers} are {@code host:port} pairs of the
+ * other instances; the loopback transport ignores them and uses {@code channel}. The UDP and
+ * TCP transports listen on {@code bindAddress} only and sign every batch with {@code secret}.
+ */
+@ConfigurationProperties("pets.cache.coherence")
+public record CacheCoherenceProperties(boolean enabled, CoherenceTransportEnum transport, String channel, int port,
+                                       List<String> peers, int maxBatchSize, Duration heartbeatInterval,
+                                       String bindAddress, String secret) {
+}
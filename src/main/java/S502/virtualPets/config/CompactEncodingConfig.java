@@ -0,0 +1,41 @@
+package S502.virtualPets.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * Opt-in binary encoding: clients sending {@code Accept: application/cbor} get CBOR
+ * with timestamps written as epoch milliseconds instead of ISO strings.
+ */
+@Configuration
+public class CompactEncodingConfig {
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        SimpleModule compactTimestamps = new SimpleModule("compactTimestamps")
+                .addSerializer(LocalDateTime.class, new EpochMillisSerializer());
+        CBORMapper mapper = CBORMapper.builder()
+                .findAndAddModules()
+                .addModule(compactTimestamps)
+                .build();
+        return new MappingJackson2CborHttpMessageConverter(mapper);
+    }
+
+    private static final class EpochMillisSerializer extends JsonSerializer<LocalDateTime> {
+
+        @Override
+        public void serialize(LocalDateTime value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+}
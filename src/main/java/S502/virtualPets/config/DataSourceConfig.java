@@ -0,0 +1,66 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.config.filter.WorkloadFilter;
+import S502.virtualPets.persistence.workload.WorkloadRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.util.List;
+
+/**
+ * Two connection pools per database: {@code spring.datasource.hikari.*} sizes the interactive
+ * pool and {@code pets.datasource.bulk.*} the bulk pool used by admin scans, transfer jobs and
+ * maintenance. With sharding enabled every shard gets the same pair, see {@link ShardingConfig}.
+ */
+@Configuration
+// the auto-configuration that normally registers these backs off when R2DBC is configured
+@EnableConfigurationProperties(DataSourceProperties.class)
+@Slf4j
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig interactivePoolConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    @ConfigurationProperties("pets.datasource.bulk")
+    public HikariConfig bulkPoolConfig() {
+        return new HikariConfig();
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(name = "pets.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    public WorkloadRoutingDataSource dataSource(DataSourceProperties properties, HikariConfig interactivePoolConfig,
+                                                HikariConfig bulkPoolConfig, MeterRegistry meterRegistry) {
+        log.info("Connection pools sized {} interactive / {} bulk.",
+                interactivePoolConfig.getMaximumPoolSize(), bulkPoolConfig.getMaximumPoolSize());
+        return WorkloadRoutingDataSource.create("virtualpets", properties.determineUrl(), properties.determineUsername(),
+                properties.determinePassword(), properties.determineDriverClassName(),
+                interactivePoolConfig, bulkPoolConfig, meterRegistry);
+    }
+
+    /**
+     * Runs ahead of the security chain so the user lookup of the JWT filter already uses the
+     * pool of the endpoint it belongs to.
+     */
+    @Bean
+    public FilterRegistrationBean<WorkloadFilter> workloadFilter(@Value("${pets.datasource.bulk.paths}") List<String> bulkPaths) {
+        FilterRegistrationBean<WorkloadFilter> registration = new FilterRegistrationBean<>(new WorkloadFilter(bulkPaths));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+}
@@ -0,0 +1,37 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.config.jfr.PetOperationInterceptor;
+import S502.virtualPets.service.PetService;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class FlightRecorderConfig {
+
+    /**
+     * Records every {@link PetService} call as a JFR event. JFR events cost next to nothing
+     * while no recording is running, so this is always on.
+     */
+    @Bean
+    public static BeanPostProcessor petServiceFlightRecording() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof PetService)) {
+                    return bean;
+                }
+                if (bean instanceof Advised advised) {
+                    advised.addAdvice(0, new PetOperationInterceptor());
+                    return bean;
+                }
+                ProxyFactory proxy = new ProxyFactory(bean);
+                proxy.setProxyTargetClass(true);
+                proxy.addAdvice(new PetOperationInterceptor());
+                return proxy.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+}
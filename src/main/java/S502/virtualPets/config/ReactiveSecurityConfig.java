@@ -0,0 +1,55 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.config.jfr.InstrumentedPasswordEncoder;
+import S502.virtualPets.config.filter.ReactiveJwtTokenValidator;
+import S502.virtualPets.service.ReactiveUserDetailService;
+import S502.virtualPets.utils.JwtUtils;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.method.configuration.EnableReactiveMethodSecurity;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+
+/**
+ * Security chain of the {@code reactive} profile. Same rules as {@link SecurityConfig}: JWT
+ * bearer tokens, no session, every endpoint but the health check needs a user. Tokens are
+ * issued by the servlet stack, which shares the signing key.
+ */
+@Configuration
+@Profile("reactive")
+@EnableWebFluxSecurity
+@EnableReactiveMethodSecurity
+public class ReactiveSecurityConfig {
+
+    @Bean
+    public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http, JwtUtils jwtUtils,
+                                                         ReactiveUserDetailService userDetailService) {
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(exceptions -> exceptions
+                        .authenticationEntryPoint(new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .authorizeExchange(authorize -> authorize
+                        .pathMatchers(HttpMethod.GET, "/actuator/health/**").permitAll()
+                        .anyExchange().authenticated())
+                .addFilterAt(new ReactiveJwtTokenValidator(jwtUtils, userDetailService), SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    /** Only used by the blocking user service that shares the context; tokens are not issued here. */
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return new InstrumentedPasswordEncoder(new BCryptPasswordEncoder());
+    }
+}
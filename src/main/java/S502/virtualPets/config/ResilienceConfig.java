@@ -0,0 +1,113 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.config.concurrency.AdaptiveConcurrencyLimiter;
+import S502.virtualPets.config.filter.ConcurrencyLimitFilter;
+import S502.virtualPets.persistence.repository.PetHistoryRepository;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.resilience.DatabaseCircuitBreakerInterceptor;
+import S502.virtualPets.utils.CircuitBreaker;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@Slf4j
+public class ResilienceConfig {
+
+    /**
+     * One breaker for the whole database: when MySQL stutters every query suffers, so there
+     * is no point in letting some of them keep piling up threads.
+     */
+    @Bean
+    public CircuitBreaker databaseCircuitBreaker(MeterRegistry meterRegistry,
+                                                 @Value("${pets.db.circuit-breaker.window-size:50}") int windowSize,
+                                                 @Value("${pets.db.circuit-breaker.minimum-calls:20}") int minimumCalls,
+                                                 @Value("${pets.db.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+                                                 @Value("${pets.db.circuit-breaker.slow-call-rate-threshold:0.8}") double slowCallRateThreshold,
+                                                 @Value("${pets.db.circuit-breaker.slow-call-duration:1s}") Duration slowCallDuration,
+                                                 @Value("${pets.db.circuit-breaker.open-duration:10s}") Duration openDuration,
+                                                 @Value("${pets.db.circuit-breaker.half-open-calls:5}") int halfOpenCalls) {
+        CircuitBreaker circuitBreaker = new CircuitBreaker(
+                new CircuitBreaker.Policy(windowSize, minimumCalls, failureRateThreshold, slowCallRateThreshold,
+                        slowCallDuration, openDuration, halfOpenCalls),
+                (from, to) -> {
+                    if (to == CircuitBreaker.State.OPEN) {
+                        log.warn("Database circuit breaker opened (was {}), calls are suspended for {}.", from, openDuration);
+                    } else {
+                        log.info("Database circuit breaker moved from {} to {}.", from, to);
+                    }
+                    meterRegistry.counter("virtualpets.db.circuit.transitions", "to", to.name()).increment();
+                });
+        Gauge.builder("virtualpets.db.circuit.state", circuitBreaker, breaker -> breaker.state().ordinal())
+                .description("Database circuit breaker state: 0 closed, 1 open, 2 half open")
+                .register(meterRegistry);
+        return circuitBreaker;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "pets.db.circuit-breaker.enabled", havingValue = "true", matchIfMissing = true)
+    public static BeanPostProcessor petRepositoryCircuitBreaker(ObjectProvider<CircuitBreaker> circuitBreaker) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ((bean instanceof PetRepository || bean instanceof PetHistoryRepository) && bean instanceof Advised advised) {
+                    advised.addAdvice(0, new DatabaseCircuitBreakerInterceptor(circuitBreaker.getObject()));
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Background reloads of cached reads that are about to expire. They run as the user whose
+     * read triggered them; when the pool is busy the reload is skipped, the entry simply expires.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor petReadRefreshExecutor(@Value("${pets.read-cache.refresh-threads:2}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(100);
+        executor.setThreadNamePrefix("pet-read-refresh-");
+        executor.setTaskDecorator(DelegatingSecurityContextRunnable::new);
+        return executor;
+    }
+
+    /**
+     * Runs ahead of the security chain, so a shed request costs neither a JWT check nor a user lookup.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "pets.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                                                                 @Value("${pets.concurrency.initial-limit:50}") int initialLimit,
+                                                                                 @Value("${pets.concurrency.min-limit:8}") int minLimit,
+                                                                                 @Value("${pets.concurrency.max-limit:200}") int maxLimit,
+                                                                                 @Value("${pets.concurrency.tolerance:2.0}") double tolerance,
+                                                                                 @Value("${pets.concurrency.backoff-ratio:0.9}") double backoffRatio,
+                                                                                 @Value("${pets.concurrency.normal-share:0.8}") double normalShare,
+                                                                                 @Value("${pets.concurrency.low-share:0.5}") double lowShare,
+                                                                                 @Value("${pets.concurrency.critical-paths}") List<String> criticalPaths,
+                                                                                 @Value("${pets.concurrency.low-paths}") List<String> lowPaths) {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(new AdaptiveConcurrencyLimiter.Policy(
+                initialLimit, minLimit, maxLimit, tolerance, backoffRatio, normalShare, lowShare));
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limiter, criticalPaths, lowPaths, objectMapper, meterRegistry));
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 2);
+        return registration;
+    }
+}
@@ -1,13 +1,24 @@
 package S502.virtualPets.config;
 
+import S502.virtualPets.config.jfr.InstrumentedPasswordEncoder;
 import S502.virtualPets.config.filter.JwtTokenValidator;
+import S502.virtualPets.config.filter.RateLimitFilter;
+import S502.virtualPets.config.ratelimit.RateLimitPolicy;
+import S502.virtualPets.config.ratelimit.RateLimiterStore;
+import S502.virtualPets.service.RoleSnapshotService;
 import S502.virtualPets.service.UserDetailServiceImpl;
+import S502.virtualPets.service.UsernameAvailabilityService;
 import S502.virtualPets.utils.JwtUtils;
 import S502.virtualPets.persistence.repository.UserRepository;
-import S502.virtualPets.persistence.repository.RoleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -26,10 +37,12 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 import java.util.List;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSecurity
 @EnableMethodSecurity(prePostEnabled = true)
 public class SecurityConfig {
@@ -37,8 +50,6 @@ public class SecurityConfig {
     @Autowired
     private UserRepository userRepository;
     @Autowired
-    private RoleRepository roleRepository;
-    @Autowired
     private JwtUtils jwtUtils;
 
     @Bean
@@ -47,13 +58,44 @@ public class SecurityConfig {
     }
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity, JwtTokenValidator jwtTokenValidator) throws Exception {
+    public RateLimitFilter rateLimitFilter(ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                                           @Value("${security.rate-limit.auth.capacity}") long authCapacity,
+                                           @Value("${security.rate-limit.auth.refill-period}") Duration authRefillPeriod,
+                                           @Value("${security.rate-limit.api.capacity}") long apiCapacity,
+                                           @Value("${security.rate-limit.api.refill-period}") Duration apiRefillPeriod) {
+        return new RateLimitFilter(new RateLimiterStore(),
+                new RateLimitPolicy("auth", authCapacity, authRefillPeriod),
+                new RateLimitPolicy("api", apiCapacity, apiRefillPeriod),
+                jwtUtils, objectMapper, meterRegistry);
+    }
+
+    // both filters run inside the security chain; without these Boot would register them a second time in the servlet chain
+    @Bean
+    public FilterRegistrationBean<JwtTokenValidator> jwtTokenValidatorRegistration(JwtTokenValidator jwtTokenValidator) {
+        FilterRegistrationBean<JwtTokenValidator> registration = new FilterRegistrationBean<>(jwtTokenValidator);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilterRegistration(RateLimitFilter rateLimitFilter) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(rateLimitFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public SecurityFilterChain securityFilterChain(HttpSecurity httpSecurity, JwtTokenValidator jwtTokenValidator, RateLimitFilter rateLimitFilter) throws Exception {
         return httpSecurity
                 .csrf(csrf -> csrf.disable())
                 .cors(Customizer.withDefaults()) // Habilita CORS usando la configuración del bean corsConfigurationSource()
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(authorize -> {
                     authorize.requestMatchers(HttpMethod.POST, "/auth/**").permitAll();
+                    authorize.requestMatchers(HttpMethod.GET, "/auth/username-available").permitAll();
+                    authorize.requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll();
+                    // streamed responses finish on an async dispatch of a request that was already authorized
+                    authorize.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
 
                     authorize.requestMatchers(
                             "/swagger-ui/**",
@@ -68,6 +110,7 @@ public class SecurityConfig {
                 })
 
                 .addFilterBefore(jwtTokenValidator, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtTokenValidator.class)
                 .build();
     }
 
@@ -99,11 +142,12 @@ public class SecurityConfig {
 
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new InstrumentedPasswordEncoder(new BCryptPasswordEncoder());
     }
 
     @Bean
-    public UserDetailServiceImpl userDetailService(UserRepository userRepository, JwtUtils jwtUtils, PasswordEncoder passwordEncoder, RoleRepository roleRepository) {
-        return new UserDetailServiceImpl(userRepository, jwtUtils, passwordEncoder, roleRepository);
+    public UserDetailServiceImpl userDetailService(UserRepository userRepository, JwtUtils jwtUtils, PasswordEncoder passwordEncoder,
+                                                   RoleSnapshotService roleSnapshotService, UsernameAvailabilityService usernameAvailabilityService) {
+        return new UserDetailServiceImpl(userRepository, jwtUtils, passwordEncoder, roleSnapshotService, usernameAvailabilityService);
     }
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package S502.virtualPets.config;
+
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.sharding.ShardRebalancer;
+import S502.virtualPets.persistence.sharding.ShardRoutingDataSource;
+import S502.virtualPets.persistence.sharding.ShardRoutingRepositoryInterceptor;
+import S502.virtualPets.persistence.sharding.ShardSchemaInitializer;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import S502.virtualPets.persistence.workload.WorkloadRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.framework.Advised;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Spreads the pets table over several databases by owner. Only active with
+ * {@code pets.sharding.enabled=true}; otherwise the regular single datasource is used.
+ */
+@Configuration
+@ConditionalOnProperty(name = "pets.sharding.enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+@Slf4j
+public class ShardingConfig {
+
+    @Bean
+    @Primary
+    public ShardRoutingDataSource dataSource(ShardingProperties properties, HikariConfig interactivePoolConfig,
+                                             HikariConfig bulkPoolConfig, MeterRegistry meterRegistry) {
+        List<DataSource> shards = new ArrayList<>();
+        for (int i = 0; i < properties.shards().size(); i++) {
+            ShardingProperties.Shard shard = properties.shards().get(i);
+            shards.add(WorkloadRoutingDataSource.create("shard-" + i, shard.url(), shard.username(), shard.password(), null,
+                    interactivePoolConfig, bulkPoolConfig, meterRegistry));
+        }
+        log.info("Pet sharding enabled with {} shards.", shards.size());
+        return new ShardRoutingDataSource(shards);
+    }
+
+    @Bean
+    public ShardSchemaInitializer shardSchemaInitializer(ShardRoutingDataSource dataSource) {
+        return new ShardSchemaInitializer(dataSource);
+    }
+
+    @Bean
+    public ShardRebalancer shardRebalancer(ShardRoutingDataSource dataSource,
+                                           @Value("${pets.sharding.rebalance.chunk-size:500}") int chunkSize) {
+        return new ShardRebalancer(dataSource, chunkSize);
+    }
+
+    /**
+     * The shard is chosen when a connection is acquired, so Hibernate must give the connection
+     * back after each transaction instead of holding it for the whole open-in-view session.
+     * Owners are loaded lazily from the home shard, so load them in batches.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer shardConnectionHandling() {
+        return properties -> {
+            properties.put("hibernate.connection.handling_mode", "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+            properties.putIfAbsent("hibernate.default_batch_fetch_size", 100);
+        };
+    }
+
+    @Bean
+    public static BeanPostProcessor petRepositoryShardRouting(ObjectProvider<ShardRoutingDataSource> dataSource, Environment environment) {
+        // a static post-processor is created before @Value injection is available
+        long maxPageOffset = environment.getProperty("pets.sharding.max-page-offset", Long.class, 1000L);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof PetRepository && bean instanceof Advised advised) {
+                    advised.addAdvice(0, new ShardRoutingRepositoryInterceptor(dataSource::getObject, maxPageOffset));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    @Profile("rebalance")
+    public ApplicationRunner shardRebalanceRunner(ShardRebalancer rebalancer,
+                                                  @Value("${pets.sharding.rebalance.dry-run:false}") boolean dryRun) {
+        return args -> WorkloadContext.bulk(() -> rebalancer.rebalance(dryRun)).run();
+    }
+}
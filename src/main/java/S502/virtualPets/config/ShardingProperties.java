@@ -0,0 +1,16 @@
+package S502.virtualPets.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.List;
+
+/**
+ * Shard list for {@code pets.sharding.*}. The first shard is the home shard and also holds
+ * users, roles and permissions.
+ */
+@ConfigurationProperties("pets.sharding")
+public record ShardingProperties(boolean enabled, List<Shard> shards) {
+
+    public record Shard(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,142 @@
+package S502.virtualPets.config.concurrency;
+
+import S502.virtualPets.persistence.enums.RequestPriorityEnum;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the number of requests in flight with a limit that follows latency (AIMD).
+ * <ul>
+ *     <li>Every sampled request is compared with the average latency of its route, so a bcrypt
+ *     log-in and a cached read can share one limit, even at the same priority. Only requests
+ *     finished at normal latency, or at the minimum limit, move that average. Requests whose
+ *     latency says nothing about the server, such as rejected ones, are released unsampled.</li>
+ *     <li>While the recent average of those ratios stays under {@code tolerance}, and at least half
+ *     of the limit is in use, the limit grows by one per {@code limit} requests.</li>
+ *     <li>Once it goes over, the limit is multiplied by {@code backoffRatio}, at most once per
+ *     recent round trip so a single burst of slow responses is not counted many times.</li>
+ * </ul>
+ * Lower priorities only get a share of the limit: {@code NORMAL} requests are admitted while less
+ * than {@code normalShare} of it is in flight and {@code LOW} ones below {@code lowShare}, so the
+ * headroom that is left is kept for {@code CRITICAL} requests.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    public record Policy(int initialLimit, int minLimit, int maxLimit, double tolerance, double backoffRatio,
+                         double normalShare, double lowShare) {
+
+        public Policy {
+            if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+                throw new IllegalArgumentException("Invalid concurrency limits: " + minLimit + " <= " + initialLimit + " <= " + maxLimit);
+            }
+            if (tolerance <= 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("Concurrency tolerance must be above 1 and backoff ratio between 0 and 1.");
+            }
+            if (lowShare <= 0 || lowShare > normalShare || normalShare > 1) {
+                throw new IllegalArgumentException("Priority shares must satisfy 0 < low <= normal <= 1.");
+            }
+        }
+    }
+
+    // the average of a route follows roughly its last 100 requests, the recent signal the last 10
+    private static final double BASELINE_SMOOTHING = 0.01;
+    private static final double RECENT_SMOOTHING = 0.1;
+
+    private final Policy policy;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Double> baselineNanos = new HashMap<>();
+    private volatile double limit;
+    private double recentRatio = 1;
+    private double recentNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimiter(Policy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    public AdaptiveConcurrencyLimiter(Policy policy, LongSupplier nanoClock) {
+        this.policy = policy;
+        this.nanoClock = nanoClock;
+        this.limit = policy.initialLimit();
+        this.lastDecreaseNanos = nanoClock.getAsLong();
+    }
+
+    /**
+     * Asks to start a request. Every admitted request must be followed by {@link #release}.
+     */
+    public boolean tryAcquire(RequestPriorityEnum priority) {
+        int admitted = admitted(priority);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= admitted) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Ends a request and samples its latency against the other requests of {@code route}.
+     */
+    public void release(String route, long durationNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        sample(route, Math.max(1, durationNanos), inFlightBefore);
+    }
+
+    /**
+     * Ends a request without sampling it.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int limit() {
+        return (int) limit;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private int admitted(RequestPriorityEnum priority) {
+        double current = limit;
+        return switch (priority) {
+            case CRITICAL -> (int) current;
+            case NORMAL -> Math.max(1, (int) (current * policy.normalShare()));
+            case LOW -> Math.max(1, (int) (current * policy.lowShare()));
+        };
+    }
+
+    private synchronized void sample(String route, long durationNanos, int inFlightBefore) {
+        Double known = baselineNanos.get(route);
+        if (known == null) {
+            baselineNanos.put(route, (double) durationNanos);
+            return;
+        }
+        double baseline = known;
+        recentRatio += RECENT_SMOOTHING * (durationNanos / baseline - recentRatio);
+        recentNanos += RECENT_SMOOTHING * (durationNanos - recentNanos);
+
+        double current = limit;
+        boolean congested = recentRatio > policy.tolerance();
+        // queueing must not become the new normal; at the minimum limit there is none left to blame
+        if (!congested || current <= policy.minLimit()) {
+            baselineNanos.put(route, baseline + BASELINE_SMOOTHING * (durationNanos - baseline));
+        }
+        if (congested) {
+            long now = nanoClock.getAsLong();
+            if (now - lastDecreaseNanos >= recentNanos) {
+                limit = Math.max(policy.minLimit(), current * policy.backoffRatio());
+                lastDecreaseNanos = now;
+            }
+        } else if (inFlightBefore * 2 >= current) {
+            limit = Math.min(policy.maxLimit(), current + 1 / current);
+        }
+    }
+}
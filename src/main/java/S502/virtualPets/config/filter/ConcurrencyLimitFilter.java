@@ -0,0 +1,143 @@
+package S502.virtualPets.config.filter;
+
+import S502.virtualPets.config.concurrency.AdaptiveConcurrencyLimiter;
+import S502.virtualPets.persistence.enums.RequestPriorityEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Sheds pet and authentication requests with 503 as soon as the adaptive concurrency limit is
+ * reached, before the JWT filter or a database connection is spent on them. Only requests that
+ * reached a handler and ended with 2xx or 5xx are sampled, by method and route pattern: a 401,
+ * a 429 or a validation error is fast for reasons that have nothing to do with load.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final List<String> criticalPaths;
+    private final List<String> lowPaths;
+    private final ObjectMapper objectMapper;
+    private final LongSupplier nanoClock;
+    private final Map<RequestPriorityEnum, Counter> shed = new EnumMap<>(RequestPriorityEnum.class);
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, List<String> criticalPaths, List<String> lowPaths,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this(limiter, criticalPaths, lowPaths, objectMapper, meterRegistry, System::nanoTime);
+    }
+
+    public ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, List<String> criticalPaths, List<String> lowPaths,
+                                  ObjectMapper objectMapper, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.limiter = limiter;
+        this.nanoClock = nanoClock;
+        this.criticalPaths = List.copyOf(criticalPaths);
+        this.lowPaths = List.copyOf(lowPaths);
+        this.objectMapper = objectMapper;
+        for (RequestPriorityEnum priority : RequestPriorityEnum.values()) {
+            shed.put(priority, Counter.builder("virtualpets.concurrency.shed")
+                    .description("Requests rejected with 503 by the adaptive concurrency limit")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("virtualpets.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::limit)
+                .description("Current adaptive limit of pet and authentication requests in flight")
+                .register(meterRegistry);
+        Gauge.builder("virtualpets.concurrency.in-flight", limiter, AdaptiveConcurrencyLimiter::inFlight)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !path.startsWith("/auth/") && !path.equals("/api/pets") && !path.startsWith("/api/pets/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        RequestPriorityEnum priority = priority(request.getServletPath());
+        if (!limiter.tryAcquire(priority)) {
+            shed.get(priority).increment();
+            log.debug("Shed {} {} ({} priority), limit {} reached.", request.getMethod(), request.getRequestURI(), priority, limiter.limit());
+            writeServiceUnavailable(request, response);
+            return;
+        }
+        long startedAt = nanoClock.getAsLong();
+        boolean completed = false;
+        try {
+            filterChain.doFilter(request, response);
+            completed = true;
+        } finally {
+            String route = route(request, response, completed);
+            if (route != null) {
+                limiter.release(route, nanoClock.getAsLong() - startedAt);
+            } else {
+                limiter.release();
+            }
+        }
+    }
+
+    /**
+     * The route a request is sampled under, null when it is not sampled. A request that failed
+     * with an exception counts as a 5xx, whatever the status says so far.
+     */
+    private static String route(HttpServletRequest request, HttpServletResponse response, boolean completed) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        if (pattern == null) {
+            return null;
+        }
+        int family = response.getStatus() / 100;
+        if (completed && family != 2 && family != 5) {
+            return null;
+        }
+        return request.getMethod() + " " + pattern;
+    }
+
+    private RequestPriorityEnum priority(String path) {
+        if (criticalPaths.stream().anyMatch(pattern -> matcher.match(pattern, path))) {
+            return RequestPriorityEnum.CRITICAL;
+        }
+        if (lowPaths.stream().anyMatch(pattern -> matcher.match(pattern, path))) {
+            return RequestPriorityEnum.LOW;
+        }
+        return RequestPriorityEnum.NORMAL;
+    }
+
+    private void writeServiceUnavailable(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader("Retry-After", "1");
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> errorDetails = new LinkedHashMap<>();
+        errorDetails.put("timestamp", LocalDateTime.now().toString());
+        errorDetails.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        errorDetails.put("error", HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase());
+        errorDetails.put("message", "The server is busy. Try again later.");
+        errorDetails.put("path", request.getRequestURI());
+        objectMapper.writeValue(response.getOutputStream(), errorDetails);
+    }
+}
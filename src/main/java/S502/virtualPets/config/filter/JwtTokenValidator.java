@@ -1,5 +1,6 @@
 package S502.virtualPets.config.filter;
 
+import S502.virtualPets.config.jfr.JwtVerificationEvent;
 import S502.virtualPets.service.UserDetailServiceImpl;
 import S502.virtualPets.utils.JwtUtils;
 import com.auth0.jwt.interfaces.DecodedJWT;
@@ -19,6 +20,9 @@ import java.io.IOException;
 
 public class JwtTokenValidator extends OncePerRequestFilter {
 
+    /** Request attribute holding a token already verified earlier in the chain by {@link RateLimitFilter}. */
+    public static final String VERIFIED_TOKEN = JwtTokenValidator.class.getName() + ".verifiedToken";
+
     private final JwtUtils jwtUtils;
     private final UserDetailServiceImpl userDetailService;
 
@@ -38,8 +42,7 @@ public class JwtTokenValidator extends OncePerRequestFilter {
             jwtToken = jwtToken.substring(7);
 
             try {
-                DecodedJWT decodedJWT = jwtUtils.validateToken(jwtToken);
-                String username = jwtUtils.extractUsername(decodedJWT);
+                String username = verify(request, jwtToken);
 
                 UserDetails userDetails = userDetailService.loadUserByUsername(username);
 
@@ -60,4 +63,19 @@ public class JwtTokenValidator extends OncePerRequestFilter {
         }
         filterChain.doFilter(request, response);
     }
+
+    private String verify(HttpServletRequest request, String jwtToken) {
+        JwtVerificationEvent event = new JwtVerificationEvent();
+        event.begin();
+        try {
+            DecodedJWT decodedJWT = request.getAttribute(VERIFIED_TOKEN) instanceof DecodedJWT verified
+                    ? verified
+                    : jwtUtils.validateToken(jwtToken);
+            event.username = jwtUtils.extractUsername(decodedJWT);
+            event.valid = true;
+            return event.username;
+        } finally {
+            event.commit();
+        }
+    }
 }
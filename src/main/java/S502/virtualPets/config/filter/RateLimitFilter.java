@@ -0,0 +1,132 @@
+package S502.virtualPets.config.filter;
+
+import S502.virtualPets.config.ratelimit.RateLimitPolicy;
+import S502.virtualPets.config.ratelimit.RateLimiterStore;
+import S502.virtualPets.config.ratelimit.TokenBucket;
+import S502.virtualPets.utils.JwtUtils;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per user on {@code /api/}, per client address on {@code /auth/} and for anonymous
+ * calls. It runs before {@link JwtTokenValidator}, so a throttled request never loads its user:
+ * the user comes from the verified token alone. The address is the one Tomcat resolved, which follows {@code X-Forwarded-For} only for
+ * requests from trusted proxies ({@code server.forward-headers-strategy=native}).
+ */
+@Slf4j
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiterStore store;
+    private final RateLimitPolicy authPolicy;
+    private final RateLimitPolicy apiPolicy;
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final Counter authRejections;
+    private final Counter apiRejections;
+
+    public RateLimitFilter(RateLimiterStore store, RateLimitPolicy authPolicy, RateLimitPolicy apiPolicy,
+                           JwtUtils jwtUtils, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.store = store;
+        this.authPolicy = authPolicy;
+        this.apiPolicy = apiPolicy;
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.authRejections = rejectionCounter(meterRegistry, authPolicy);
+        this.apiRejections = rejectionCounter(meterRegistry, apiPolicy);
+        meterRegistry.gauge("virtualpets.ratelimit.buckets", store, RateLimiterStore::size);
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, RateLimitPolicy policy) {
+        return Counter.builder("virtualpets.ratelimit.rejected")
+                .description("Requests rejected with 429 by the rate limiter")
+                .tag("policy", policy.name())
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        String path = request.getServletPath();
+        return !path.startsWith("/auth/") && !path.startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+
+        boolean authEndpoint = request.getServletPath().startsWith("/auth/");
+        RateLimitPolicy policy = authEndpoint ? authPolicy : apiPolicy;
+        String clientKey = authEndpoint ? "ip:" + request.getRemoteAddr() : clientKey(request);
+
+        TokenBucket.Probe probe = store.tryConsume(policy, clientKey);
+        response.setHeader("X-RateLimit-Limit", String.valueOf(probe.limit()));
+        response.setHeader("X-RateLimit-Remaining", String.valueOf(probe.remaining()));
+        response.setHeader("X-RateLimit-Reset", String.valueOf(toSecondsCeil(probe.nanosUntilFull())));
+
+        if (probe.allowed()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        (authEndpoint ? authRejections : apiRejections).increment();
+        log.warn("Rate limit '{}' exceeded by {} on {} {}.", policy.name(), clientKey, request.getMethod(), request.getRequestURI());
+        writeTooManyRequests(request, response, probe);
+    }
+
+    // a token that does not verify is treated as anonymous; one that does is kept for the validator
+    private String clientKey(HttpServletRequest request) {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith("Bearer ")) {
+            try {
+                DecodedJWT token = jwtUtils.validateToken(header.substring(7));
+                String username = jwtUtils.extractUsername(token);
+                request.setAttribute(JwtTokenValidator.VERIFIED_TOKEN, token);
+                return "user:" + username;
+            } catch (RuntimeException e) {
+                log.debug("Rate limiting a request with an invalid token by its address.");
+            }
+        }
+        return "ip:" + request.getRemoteAddr();
+    }
+
+    private void writeTooManyRequests(HttpServletRequest request, HttpServletResponse response, TokenBucket.Probe probe) throws IOException {
+        response.setHeader("Retry-After", String.valueOf(toSecondsCeil(probe.retryAfterNanos())));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+        Map<String, Object> errorDetails = new LinkedHashMap<>();
+        errorDetails.put("timestamp", LocalDateTime.now().toString());
+        errorDetails.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        errorDetails.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        errorDetails.put("message", "Too many requests. Try again later.");
+        errorDetails.put("path", request.getRequestURI());
+        objectMapper.writeValue(response.getOutputStream(), errorDetails);
+    }
+
+    private static long toSecondsCeil(long nanos) {
+        return nanos <= 0 ? 0 : (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    @Scheduled(fixedDelayString = "${security.rate-limit.eviction-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        store.evictIdle();
+    }
+}
@@ -0,0 +1,59 @@
+package S502.virtualPets.config.filter;
+
+import S502.virtualPets.config.jfr.JwtVerificationEvent;
+import S502.virtualPets.utils.JwtUtils;
+import com.auth0.jwt.exceptions.JWTVerificationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * {@link JwtTokenValidator} for the reactive security chain. The token is checked on the
+ * calling thread and the user is loaded without blocking; requests without a valid token
+ * continue unauthenticated and are rejected by the authorization rules.
+ */
+public class ReactiveJwtTokenValidator implements WebFilter {
+
+    private final JwtUtils jwtUtils;
+    private final ReactiveUserDetailsService userDetailService;
+
+    public ReactiveJwtTokenValidator(JwtUtils jwtUtils, ReactiveUserDetailsService userDetailService) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailService = userDetailService;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String jwtToken = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (jwtToken == null || !jwtToken.startsWith("Bearer ")) {
+            return chain.filter(exchange);
+        }
+        String username;
+        JwtVerificationEvent verification = new JwtVerificationEvent();
+        verification.begin();
+        try {
+            username = jwtUtils.extractUsername(jwtUtils.validateToken(jwtToken.substring(7)));
+            verification.username = username;
+            verification.valid = true;
+        } catch (JWTVerificationException e) {
+            return chain.filter(exchange);
+        } finally {
+            verification.commit();
+        }
+        // the chain completes empty, so the unknown-user case must not hang off switchIfEmpty
+        return userDetailService.findByUsername(username)
+                .map(userDetails -> Optional.of(ReactiveSecurityContextHolder.withAuthentication(
+                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities()))))
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(securityContext -> securityContext
+                        .map(context -> chain.filter(exchange).contextWrite(context))
+                        .orElseGet(() -> chain.filter(exchange)));
+    }
+}
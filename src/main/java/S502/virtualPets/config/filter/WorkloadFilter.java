@@ -0,0 +1,45 @@
+package S502.virtualPets.config.filter;
+
+import S502.virtualPets.persistence.enums.WorkloadEnum;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Marks requests to the configured bulk endpoints so all their database work, including
+ * the user lookup of the JWT filter, runs on the bulk connection pool.
+ */
+public class WorkloadFilter extends OncePerRequestFilter {
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<String> bulkPaths;
+
+    public WorkloadFilter(List<String> bulkPaths) {
+        this.bulkPaths = List.copyOf(bulkPaths);
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                    @NonNull HttpServletResponse response,
+                                    @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getServletPath();
+        if (bulkPaths.stream().noneMatch(pattern -> matcher.match(pattern, path))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        WorkloadEnum previous = WorkloadContext.enter(WorkloadEnum.BULK);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            WorkloadContext.restore(previous);
+        }
+    }
+}
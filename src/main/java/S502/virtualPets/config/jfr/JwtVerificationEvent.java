@@ -0,0 +1,21 @@
+package S502.virtualPets.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("virtualpets.JwtVerification")
+@Label("JWT Verification")
+@Description("Signature and claim checks of the bearer token of one request")
+@Category({"Virtual Pets", "Security"})
+@StackTrace(false)
+public class JwtVerificationEvent extends jdk.jfr.Event {
+
+    @Label("Valid")
+    public boolean valid;
+
+    @Label("Username")
+    public String username;
+}
@@ -0,0 +1,22 @@
+package S502.virtualPets.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("virtualpets.PasswordHash")
+@Label("Password Hash")
+@Description("One BCrypt hash, either encoding a new password or checking a login")
+@Category({"Virtual Pets", "Security"})
+@StackTrace(false)
+public class PasswordHashEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    @Description("encode or matches")
+    public String operation;
+
+    @Label("Matched")
+    public boolean matched;
+}
@@ -0,0 +1,70 @@
+package S502.virtualPets.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * One {@code PetService} call, opened by {@link PetOperationInterceptor}. While it is open,
+ * {@code PetService.convertToDto} adds its own time to {@link #mappingTime}, so the event
+ * shows how much of the operation went into building response DTOs (including any lazy
+ * owner loads they trigger). Calls answered from the cache show no mapping time.
+ */
+@Name("virtualpets.PetOperation")
+@Label("Pet Operation")
+@Category({"Virtual Pets", "Service"})
+@StackTrace(false)
+public class PetOperationEvent extends jdk.jfr.Event implements AutoCloseable {
+
+    private static final ThreadLocal<PetOperationEvent> CURRENT = new ThreadLocal<>();
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Pet Count")
+    @Description("Pets read or written by the operation")
+    public int petCount;
+
+    @Label("DTO Mapping Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long mappingTime;
+
+    private transient PetOperationEvent outer;
+
+    public static PetOperationEvent start(String operation) {
+        PetOperationEvent event = new PetOperationEvent();
+        event.operation = operation;
+        event.outer = CURRENT.get();
+        CURRENT.set(event);
+        event.begin();
+        return event;
+    }
+
+    /**
+     * The open operation of this thread, or null when there is none or no recording wants it.
+     */
+    public static PetOperationEvent current() {
+        PetOperationEvent event = CURRENT.get();
+        return event != null && event.isEnabled() ? event : null;
+    }
+
+    public void addMappingTime(long nanos) {
+        mappingTime += nanos;
+    }
+
+    @Override
+    public void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+        end();
+        if (shouldCommit()) {
+            commit();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package S502.virtualPets.config.jfr;
+
+import S502.virtualPets.dto.BattleResultDTO;
+import S502.virtualPets.dto.PetHistoryResponseDTO;
+import S502.virtualPets.dto.PetPageResponseDTO;
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.dto.PetSearchResponseDTO;
+import S502.virtualPets.utils.StaleWhileRevalidateCache.Read;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.util.Collection;
+
+/**
+ * Wraps every public {@code PetService} call in a {@link PetOperationEvent} named after the
+ * method. Sits outside the cache advice, so cache hits are recorded too.
+ */
+public class PetOperationInterceptor implements MethodInterceptor {
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class) {
+            return invocation.proceed();
+        }
+        try (PetOperationEvent event = PetOperationEvent.start(invocation.getMethod().getName())) {
+            Object result = invocation.proceed();
+            event.petCount = petCount(result);
+            return result;
+        }
+    }
+
+    private static int petCount(Object result) {
+        return switch (result) {
+            case Read<?> read -> petCount(read.value());
+            case Collection<?> pets -> pets.size();
+            case PetPageResponseDTO page -> page.pets().size();
+            case PetSearchResponseDTO search -> search.pets().size();
+            case BattleResultDTO battle -> 2;
+            case PetResponseDTO pet -> 1;
+            case PetHistoryResponseDTO history -> 1;
+            case null, default -> 0;
+        };
+    }
+}
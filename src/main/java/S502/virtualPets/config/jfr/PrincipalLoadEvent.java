@@ -0,0 +1,24 @@
+package S502.virtualPets.config.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("virtualpets.PrincipalLoad")
+@Label("Principal Load")
+@Description("Loading a user and resolving its authorities, once per authenticated request")
+@Category({"Virtual Pets", "Security"})
+@StackTrace(false)
+public class PrincipalLoadEvent extends jdk.jfr.Event {
+
+    @Label("Username")
+    public String username;
+
+    @Label("Found")
+    public boolean found;
+
+    @Label("Authorities")
+    public int authorities;
+}
@@ -0,0 +1,114 @@
+package S502.virtualPets.config.nativeimage;
+
+import S502.virtualPets.dto.AuthCreateRoleRequestDTO;
+import S502.virtualPets.dto.AuthCreateUserRequestDTO;
+import S502.virtualPets.dto.AuthLoginRequestDTO;
+import S502.virtualPets.dto.AuthResponseDTO;
+import S502.virtualPets.dto.BattleResultDTO;
+import S502.virtualPets.dto.CreatePetRequestDTO;
+import S502.virtualPets.dto.FlightRecordingDTO;
+import S502.virtualPets.dto.PetHistoryPointDTO;
+import S502.virtualPets.dto.PetHistoryResponseDTO;
+import S502.virtualPets.dto.PetImportRequestDTO;
+import S502.virtualPets.dto.PetPageResponseDTO;
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.dto.PetSearchRequestDTO;
+import S502.virtualPets.dto.PetSearchResponseDTO;
+import S502.virtualPets.dto.PetTransferJobDTO;
+import S502.virtualPets.dto.TournamentMatchDTO;
+import S502.virtualPets.dto.TournamentRequestDTO;
+import S502.virtualPets.dto.TournamentRoundDTO;
+import S502.virtualPets.dto.UpdatePetRequestDTO;
+import S502.virtualPets.dto.UsernameAvailabilityDTO;
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.PetHistoryEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+import S502.virtualPets.persistence.enums.PetSortFieldEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.enums.TransferFormatEnum;
+import S502.virtualPets.persistence.enums.TransferStatusEnum;
+import S502.virtualPets.persistence.repository.PetProjectionRepositoryImpl;
+import S502.virtualPets.persistence.repository.PetRuleEventBatchRepositoryImpl;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+import java.util.List;
+
+/**
+ * Reflection hints for GraalVM native images. Spring AOT covers controllers and
+ * repositories; these cover what it cannot infer: the Lombok-generated entity members
+ * Hibernate reaches through reflection, DTOs built from request parameters, and the
+ * Jackson (de)serializers java-jwt instantiates reflectively.
+ */
+@Configuration
+@ImportRuntimeHints(NativeImageHintsConfig.Hints.class)
+public class NativeImageHintsConfig {
+
+    static class Hints implements RuntimeHintsRegistrar {
+
+        private static final List<Class<?>> ENTITIES = List.of(
+                PetEntity.class, UserEntity.class, RoleEntity.class, PermissionEntity.class, PetHistoryEntity.class,
+                PetEntity.PetEntityBuilder.class, UserEntity.UserEntityBuilder.class);
+
+        private static final List<Class<?>> DTOS = List.of(
+                AuthCreateRoleRequestDTO.class, AuthCreateUserRequestDTO.class, AuthLoginRequestDTO.class,
+                AuthResponseDTO.class, CreatePetRequestDTO.class, PetResponseDTO.class, UpdatePetRequestDTO.class,
+                PetSearchRequestDTO.class, PetSearchResponseDTO.class, PetPageResponseDTO.class,
+                PetHistoryResponseDTO.class, PetHistoryPointDTO.class, PetImportRequestDTO.class, PetTransferJobDTO.class,
+                BattleResultDTO.class, TournamentRequestDTO.class, TournamentRoundDTO.class, TournamentMatchDTO.class,
+                UsernameAvailabilityDTO.class, FlightRecordingDTO.class);
+
+        private static final List<Class<?>> ENUMS = List.of(
+                MoodEnum.class, PermissionsEnum.class, PetTypeEnum.class, RoleEnum.class,
+                PetFieldEnum.class, PetSortFieldEnum.class, TransferFormatEnum.class, TransferStatusEnum.class);
+
+        private static final List<String> JWT_TYPES = List.of(
+                "com.auth0.jwt.impl.HeaderDeserializer",
+                "com.auth0.jwt.impl.PayloadDeserializer",
+                "com.auth0.jwt.impl.HeaderSerializer",
+                "com.auth0.jwt.impl.PayloadSerializer",
+                "com.auth0.jwt.impl.ClaimsSerializer",
+                "com.auth0.jwt.impl.ClaimsHolder",
+                "com.auth0.jwt.impl.HeaderClaimsHolder",
+                "com.auth0.jwt.impl.PayloadClaimsHolder",
+                "com.auth0.jwt.impl.BasicHeader",
+                "com.auth0.jwt.impl.PayloadImpl",
+                "com.auth0.jwt.impl.JsonNodeClaim");
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            ENTITIES.forEach(type -> hints.reflection().registerType(type,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS));
+            DTOS.forEach(type -> hints.reflection().registerType(type,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS));
+            ENUMS.forEach(type -> hints.reflection().registerType(type,
+                    MemberCategory.PUBLIC_FIELDS,
+                    MemberCategory.INVOKE_PUBLIC_METHODS));
+            hints.resources().registerPattern("ehcache.xml");
+            hints.reflection().registerType(TypeReference.of("org.ehcache.jsr107.EhcacheCachingProvider"),
+                    MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            hints.reflection().registerType(PetProjectionRepositoryImpl.class,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS, MemberCategory.DECLARED_FIELDS);
+            hints.reflection().registerType(PetRuleEventBatchRepositoryImpl.class,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            JWT_TYPES.forEach(type -> hints.reflection().registerType(TypeReference.of(type),
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS,
+                    MemberCategory.DECLARED_FIELDS));
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package S502.virtualPets.config.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * A bucket of {@code capacity} requests that refills completely every {@code refillPeriod}.
+ */
+public record RateLimitPolicy(String name, long capacity, Duration refillPeriod) {
+
+    public RateLimitPolicy {
+        if (capacity <= 0 || refillPeriod.isZero() || refillPeriod.isNegative()) {
+            throw new IllegalArgumentException("Rate limit policy '" + name + "' needs a positive capacity and refill period.");
+        }
+    }
+
+    long emissionIntervalNanos() {
+        return Math.max(1, refillPeriod.toNanos() / capacity);
+    }
+}
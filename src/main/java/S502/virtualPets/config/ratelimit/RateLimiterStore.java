@@ -0,0 +1,36 @@
+package S502.virtualPets.config.ratelimit;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory buckets keyed by policy and client. {@link ConcurrentHashMap} stripes the
+ * writes, and idle buckets are dropped once they have refilled.
+ */
+@Slf4j
+public class RateLimiterStore {
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    public TokenBucket.Probe tryConsume(RateLimitPolicy policy, String clientKey) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(policy.name() + ':' + clientKey, key -> new TokenBucket(policy, now));
+        return bucket.tryConsume(now);
+    }
+
+    public int evictIdle() {
+        long now = System.nanoTime();
+        int before = buckets.size();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+        int evicted = before - buckets.size();
+        if (evicted > 0) {
+            log.debug("Evicted {} idle rate limit buckets, {} remaining.", evicted, buckets.size());
+        }
+        return evicted;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,48 @@
+package S502.virtualPets.config.ratelimit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The whole state is the theoretical arrival time of the next
+ * request (GCRA), so consuming a token is a single compare-and-set.
+ */
+public final class TokenBucket {
+
+    private final long capacity;
+    private final long emissionIntervalNanos;
+    private final long burstWindowNanos;
+    private final AtomicLong theoreticalArrivalNanos;
+
+    TokenBucket(RateLimitPolicy policy, long nowNanos) {
+        this.capacity = policy.capacity();
+        this.emissionIntervalNanos = policy.emissionIntervalNanos();
+        this.burstWindowNanos = capacity * emissionIntervalNanos;
+        this.theoreticalArrivalNanos = new AtomicLong(nowNanos);
+    }
+
+    public Probe tryConsume(long nowNanos) {
+        while (true) {
+            long tat = theoreticalArrivalNanos.get();
+            long base = tat - nowNanos > 0 ? tat : nowNanos;
+            long newTat = base + emissionIntervalNanos;
+            long backlog = newTat - nowNanos;
+            if (backlog > burstWindowNanos) {
+                return new Probe(false, capacity, 0, tat - nowNanos, backlog - burstWindowNanos);
+            }
+            if (theoreticalArrivalNanos.compareAndSet(tat, newTat)) {
+                long remaining = (burstWindowNanos - backlog) / emissionIntervalNanos;
+                return new Probe(true, capacity, remaining, backlog, 0);
+            }
+        }
+    }
+
+    /**
+     * A bucket that has refilled completely carries no state worth keeping.
+     */
+    boolean isFull(long nowNanos) {
+        return theoreticalArrivalNanos.get() - nowNanos <= 0;
+    }
+
+    public record Probe(boolean allowed, long limit, long remaining, long nanosUntilFull, long retryAfterNanos) {
+    }
+}
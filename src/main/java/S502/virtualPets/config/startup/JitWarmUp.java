@@ -0,0 +1,181 @@
+package S502.virtualPets.config.startup;
+
+import S502.virtualPets.dto.AuthLoginRequestDTO;
+import S502.virtualPets.dto.CreatePetRequestDTO;
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.dto.UpdatePetRequestDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.service.PetService;
+import S502.virtualPets.utils.JwtUtils;
+import com.auth0.jwt.interfaces.DecodedJWT;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NativeDetector;
+import org.springframework.data.domain.Limit;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the hot request paths (token signing and verification, request validation, entity to
+ * DTO mapping, Jackson in both directions and a few indexed repository reads) in a loop right
+ * after startup, so the JIT has compiled them before real traffic arrives. Rounds repeat
+ * until a round spends less than {@code pets.warmup.settle-ratio} of its time in the JIT
+ * compiler, or {@code pets.warmup.max-duration} has passed. Readiness stays DOWN meanwhile
+ * (see {@link WarmUpHealthIndicator}). Nothing is written: the reads look for ids and names
+ * that cannot exist.
+ */
+@Component
+@Slf4j
+public class JitWarmUp {
+
+    private static final String USERNAME = "warm-up";
+
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final PetRepository petRepository;
+    private final UserRepository userRepository;
+    private final boolean enabled;
+    private final int iterationsPerRound;
+    private final int repositoryCallsPerRound;
+    private final double settleRatio;
+    private final Duration maxDuration;
+
+    private volatile Status status = new Status(false, 0, 0, null);
+
+    /**
+     * @param complete     whether readiness may report UP
+     * @param rounds       rounds run so far
+     * @param compileMillis time the JIT spent compiling during the warm-up
+     * @param result       how the warm-up ended, null while it runs
+     */
+    public record Status(boolean complete, int rounds, long compileMillis, String result) {
+    }
+
+    public JitWarmUp(JwtUtils jwtUtils, ObjectMapper objectMapper, Validator validator,
+                     PetRepository petRepository, UserRepository userRepository,
+                     @Value("${pets.warmup.enabled:true}") boolean enabled,
+                     @Value("${pets.warmup.iterations-per-round:2000}") int iterationsPerRound,
+                     @Value("${pets.warmup.repository-calls-per-round:50}") int repositoryCallsPerRound,
+                     @Value("${pets.warmup.settle-ratio:0.05}") double settleRatio,
+                     @Value("${pets.warmup.max-duration:60s}") Duration maxDuration) {
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.petRepository = petRepository;
+        this.userRepository = userRepository;
+        this.enabled = enabled;
+        this.iterationsPerRound = iterationsPerRound;
+        this.repositoryCallsPerRound = repositoryCallsPerRound;
+        this.settleRatio = settleRatio;
+        this.maxDuration = maxDuration;
+    }
+
+    public Status status() {
+        return status;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+        if (!enabled || NativeDetector.inNativeImage() || compiler == null || !compiler.isCompilationTimeMonitoringSupported()) {
+            // a native image is compiled ahead of time, there is nothing to warm up
+            status = new Status(true, 0, 0, enabled ? "skipped, no JIT" : "disabled");
+            return;
+        }
+        Thread thread = new Thread(() -> run(compiler), "jit-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run(CompilationMXBean compiler) {
+        long start = System.nanoTime();
+        long deadline = start + maxDuration.toNanos();
+        long compileStart = compiler.getTotalCompilationTime();
+        int rounds = 0;
+        String result = "failed";
+        try {
+            while (true) {
+                long roundStart = System.nanoTime();
+                long roundCompile = compiler.getTotalCompilationTime();
+                round();
+                rounds++;
+                long roundMillis = Math.max(1, (System.nanoTime() - roundStart) / 1_000_000);
+                double ratio = (double) (compiler.getTotalCompilationTime() - roundCompile) / roundMillis;
+                status = new Status(false, rounds, compiler.getTotalCompilationTime() - compileStart, null);
+                // the first rounds always compile a lot, so never stop before the third
+                if (rounds >= 3 && ratio < settleRatio) {
+                    result = "settled";
+                    break;
+                }
+                if (System.nanoTime() > deadline) {
+                    result = "time limit reached";
+                    break;
+                }
+            }
+        } catch (Throwable e) {
+            // errors included: a failed warm-up only costs latency, it must not keep the node out of rotation
+            log.warn("JIT warm-up stopped after {} rounds: {}", rounds, e.toString());
+            result = "failed: " + e;
+        } finally {
+            long compileMillis = compiler.getTotalCompilationTime() - compileStart;
+            status = new Status(true, rounds, compileMillis, result);
+            log.info("JIT warm-up {} after {} rounds in {} ms ({} ms compiling).",
+                    result, rounds, (System.nanoTime() - start) / 1_000_000, compileMillis);
+        }
+    }
+
+    private void round() {
+        UserEntity owner = UserEntity.builder().id(-1L).username(USERNAME).build();
+        String token = jwtUtils.createToken(new UsernamePasswordAuthenticationToken(USERNAME, null,
+                List.of(new SimpleGrantedAuthority("ROLE_USER"), new SimpleGrantedAuthority("READ"))));
+        try {
+            for (int i = 0; i < iterationsPerRound; i++) {
+                DecodedJWT decoded = jwtUtils.validateToken(token);
+                jwtUtils.extractUsername(decoded);
+
+                CreatePetRequestDTO create = objectMapper.readValue(
+                        "{\"name\":\"pet-" + i + "\",\"petType\":\"" + PetTypeEnum.values()[i % PetTypeEnum.values().length] + "\"}",
+                        CreatePetRequestDTO.class);
+                validator.validate(create);
+                validator.validate(objectMapper.readValue("{\"mood\":\"HAPPY\",\"energyLevel\":" + (i % 101) + "}", UpdatePetRequestDTO.class));
+                objectMapper.readValue("{\"username\":\"" + USERNAME + "\",\"password\":\"secret\"}", AuthLoginRequestDTO.class);
+
+                List<PetResponseDTO> pets = new ArrayList<>(8);
+                for (int p = 0; p < 8; p++) {
+                    pets.add(PetService.convertToDto(PetEntity.builder()
+                            .id((long) p).name(create.name()).petType(create.petType())
+                            .mood(MoodEnum.values()[(i + p) % MoodEnum.values().length])
+                            .energyLevel(p * 10).hungerLevel(100 - p * 10).user(owner)
+                            .createdAt(LocalDateTime.now()).updatedAt(LocalDateTime.now())
+                            .build()));
+                }
+                objectMapper.writeValueAsBytes(pets);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+        for (int i = 0; i < repositoryCallsPerRound; i++) {
+            petRepository.findByIdAndUserId(-1L - i, -1L);
+            petRepository.findChunkAfter(Long.MAX_VALUE, Limit.of(1));
+            userRepository.existsByUsername(USERNAME + "#" + i);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package S502.virtualPets.config.startup;
+
+import S502.virtualPets.config.swagger.SwaggerConfig;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Defers springdoc and {@link SwaggerConfig} until the API docs are first requested,
+ * instead of making every bean lazy.
+ */
+@Configuration
+@Profile("fast-startup")
+public class LazySwaggerConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazySwaggerBeans() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                String className = definition.getBeanClassName();
+                String factoryBean = definition.getFactoryBeanName();
+                if (isSwagger(className) || (factoryBean != null && isSwagger(beanFactory.getBeanDefinition(factoryBean).getBeanClassName()))) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean isSwagger(String className) {
+        return className != null
+                && (className.startsWith("org.springdoc.") || className.equals(SwaggerConfig.class.getName()));
+    }
+}
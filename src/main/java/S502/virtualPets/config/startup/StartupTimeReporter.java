@@ -0,0 +1,56 @@
+package S502.virtualPets.config.startup;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringBootVersion;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Logs how long the JVM took to get a refreshed context and, when
+ * {@code startup.report.file} is set, writes it to a file so builds can track it per release.
+ */
+@Component
+@Slf4j
+public class StartupTimeReporter implements ApplicationListener<ContextRefreshedEvent> {
+
+    @Value("${startup.report.file:}")
+    private String reportFile;
+
+    @Value("${spring.aot.enabled:false}")
+    private boolean aotEnabled;
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (event.getApplicationContext().getParent() != null) {
+            return;
+        }
+        long uptimeMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+        boolean cds = ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .anyMatch(arg -> arg.startsWith("-XX:SharedArchiveFile") || arg.startsWith("-XX:ArchiveClassesAtExit"));
+        log.info("Context refreshed {} ms after JVM start (aot={}, cds={}).", uptimeMillis, aotEnabled, cds);
+
+        if (reportFile.isBlank()) {
+            return;
+        }
+        Properties report = new Properties();
+        report.setProperty("startup.millis", String.valueOf(uptimeMillis));
+        report.setProperty("aot", String.valueOf(aotEnabled));
+        report.setProperty("cds", String.valueOf(cds));
+        report.setProperty("java.version", System.getProperty("java.version"));
+        report.setProperty("spring-boot.version", String.valueOf(SpringBootVersion.getVersion()));
+        try (Writer writer = Files.newBufferedWriter(Path.of(reportFile))) {
+            report.store(writer, "VIRTUALPETS startup report");
+        } catch (IOException e) {
+            log.warn("Could not write startup report to '{}': {}", reportFile, e.getMessage());
+        }
+    }
+}
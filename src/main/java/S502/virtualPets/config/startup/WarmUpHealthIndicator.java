@@ -0,0 +1,31 @@
+package S502.virtualPets.config.startup;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * DOWN until {@link JitWarmUp} has finished. Part of the readiness group, so a load balancer
+ * probing {@code /actuator/health/readiness} only routes to warmed-up instances; liveness
+ * is unaffected.
+ */
+@Component
+public class WarmUpHealthIndicator implements HealthIndicator {
+
+    private final JitWarmUp warmUp;
+
+    public WarmUpHealthIndicator(JitWarmUp warmUp) {
+        this.warmUp = warmUp;
+    }
+
+    @Override
+    public Health health() {
+        JitWarmUp.Status status = warmUp.status();
+        Health.Builder health = status.complete() ? Health.up() : Health.down();
+        health.withDetail("rounds", status.rounds()).withDetail("compileMillis", status.compileMillis());
+        if (status.result() != null) {
+            health.withDetail("result", status.result());
+        }
+        return health.build();
+    }
+}
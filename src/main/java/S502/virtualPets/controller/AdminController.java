@@ -0,0 +1,137 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.dto.FlightRecordingDTO;
+import S502.virtualPets.dto.RoleSnapshotResponseDTO;
+import S502.virtualPets.persistence.coherence.CacheCoherenceService;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.service.FlightRecordingService;
+import S502.virtualPets.service.RoleSnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin")
+@Profile("!reactive")
+@Tag(name = "Administration", description = "Operational endpoints for administrators.")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+@Slf4j
+public class AdminController {
+
+    @Autowired
+    private RoleSnapshotService roleSnapshotService;
+    @Autowired
+    private ObjectProvider<CacheCoherenceService> cacheCoherenceService;
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+
+    @PostMapping("/roles/reload")
+    @Operation(summary = "Reload roles and permissions", description = "Reads roles and permissions from the database again and replaces the in-memory snapshot, on every instance when cache coherence is enabled.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snapshot reloaded.",
+                    content = @Content(schema = @Schema(implementation = RoleSnapshotResponseDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<RoleSnapshotResponseDTO> reloadRoles() {
+        log.info("POST petition received to reload the role snapshot.");
+        RoleSnapshotService.Snapshot snapshot = roleSnapshotService.reload();
+        cacheCoherenceService.ifAvailable(coherence -> coherence.invalidateAll(CacheCoherenceService.ROLE_SNAPSHOT));
+        Map<RoleEnum, List<String>> authorities = new EnumMap<>(RoleEnum.class);
+        snapshot.roles().forEach((role, entry) -> authorities.put(role,
+                entry.authorities().stream().map(GrantedAuthority::getAuthority).toList()));
+        return new ResponseEntity<>(new RoleSnapshotResponseDTO(authorities, snapshot.loadedAt()), HttpStatus.OK);
+    }
+
+    @GetMapping("/recording")
+    @Operation(summary = "Flight recording status", description = "State of the Java Flight Recorder recording started through this API, if any.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recording status.",
+                    content = @Content(schema = @Schema(implementation = FlightRecordingDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<FlightRecordingDTO> getRecording() {
+        log.info("GET petition received for the flight recording status.");
+        return new ResponseEntity<>(flightRecordingService.status(), HttpStatus.OK);
+    }
+
+    @PostMapping("/recording/start")
+    @Operation(summary = "Start a flight recording", description = "Starts a Java Flight Recorder recording with the JDK 'default' or 'profile' settings plus the application events (JWT verification, principal load, password hashing and pet operations).")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recording started.",
+                    content = @Content(schema = @Schema(implementation = FlightRecordingDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown settings.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "409", description = "A recording is already running.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<FlightRecordingDTO> startRecording(@RequestParam(defaultValue = "default") String settings) {
+        log.info("POST petition received to start a flight recording with settings '{}'.", settings);
+        return new ResponseEntity<>(flightRecordingService.start(settings), HttpStatus.OK);
+    }
+
+    @PostMapping("/recording/dump")
+    @Operation(summary = "Dump the flight recording", description = "Writes everything recorded so far to a local file and keeps recording.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recording written; the response has the file path.",
+                    content = @Content(schema = @Schema(implementation = FlightRecordingDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "404", description = "No recording is running.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<FlightRecordingDTO> dumpRecording() {
+        log.info("POST petition received to dump the flight recording.");
+        return new ResponseEntity<>(flightRecordingService.dump(), HttpStatus.OK);
+    }
+
+    @PostMapping("/recording/stop")
+    @Operation(summary = "Stop the flight recording", description = "Stops the recording and writes it to a local file.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Recording stopped and written; the response has the file path.",
+                    content = @Content(schema = @Schema(implementation = FlightRecordingDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "404", description = "No recording is running.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<FlightRecordingDTO> stopRecording() {
+        log.info("POST petition received to stop the flight recording.");
+        return new ResponseEntity<>(flightRecordingService.stop(), HttpStatus.OK);
+    }
+}
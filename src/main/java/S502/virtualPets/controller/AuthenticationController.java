@@ -3,7 +3,10 @@ package S502.virtualPets.controller;
 import S502.virtualPets.dto.AuthCreateUserRequestDTO;
 import S502.virtualPets.dto.AuthLoginRequestDTO;
 import S502.virtualPets.dto.AuthResponseDTO;
+import S502.virtualPets.dto.UsernameAvailabilityDTO;
+import S502.virtualPets.service.IdempotencyService;
 import S502.virtualPets.service.UserDetailServiceImpl;
+import S502.virtualPets.service.UsernameAvailabilityService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,35 +14,65 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Map;
 
 @RestController
 @RequestMapping("/auth")
+@Profile("!reactive")
 @Tag(name = "Authentication", description = "Endpoints for registration and user login.")
 public class AuthenticationController {
 
     @Autowired
     private UserDetailServiceImpl userDetailService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
+    @Autowired
+    private UsernameAvailabilityService usernameAvailabilityService;
+
     @PostMapping("/sign-up")
     @Operation(summary = "Register a new user", description = "Create a new user account and return a JWT.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Successfully registered user.",
                 content = @Content(schema = @Schema(implementation = AuthResponseDTO.class))),
-            @ApiResponse(responseCode = "400", description = "Invalid request or username already exists.",
+            @ApiResponse(responseCode = "400", description = "Invalid request.",
+            content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "409", description = "Username already exists.",
+            content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request.",
             content = @Content(schema = @Schema(implementation = Map.class)))
 
     })
-    public ResponseEntity<AuthResponseDTO> register(@RequestBody @Valid AuthCreateUserRequestDTO userRequest){
-        return new ResponseEntity<>(this.userDetailService.createUser(userRequest), HttpStatus.CREATED);
+    public ResponseEntity<AuthResponseDTO> register(@RequestBody @Valid AuthCreateUserRequestDTO userRequest,
+                                                    @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
+        return idempotencyService.execute("sign-up", idempotencyKey, userRequest,
+                () -> new ResponseEntity<>(this.userDetailService.createUser(userRequest), HttpStatus.CREATED));
+    }
+
+    @GetMapping("/username-available")
+    @Operation(summary = "Check a username", description = "Tells whether a username is still free. Most free names are answered from memory without a database query, so a free answer is a hint: a name taken moments ago on another instance can still be refused at sign-up with 409.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Availability of the username.",
+                    content = @Content(schema = @Schema(implementation = UsernameAvailabilityDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Missing or blank username.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<UsernameAvailabilityDTO> usernameAvailable(@RequestParam @NotBlank String username){
+        return new ResponseEntity<>(new UsernameAvailabilityDTO(username, usernameAvailabilityService.isAvailable(username)), HttpStatus.OK);
     }
 
     @PostMapping("/log-in")
@@ -1,9 +1,17 @@
 package S502.virtualPets.controller;
 
+import S502.virtualPets.dto.BattleResultDTO;
 import S502.virtualPets.dto.CreatePetRequestDTO;
+import S502.virtualPets.dto.PetHistoryResponseDTO;
+import S502.virtualPets.dto.PetPageResponseDTO;
 import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.dto.PetSearchRequestDTO;
+import S502.virtualPets.dto.PetSearchResponseDTO;
 import S502.virtualPets.dto.UpdatePetRequestDTO;
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+import S502.virtualPets.service.IdempotencyService;
 import S502.virtualPets.service.PetService;
+import S502.virtualPets.utils.StaleWhileRevalidateCache.Read;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,20 +19,28 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springdoc.core.annotations.ParameterObject;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
 
 @RestController
 @RequestMapping("/api/pets")
+@Profile("!reactive")
 @Tag(name = "Virtual pets", description = "Endpoints for virtual pet management.")
 @SecurityRequirement(name = "bearerAuth")
 @Slf4j
@@ -33,6 +49,9 @@ public class PetController {
     @Autowired
     private PetService petService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @PostMapping
     @Operation(summary = "Create a new pet", description = "Create a virtual pet associated with the authenticated user.")
     @ApiResponses(value = {
@@ -41,13 +60,18 @@ public class PetController {
             @ApiResponse(responseCode = "400", description = "Invalid request (eg. incomplete pet data).",
                     content = @Content(schema = @Schema(implementation = Map.class))),
             @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "422", description = "Idempotency-Key already used for a different request.",
                     content = @Content(schema = @Schema(implementation = Map.class)))
     })
-    public ResponseEntity<PetResponseDTO> createPet (@RequestBody @Valid CreatePetRequestDTO createPetRequestDTO){
+    public ResponseEntity<PetResponseDTO> createPet (@RequestBody @Valid CreatePetRequestDTO createPetRequestDTO,
+                                                     @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey){
         log.info("Post request received to create pet: {}", createPetRequestDTO.name());
-        PetResponseDTO createPet = petService.createPet(createPetRequestDTO);
-        log.info("Pet successfully created with ID: {}", createPet.id());
-        return new ResponseEntity<>(createPet, HttpStatus.CREATED);
+        return idempotencyService.execute("create-pet", idempotencyKey, createPetRequestDTO, () -> {
+            PetResponseDTO createPet = petService.createPet(createPetRequestDTO);
+            log.info("Pet successfully created with ID: {}", createPet.id());
+            return new ResponseEntity<>(createPet, HttpStatus.CREATED);
+        });
 
     }
 
@@ -70,42 +94,187 @@ public class PetController {
 
     }
 
+    @GetMapping(value = "/all", params = "page")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get a page of all pets (only admin)", description = "Same as /all but returns one page ordered by id, together with the total number of pets.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of pets.",
+                    content = @Content(schema = @Schema(implementation = PetPageResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Page too deep to merge across shards; use the search cursor.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<PetPageResponseDTO> getAllPetsPage(@RequestParam @Min(0) int page,
+                                                             @RequestParam(defaultValue = "50") @Min(1) @Max(200) int size){
+        log.info("GET petition received to obtain page {} of all pets (administrator access).", page);
+        PetPageResponseDTO result = petService.getAllPetsPage(page, size);
+        log.info("returned {} of {} pets.", result.pets().size(), result.totalElements());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+
+    }
+
+    @GetMapping(value = "/all", params = "fields")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get selected fields of all pets (only admin)", description = "Same as /all but only the comma separated fields are read from the database and returned. The id is always included.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "List of all pets with the requested fields.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<List<Map<String, Object>>> getAllPetsFields(@RequestParam String fields){
+        log.info("GET petition received to obtain fields '{}' of all pets (administrator access).", fields);
+        List<Map<String, Object>> pets = petService.getAllPetsFields(PetFieldEnum.parse(fields));
+        log.info("returned {} pets.", pets.size());
+        return new ResponseEntity<>(pets, HttpStatus.OK);
+
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Search pets (only admin)", description = "Filter pets by name prefix, type, mood, levels, owner and dates. Results are sorted with the id as tiebreak and paged with the returned cursor.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of matching pets.",
+                    content = @Content(schema = @Schema(implementation = PetSearchResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid filters or cursor.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<PetSearchResponseDTO> searchPets(@ParameterObject @Valid PetSearchRequestDTO criteria){
+        log.info("GET petition received to search pets (administrator access).");
+        PetSearchResponseDTO result = petService.searchPets(criteria);
+        log.info("Search returned {} pets.", result.pets().size());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+
+    }
+
     @GetMapping("/my-pets")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Get my pets", description = "Get all the authenticated user pets.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "User pet list.",
+            @ApiResponse(responseCode = "200", description = "User pet list. With a Warning: 110 header it is the last known copy, Age seconds old, served while the database is unreachable.",
                     content = @Content(schema = @Schema(implementation = PetResponseDTO.class))),
             @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "503", description = "Database unreachable and no copy to serve.",
                     content = @Content(schema = @Schema(implementation = Map.class)))
     })
     public ResponseEntity<List<PetResponseDTO>> getMyPets(){
         log.info("GET petition received to obtain the authenticated user pets");
-        List<PetResponseDTO> pets = petService.getMyPets();
+        Read<List<PetResponseDTO>> pets = petService.readMyPets();
+        log.info("Returned {} Pets for the current user.", pets.value().size());
+        return new ResponseEntity<>(pets.value(), stalenessHeaders(pets), HttpStatus.OK);
+
+    }
+
+    @GetMapping(value = "/my-pets", params = "fields")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get selected fields of my pets", description = "Same as /my-pets but only the comma separated fields are read from the database and returned. The id is always included.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User pet list with the requested fields.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown field requested.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<List<Map<String, Object>>> getMyPetsFields(@RequestParam String fields){
+        log.info("GET petition received to obtain fields '{}' of the authenticated user pets", fields);
+        List<Map<String, Object>> pets = petService.getMyPetsFields(PetFieldEnum.parse(fields));
         log.info("Returned {} Pets for the current user.", pets.size());
         return new ResponseEntity<>(pets, HttpStatus.OK);
 
     }
 
+    @GetMapping("/{id}/history")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get pet history", description = "Energy, hunger and mood of a pet over time. Defaults to the last 7 days; when there are more samples than maxPoints they are averaged into equal time buckets.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "History of the pet.",
+                    content = @Content(schema = @Schema(implementation = PetHistoryResponseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid time range.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "404", description = "Pet not found.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<PetHistoryResponseDTO> getPetHistory(@PathVariable Long id,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                               @RequestParam(defaultValue = "200") @Min(1) @Max(2000) int maxPoints){
+        log.info("GET petition received to obtain the history of pet with ID: {}", id);
+        PetHistoryResponseDTO history = petService.getPetHistory(id, from, to, maxPoints);
+        log.info("returned {} points from {} samples.", history.points().size(), history.rawSamples());
+        return new ResponseEntity<>(history, HttpStatus.OK);
+
+    }
+
+    @PostMapping("/{id}/battle/{opponentId}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Battle another pet", description = "Your pet fights any other pet. Both pets leave the battle with updated energy, hunger and mood, written together. Pass the returned seed again to replay the same fight.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Battle result with both pets after the fight.",
+                    content = @Content(schema = @Schema(implementation = BattleResultDTO.class))),
+            @ApiResponse(responseCode = "400", description = "A pet cannot battle itself.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "404", description = "Pet not found, not yours, or opponent not found.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "409", description = "The pets live on different shards.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<BattleResultDTO> battle(@PathVariable Long id,
+                                                  @PathVariable Long opponentId,
+                                                  @RequestParam(required = false) Long seed){
+        log.info("POST petition received for a battle between pet {} and pet {}", id, opponentId);
+        BattleResultDTO result = petService.battle(id, opponentId, seed);
+        log.info("Battle finished, winner pet {}.", result.winnerId());
+        return new ResponseEntity<>(result, HttpStatus.OK);
+
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
     @Operation(summary = "Get pet by ID", description = "Obtains a specific pet for his id. Users can only see their own, any administrators.")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Pet found.",
+            @ApiResponse(responseCode = "200", description = "Pet found. With a Warning: 110 header it is the last known copy, Age seconds old, served while the database is unreachable.",
                     content = @Content(schema = @Schema(implementation = PetResponseDTO.class))),
             @ApiResponse(responseCode = "401", description = "Not authenticated",
                     content = @Content(schema = @Schema(implementation = Map.class))),
             @ApiResponse(responseCode = "403", description = "Denied access (not owner or admin).",
                     content = @Content(schema = @Schema(implementation = Map.class))),
             @ApiResponse(responseCode = "404", description = "Pet not found.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "503", description = "Database unreachable and no copy to serve.",
                     content = @Content(schema = @Schema(implementation = Map.class)))
     })
     public ResponseEntity<PetResponseDTO> getPetById (@PathVariable Long id){
         log.info("GET petition received for pet with ID: {}", id);
-        PetResponseDTO pet = petService.getPetById(id);
+        Read<PetResponseDTO> pet = petService.readPetById(id);
         log.info("Pet with ID {} successfully recovered.", id);
-        return new ResponseEntity<>(pet, HttpStatus.OK);
+        return new ResponseEntity<>(pet.value(), stalenessHeaders(pet), HttpStatus.OK);
+
+    }
 
+    private static HttpHeaders stalenessHeaders(Read<?> read) {
+        HttpHeaders headers = new HttpHeaders();
+        if (read.stale()) {
+            headers.set(HttpHeaders.AGE, Long.toString(read.age().toSeconds()));
+            headers.set(HttpHeaders.WARNING, "110 - \"Response is Stale\"");
+        }
+        return headers;
     }
 
     @PutMapping("/{id}")
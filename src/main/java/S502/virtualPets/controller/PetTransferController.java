@@ -0,0 +1,107 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.dto.PetImportRequestDTO;
+import S502.virtualPets.dto.PetTransferJobDTO;
+import S502.virtualPets.persistence.enums.TransferFormatEnum;
+import S502.virtualPets.service.PetTransferService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/pets/transfers")
+@Profile("!reactive")
+@Tag(name = "Pet transfers", description = "Background export and import of the pets table.")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+@Slf4j
+public class PetTransferController {
+
+    @Autowired
+    private PetTransferService petTransferService;
+
+    @PostMapping("/export")
+    @Operation(summary = "Start a pet export", description = "Writes every pet to a file in the transfer directory in the background. Poll the returned job for progress.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Export job accepted.",
+                    content = @Content(schema = @Schema(implementation = PetTransferJobDTO.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "503", description = "Too many transfer jobs queued.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<PetTransferJobDTO> startExport(@RequestParam(defaultValue = "NDJSON") TransferFormatEnum format,
+                                                         @RequestParam(defaultValue = "false") boolean gzip) {
+        log.info("POST petition received to export pets as {} (gzip: {}).", format, gzip);
+        return new ResponseEntity<>(petTransferService.startExport(format, gzip), HttpStatus.ACCEPTED);
+    }
+
+    @PostMapping("/import")
+    @Operation(summary = "Start a pet import", description = "Reads a CSV or NDJSON file (optionally .gz) from the transfer directory and inserts the pets in chunks. An interrupted import continues from its last committed chunk.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import job accepted.",
+                    content = @Content(schema = @Schema(implementation = PetTransferJobDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid file name or format.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "404", description = "File not found in the transfer directory.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "409", description = "The file is already being imported.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<PetTransferJobDTO> startImport(@Valid @RequestBody PetImportRequestDTO request) {
+        log.info("POST petition received to import pets from '{}'.", request.fileName());
+        return new ResponseEntity<>(petTransferService.startImport(request), HttpStatus.ACCEPTED);
+    }
+
+    @GetMapping
+    @Operation(summary = "List transfer jobs", description = "Returns every known job, most recent first.")
+    public ResponseEntity<List<PetTransferJobDTO>> getJobs() {
+        return new ResponseEntity<>(petTransferService.getJobs(), HttpStatus.OK);
+    }
+
+    @GetMapping("/{jobId}")
+    @Operation(summary = "Get a transfer job", description = "Returns the status and the processed rows of a job.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Job found.",
+                    content = @Content(schema = @Schema(implementation = PetTransferJobDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Job not found.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<PetTransferJobDTO> getJob(@PathVariable String jobId) {
+        return new ResponseEntity<>(petTransferService.getJob(jobId), HttpStatus.OK);
+    }
+
+    @PostMapping("/{jobId}/resume")
+    @Operation(summary = "Resume a failed import", description = "Starts a new import job for the same file that skips the rows already committed.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Import resumed.",
+                    content = @Content(schema = @Schema(implementation = PetTransferJobDTO.class))),
+            @ApiResponse(responseCode = "409", description = "The job is not a failed import, was already resumed, or its file is being imported.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<PetTransferJobDTO> resumeImport(@PathVariable String jobId) {
+        log.info("POST petition received to resume transfer job {}.", jobId);
+        return new ResponseEntity<>(petTransferService.resumeImport(jobId), HttpStatus.ACCEPTED);
+    }
+}
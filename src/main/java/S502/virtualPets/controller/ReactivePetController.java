@@ -0,0 +1,72 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.service.AuthenticatedUser;
+import S502.virtualPets.service.ReactivePetService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * Non-blocking versions of the two busiest pet reads, served by the {@code reactive} profile
+ * instead of {@link PetController}.
+ */
+@RestController
+@RequestMapping("/api/pets")
+@Profile("reactive")
+@Tag(name = "Pets (reactive)", description = "Non-blocking pet reads.")
+@SecurityRequirement(name = "bearerAuth")
+@Slf4j
+public class ReactivePetController {
+
+    @Autowired
+    private ReactivePetService petService;
+
+    @GetMapping(value = "/my-pets", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get my pets", description = "Get all the authenticated user pets. With Accept: application/x-ndjson every pet is written as soon as it is read.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User pet list.",
+                    content = @Content(schema = @Schema(implementation = PetResponseDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public Flux<PetResponseDTO> getMyPets(@AuthenticationPrincipal AuthenticatedUser currentUser) {
+        log.info("GET petition received to obtain the authenticated user pets");
+        return petService.getMyPets(currentUser);
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasAnyRole('USER', 'ADMIN')")
+    @Operation(summary = "Get pet by ID", description = "Get a specific pet by its ID. Users can only see their own pets, administrators can see any pet.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Pet found.",
+                    content = @Content(schema = @Schema(implementation = PetResponseDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "404", description = "Pet not found or without permission.",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public Mono<PetResponseDTO> getPetById(@PathVariable("id") Long petId, @AuthenticationPrincipal AuthenticatedUser currentUser) {
+        log.info("GET petition received to obtain pet with ID: {}", petId);
+        return petService.getPetById(petId, currentUser);
+    }
+}
@@ -0,0 +1,87 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.dto.TournamentRequestDTO;
+import S502.virtualPets.dto.TournamentRoundDTO;
+import S502.virtualPets.service.TournamentService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/admin/tournaments")
+@Profile("!reactive")
+@Tag(name = "Tournaments", description = "Simulated knockout tournaments between pets.")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+@Slf4j
+public class TournamentController {
+
+    @Autowired
+    private TournamentService tournamentService;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Value("${pets.tournament.timeout:5m}")
+    private Duration timeout;
+
+    @PostMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Run a tournament (only admin)", description = "Simulates a knockout tournament between pets and streams one JSON line per round as soon as it is decided. The same seed and pets always give the same bracket. Pets are not modified.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of rounds, the last one names the champion.",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = TournamentRoundDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid tournament settings.",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Not authenticated",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "403", description = "Denied access (it is not admin).",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
+    })
+    public ResponseEntity<ResponseBodyEmitter> runTournament(@RequestBody(required = false) @Valid TournamentRequestDTO request) {
+        log.info("POST petition received to run a tournament: {}", request);
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(timeout.toMillis());
+        CompletableFuture<Void> tournament = tournamentService.run(request, round -> {
+            try {
+                emitter.send(objectMapper.writeValueAsString(round) + "\n", MediaType.APPLICATION_NDJSON);
+            } catch (IOException e) {
+                // the client went away: stop simulating
+                throw new UncheckedIOException(e);
+            }
+        });
+        tournament.whenComplete((ignored, error) -> {
+            if (error == null) {
+                emitter.complete();
+            } else if (!(error instanceof CancellationException)) {
+                log.warn("Tournament stopped: {}", error.getMessage());
+                emitter.completeWithError(error);
+            }
+        });
+        // a response that timed out or ended early has nobody left to stream to
+        emitter.onTimeout(() -> tournament.cancel(false));
+        emitter.onCompletion(() -> tournament.cancel(false));
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+}
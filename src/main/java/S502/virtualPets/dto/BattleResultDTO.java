@@ -0,0 +1,9 @@
+package S502.virtualPets.dto;
+
+public record BattleResultDTO(Long winnerId,
+                              Long loserId,
+                              int exchanges,
+                              long seed,
+                              PetResponseDTO pet,
+                              PetResponseDTO opponent) {
+}
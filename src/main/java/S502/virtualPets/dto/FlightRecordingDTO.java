@@ -0,0 +1,11 @@
+package S502.virtualPets.dto;
+
+import java.time.LocalDateTime;
+
+public record FlightRecordingDTO(String name,
+                                 String state,
+                                 String settings,
+                                 LocalDateTime startedAt,
+                                 String file,
+                                 Long sizeBytes) {
+}
@@ -0,0 +1,17 @@
+package S502.virtualPets.dto;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+
+import java.time.LocalDateTime;
+
+/**
+ * One point of a pet's history chart. When samples are downsampled the levels are the
+ * bucket averages, the mood is the last one of the bucket and {@code samples} says how many
+ * raw samples were merged.
+ */
+public record PetHistoryPointDTO(LocalDateTime at,
+                                 int energyLevel,
+                                 int hungerLevel,
+                                 MoodEnum mood,
+                                 int samples) {
+}
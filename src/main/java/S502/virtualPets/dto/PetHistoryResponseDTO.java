@@ -0,0 +1,11 @@
+package S502.virtualPets.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public record PetHistoryResponseDTO(Long petId,
+                                    LocalDateTime from,
+                                    LocalDateTime to,
+                                    int rawSamples,
+                                    List<PetHistoryPointDTO> points) {
+}
@@ -0,0 +1,12 @@
+package S502.virtualPets.dto;
+
+import S502.virtualPets.persistence.enums.TransferFormatEnum;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+public record PetImportRequestDTO(@NotBlank(message = "The file name is mandatory.")
+                                  String fileName,
+
+                                  @NotNull(message = "The format is mandatory. You can choose between: CSV, NDJSON")
+                                  TransferFormatEnum format) {
+}
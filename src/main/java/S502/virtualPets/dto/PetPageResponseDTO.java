@@ -0,0 +1,10 @@
+package S502.virtualPets.dto;
+
+import java.util.List;
+
+public record PetPageResponseDTO(List<PetResponseDTO> pets,
+                                 int page,
+                                 int size,
+                                 long totalElements,
+                                 int totalPages) {
+}
@@ -0,0 +1,65 @@
+package S502.virtualPets.dto;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetSortFieldEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import jakarta.annotation.Nullable;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Size;
+import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+public record PetSearchRequestDTO(@Nullable
+                                  @Size(max = 50, message = "The name prefix cannot exceed 50 characters.")
+                                  String namePrefix,
+
+                                  @Nullable
+                                  PetTypeEnum type,
+
+                                  @Nullable
+                                  MoodEnum mood,
+
+                                  @Nullable @Min(0) @Max(100) Integer minEnergy,
+                                  @Nullable @Min(0) @Max(100) Integer maxEnergy,
+                                  @Nullable @Min(0) @Max(100) Integer minHunger,
+                                  @Nullable @Min(0) @Max(100) Integer maxHunger,
+
+                                  @Nullable
+                                  Long userId,
+
+                                  @Nullable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdFrom,
+                                  @Nullable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime createdTo,
+                                  @Nullable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedFrom,
+                                  @Nullable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedTo,
+
+                                  @Nullable
+                                  PetSortFieldEnum sort,
+
+                                  @Nullable
+                                  Sort.Direction direction,
+
+                                  @Nullable
+                                  @Min(value = 1, message = "The page size must be at least 1.")
+                                  @Max(value = 200, message = "The page size cannot be greater than 200.")
+                                  Integer size,
+
+                                  @Nullable
+                                  String cursor) {
+
+    public static final int DEFAULT_SIZE = 50;
+
+    public PetSortFieldEnum sortOrDefault() {
+        return sort != null ? sort : PetSortFieldEnum.ID;
+    }
+
+    public Sort.Direction directionOrDefault() {
+        return direction != null ? direction : Sort.Direction.ASC;
+    }
+
+    public int sizeOrDefault() {
+        return size != null ? size : DEFAULT_SIZE;
+    }
+}
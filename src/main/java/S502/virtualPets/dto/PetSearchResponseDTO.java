@@ -0,0 +1,7 @@
+package S502.virtualPets.dto;
+
+import java.util.List;
+
+public record PetSearchResponseDTO(List<PetResponseDTO> pets,
+                                   String nextCursor) {
+}
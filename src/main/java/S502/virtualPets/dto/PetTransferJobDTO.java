@@ -0,0 +1,18 @@
+package S502.virtualPets.dto;
+
+import S502.virtualPets.persistence.enums.TransferFormatEnum;
+import S502.virtualPets.persistence.enums.TransferStatusEnum;
+
+import java.time.LocalDateTime;
+
+public record PetTransferJobDTO(String id,
+                                String type,
+                                TransferFormatEnum format,
+                                String fileName,
+                                TransferStatusEnum status,
+                                long processedRows,
+                                Long totalRows,
+                                String error,
+                                LocalDateTime startedAt,
+                                LocalDateTime finishedAt) {
+}
@@ -0,0 +1,11 @@
+package S502.virtualPets.dto;
+
+import S502.virtualPets.persistence.enums.RoleEnum;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+public record RoleSnapshotResponseDTO(Map<RoleEnum, List<String>> authorities,
+                                      LocalDateTime loadedAt) {
+}
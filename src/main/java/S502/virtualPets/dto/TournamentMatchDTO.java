@@ -0,0 +1,8 @@
+package S502.virtualPets.dto;
+
+public record TournamentMatchDTO(Long petId,
+                                 Long opponentId,
+                                 Long winnerId,
+                                 int petWins,
+                                 int opponentWins) {
+}
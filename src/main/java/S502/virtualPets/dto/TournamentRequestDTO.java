@@ -0,0 +1,13 @@
+package S502.virtualPets.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+
+public record TournamentRequestDTO(Long seed,
+                                   @Min(value = 2, message = "A tournament needs at least 2 pets.")
+                                   @Max(value = 100000, message = "A tournament cannot have more than 100000 pets.")
+                                   Integer maxPets,
+                                   @Min(value = 1, message = "Matches are at least best of 1.")
+                                   @Max(value = 99, message = "Matches are at most best of 99.")
+                                   Integer bestOf) {
+}
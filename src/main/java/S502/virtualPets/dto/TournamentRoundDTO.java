@@ -0,0 +1,10 @@
+package S502.virtualPets.dto;
+
+import java.util.List;
+
+public record TournamentRoundDTO(long seed,
+                                 int round,
+                                 int entrants,
+                                 List<TournamentMatchDTO> matches,
+                                 Long championId) {
+}
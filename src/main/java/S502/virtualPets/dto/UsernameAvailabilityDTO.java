@@ -0,0 +1,4 @@
+package S502.virtualPets.dto;
+
+public record UsernameAvailabilityDTO(String username, boolean available) {
+}
@@ -0,0 +1,161 @@
+package S502.virtualPets.persistence.coherence;
+
+import S502.virtualPets.persistence.coherence.InvalidationBatch.Invalidation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the in-process caches of several instances coherent. Local changes are queued with
+ * {@link #invalidate}, de-duplicated, and broadcast in numbered batches every few
+ * milliseconds; empty batches go out as heartbeats. Batches from other nodes are applied
+ * through the {@link InvalidationHandler}. When a node's numbering jumps, batches were lost
+ * (a partition, a dropped connection or datagram) and every local cache is flushed, since
+ * there is no telling what was missed.
+ */
+@Slf4j
+public class CacheCoherenceService implements AutoCloseable {
+
+    /** Cache name for Hibernate query spaces: the key is a table name. */
+    public static final String QUERY_SPACES = "#spaces";
+    /** Cache name for the role and permission snapshot. */
+    public static final String ROLE_SNAPSHOT = "#roles";
+    /** Key that invalidates a whole cache. */
+    public static final String ALL_KEYS = "*";
+
+    private final long nodeId = new SecureRandom().nextLong();
+    private final InvalidationTransport transport;
+    private final InvalidationHandler handler;
+    private final int maxBatchSize;
+    private final long heartbeatIntervalNanos;
+    private final Map<String, Invalidation> pending = new LinkedHashMap<>();
+    private final Map<Long, Long> lastSequenceByNode = new ConcurrentHashMap<>();
+    private long sequence;
+    private long lastSentNanos;
+    private final Counter sentBatches;
+    private final Counter sentInvalidations;
+    private final Counter receivedInvalidations;
+    private final Counter fullFlushes;
+    private final Timer lag;
+
+    public CacheCoherenceService(InvalidationTransport transport, InvalidationHandler handler, int maxBatchSize,
+                                 Duration heartbeatInterval, MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.handler = handler;
+        this.maxBatchSize = maxBatchSize;
+        this.heartbeatIntervalNanos = heartbeatInterval.toNanos();
+        this.sentBatches = meterRegistry.counter("virtualpets.cache.coherence.batches", "direction", "sent");
+        this.sentInvalidations = meterRegistry.counter("virtualpets.cache.coherence.invalidations", "direction", "sent");
+        this.receivedInvalidations = meterRegistry.counter("virtualpets.cache.coherence.invalidations", "direction", "received");
+        this.fullFlushes = meterRegistry.counter("virtualpets.cache.coherence.full.flushes");
+        this.lag = meterRegistry.timer("virtualpets.cache.coherence.lag");
+    }
+
+    public void start() {
+        transport.start(this::receive);
+        log.info("Cache coherence started as node {}.", Long.toHexString(nodeId));
+    }
+
+    public long nodeId() {
+        return nodeId;
+    }
+
+    /**
+     * Queues an invalidation for the next batch. Call it only once the change is committed,
+     * otherwise another node may reload the old value before the commit.
+     */
+    public void invalidate(String cache, Object key) {
+        String keyText = String.valueOf(key);
+        Invalidation invalidation = new Invalidation(cache, keyText, System.currentTimeMillis());
+        synchronized (pending) {
+            pending.put(cache + '\u0000' + keyText, invalidation);
+        }
+    }
+
+    public void invalidateAll(String cache) {
+        invalidate(cache, ALL_KEYS);
+    }
+
+    @Scheduled(fixedDelayString = "${pets.cache.coherence.batch-interval-ms:50}")
+    public synchronized void publish() {
+        List<Invalidation> drained;
+        synchronized (pending) {
+            drained = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (int from = 0; from < drained.size(); from += maxBatchSize) {
+            send(drained.subList(from, Math.min(from + maxBatchSize, drained.size())));
+        }
+        if (drained.isEmpty() && System.nanoTime() - lastSentNanos >= heartbeatIntervalNanos) {
+            send(List.of());
+        }
+    }
+
+    private void send(List<Invalidation> invalidations) {
+        InvalidationBatch batch = new InvalidationBatch(nodeId, ++sequence, List.copyOf(invalidations));
+        transport.send(batch.encode());
+        lastSentNanos = System.nanoTime();
+        sentBatches.increment();
+        sentInvalidations.increment(invalidations.size());
+    }
+
+    void receive(byte[] payload) {
+        InvalidationBatch batch = InvalidationBatch.decode(payload);
+        if (batch.nodeId() == nodeId) {
+            return;
+        }
+        long[] previous = new long[1];
+        Long accepted = lastSequenceByNode.compute(batch.nodeId(), (node, last) -> {
+            previous[0] = last != null ? last : -1;
+            return last == null || batch.sequence() > last ? batch.sequence() : last;
+        });
+        if (previous[0] >= 0 && batch.sequence() <= previous[0]) {
+            log.debug("Cache coherence batch {} from node {} arrived late, ignored.", batch.sequence(), Long.toHexString(batch.nodeId()));
+            return;
+        }
+        if (previous[0] >= 0 && accepted > previous[0] + 1) {
+            log.warn("Cache coherence missed batches {} to {} from node {}, flushing local caches.",
+                    previous[0] + 1, accepted - 1, Long.toHexString(batch.nodeId()));
+            flushAll();
+            return;
+        }
+        apply(batch);
+    }
+
+    private void apply(InvalidationBatch batch) {
+        long now = System.currentTimeMillis();
+        for (Invalidation invalidation : batch.invalidations()) {
+            try {
+                handler.invalidate(invalidation.cache(), invalidation.key());
+            } catch (RuntimeException e) {
+                log.warn("Cache coherence could not apply {}, flushing local caches: {}", invalidation, e.getMessage());
+                flushAll();
+                return;
+            }
+            lag.record(Math.max(0, now - invalidation.version()), TimeUnit.MILLISECONDS);
+        }
+        receivedInvalidations.increment(batch.invalidations().size());
+    }
+
+    private void flushAll() {
+        handler.invalidateAll();
+        fullFlushes.increment();
+    }
+
+    @Override
+    public void close() {
+        publish();
+        transport.close();
+    }
+}
@@ -0,0 +1,94 @@
+package S502.virtualPets.persistence.coherence;
+
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+
+import java.util.List;
+
+/**
+ * Turns writes to cached entities and collections into invalidations for the other nodes.
+ * They are queued only after the transaction commits; a rolled back change sends nothing.
+ */
+public class CacheInvalidationEventListener implements PostInsertEventListener, PostUpdateEventListener,
+        PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+        PostCollectionRemoveEventListener {
+
+    private final CacheCoherenceService coherence;
+
+    public CacheInvalidationEventListener(CacheCoherenceService coherence) {
+        this.coherence = coherence;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        onEntityChange(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        onEntityChange(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        onEntityChange(event.getSession(), event.getPersister(), event.getId());
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        onCollectionChange(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        onCollectionChange(event);
+    }
+
+    private void onEntityChange(EventSource session, EntityPersister persister, Object id) {
+        if (persister.hasCache()) {
+            afterCommit(session, persister.getEntityName(), id, List.of(persister.getPropertySpaces()));
+        }
+    }
+
+    private void onCollectionChange(AbstractCollectionEvent event) {
+        CollectionPersister collection = event.getSession().getFactory().getMappingMetamodel()
+                .getCollectionDescriptor(event.getCollection().getRole());
+        if (collection.hasCache() && event.getAffectedOwnerIdOrNull() != null) {
+            afterCommit(event.getSession(), event.getAffectedOwnerEntityName(), event.getAffectedOwnerIdOrNull(),
+                    List.of(collection.getCollectionSpaces()));
+        }
+    }
+
+    private void afterCommit(EventSource session, String entityName, Object id, List<String> spaces) {
+        session.getActionQueue().registerProcess((success, completedSession) -> {
+            if (success) {
+                coherence.invalidate(entityName, id);
+                spaces.forEach(space -> coherence.invalidate(CacheCoherenceService.QUERY_SPACES, space));
+            }
+        });
+    }
+}
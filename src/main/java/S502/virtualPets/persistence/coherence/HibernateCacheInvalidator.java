@@ -0,0 +1,82 @@
+package S502.virtualPets.persistence.coherence;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Applies remote invalidations to the Hibernate second-level cache. An entity invalidation
+ * evicts the entity and the collections it owns; a query space invalidation marks the table
+ * as changed now, so cached query results that read it are recomputed, exactly as after a
+ * local write. Role and permission changes also reload the role snapshot.
+ */
+@Slf4j
+public class HibernateCacheInvalidator implements InvalidationHandler {
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final Runnable roleSnapshotReload;
+
+    public HibernateCacheInvalidator(SessionFactoryImplementor sessionFactory, Runnable roleSnapshotReload) {
+        this.sessionFactory = sessionFactory;
+        this.roleSnapshotReload = roleSnapshotReload;
+    }
+
+    @Override
+    public void invalidate(String cache, String key) {
+        if (CacheCoherenceService.ROLE_SNAPSHOT.equals(cache)) {
+            roleSnapshotReload.run();
+        } else if (CacheCoherenceService.QUERY_SPACES.equals(cache)) {
+            try (SessionImplementor session = sessionFactory.openTemporarySession()) {
+                sessionFactory.getCache().getTimestampsCache().invalidate(new String[]{key}, session);
+            }
+        } else {
+            evictEntity(cache, key);
+        }
+    }
+
+    private void evictEntity(String entityName, String key) {
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(entityName);
+        evictEntity(persister, key);
+        Class<?> type = persister.getMappedClass();
+        if (type == RoleEntity.class || type == PermissionEntity.class) {
+            roleSnapshotReload.run();
+        }
+    }
+
+    private void evictEntity(EntityPersister persister, String key) {
+        CacheImplementor cache = sessionFactory.getCache();
+        String entityName = persister.getEntityName();
+        if (CacheCoherenceService.ALL_KEYS.equals(key)) {
+            cache.evictEntityData(entityName);
+            sessionFactory.getMappingMetamodel().forEachCollectionDescriptor(collection -> {
+                if (collection.hasCache() && collection.getOwnerEntityPersister() == persister) {
+                    cache.evictCollectionData(collection.getRole());
+                }
+            });
+            return;
+        }
+        Object id = persister.getIdentifierMapping().getJavaType().fromString(key);
+        cache.evictEntityData(entityName, id);
+        sessionFactory.getMappingMetamodel().forEachCollectionDescriptor(collection -> {
+            if (collection.hasCache() && collection.getOwnerEntityPersister() == persister) {
+                cache.evictCollectionData(collection.getRole(), id);
+            }
+        });
+    }
+
+    @Override
+    public void invalidateAll() {
+        CacheImplementor cache = sessionFactory.getCache();
+        cache.evictEntityData();
+        cache.evictCollectionData();
+        cache.evictNaturalIdData();
+        // query results go, table timestamps stay: without them cached queries would look fresh
+        cache.evictQueryRegions();
+        roleSnapshotReload.run();
+        log.info("Second-level cache entities, collections and query results flushed and role snapshot reloaded.");
+    }
+}
@@ -0,0 +1,128 @@
+package S502.virtualPets.persistence.coherence;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One message on the coherence channel: the invalidations a node collected since its previous
+ * batch. Batches of a node are numbered without gaps, so a receiver that sees a jump knows it
+ * missed something. An empty batch is a heartbeat.
+ * <p>
+ * Cache names are written once per batch and referenced by index, and numeric keys are
+ * varints, so invalidating a pet costs about 4 bytes.
+ */
+public record InvalidationBatch(long nodeId, long sequence, List<Invalidation> invalidations) {
+
+    private static final int FORMAT = 1;
+    private static final int NUMERIC_KEY = 0;
+    private static final int TEXT_KEY = 1;
+
+    /**
+     * @param cache   entity name, or one of the special names of {@link CacheCoherenceService}
+     * @param key     entity id, table name, or {@link CacheCoherenceService#ALL_KEYS}
+     * @param version time of the change on the sending node, in milliseconds
+     */
+    public record Invalidation(String cache, String key, long version) {
+    }
+
+    public boolean isHeartbeat() {
+        return invalidations.isEmpty();
+    }
+
+    public byte[] encode() {
+        Map<String, Integer> names = new LinkedHashMap<>();
+        for (Invalidation invalidation : invalidations) {
+            names.putIfAbsent(invalidation.cache(), names.size());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + invalidations.size() * 8);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(FORMAT);
+            out.writeLong(nodeId);
+            writeVarLong(out, sequence);
+            writeVarLong(out, names.size());
+            for (String name : names.keySet()) {
+                out.writeUTF(name);
+            }
+            writeVarLong(out, invalidations.size());
+            for (Invalidation invalidation : invalidations) {
+                writeVarLong(out, names.get(invalidation.cache()));
+                if (isNumeric(invalidation.key())) {
+                    out.writeByte(NUMERIC_KEY);
+                    writeVarLong(out, Long.parseLong(invalidation.key()));
+                } else {
+                    out.writeByte(TEXT_KEY);
+                    out.writeUTF(invalidation.key());
+                }
+                writeVarLong(out, invalidation.version());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static InvalidationBatch decode(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            int format = in.readUnsignedByte();
+            if (format != FORMAT) {
+                throw new IllegalArgumentException("Unknown invalidation batch format " + format + ".");
+            }
+            long nodeId = in.readLong();
+            long sequence = readVarLong(in);
+            String[] names = new String[(int) readVarLong(in)];
+            for (int i = 0; i < names.length; i++) {
+                names[i] = in.readUTF();
+            }
+            int count = (int) readVarLong(in);
+            List<Invalidation> invalidations = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String cache = names[(int) readVarLong(in)];
+                String key = in.readUnsignedByte() == NUMERIC_KEY ? Long.toString(readVarLong(in)) : in.readUTF();
+                invalidations.add(new Invalidation(cache, key, readVarLong(in)));
+            }
+            return new InvalidationBatch(nodeId, sequence, invalidations);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Truncated invalidation batch.", e);
+        }
+    }
+
+    private static boolean isNumeric(String key) {
+        if (key.isEmpty() || key.length() > 18 || (key.length() > 1 && key.charAt(0) == '0')) {
+            return false;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) < '0' || key.charAt(i) > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint.");
+    }
+}
@@ -0,0 +1,34 @@
+package S502.virtualPets.persistence.coherence;
+
+/**
+ * Applies invalidations received from other nodes to the local caches.
+ */
+public interface InvalidationHandler {
+
+    void invalidate(String cache, String key);
+
+    /**
+     * Drops every local cache entry. Used when this node may have missed invalidations.
+     */
+    void invalidateAll();
+
+    /**
+     * Applies every invalidation to this handler first, then to {@code next}.
+     */
+    default InvalidationHandler andThen(InvalidationHandler next) {
+        InvalidationHandler first = this;
+        return new InvalidationHandler() {
+            @Override
+            public void invalidate(String cache, String key) {
+                first.invalidate(cache, key);
+                next.invalidate(cache, key);
+            }
+
+            @Override
+            public void invalidateAll() {
+                first.invalidateAll();
+                next.invalidateAll();
+            }
+        };
+    }
+}
@@ -0,0 +1,21 @@
+package S502.virtualPets.persistence.coherence;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries encoded {@link InvalidationBatch}es between nodes. Delivery is best effort:
+ * a transport may drop, duplicate or reorder batches, {@link CacheCoherenceService}
+ * notices the gaps and flushes.
+ */
+public interface InvalidationTransport extends AutoCloseable {
+
+    /**
+     * Starts listening. {@code receiver} may be called from any thread.
+     */
+    void start(Consumer<byte[]> receiver);
+
+    void send(byte[] payload);
+
+    @Override
+    void close();
+}
@@ -0,0 +1,55 @@
+package S502.virtualPets.persistence.coherence;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-memory transport: every transport opened on the same channel name in this JVM receives
+ * what the others send, synchronously. Used for single-instance runs and tests; a
+ * disconnected transport neither sends nor receives, which simulates a partition.
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+    private static final Map<String, List<LoopbackTransport>> CHANNELS = new ConcurrentHashMap<>();
+
+    private final String channel;
+    private volatile Consumer<byte[]> receiver;
+    private volatile boolean connected = true;
+
+    public LoopbackTransport(String channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        this.receiver = receiver;
+        CHANNELS.computeIfAbsent(channel, name -> new CopyOnWriteArrayList<>()).add(this);
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        if (!connected) {
+            return;
+        }
+        for (LoopbackTransport member : CHANNELS.getOrDefault(channel, List.of())) {
+            if (member != this && member.connected) {
+                member.receiver.accept(payload.clone());
+            }
+        }
+    }
+
+    public void setConnected(boolean connected) {
+        this.connected = connected;
+    }
+
+    @Override
+    public void close() {
+        List<LoopbackTransport> members = CHANNELS.get(channel);
+        if (members != null) {
+            members.remove(this);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package S502.virtualPets.persistence.coherence;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Appends an HMAC-SHA256 of every batch, keyed with the secret the nodes share, and drops
+ * received batches whose tag does not match. Anyone who can reach the port could otherwise
+ * evict cache entries at will.
+ */
+public class SignedTransport implements InvalidationTransport {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int TAG_LENGTH = 32;
+
+    private final InvalidationTransport delegate;
+    private final SecretKeySpec key;
+
+    public SignedTransport(InvalidationTransport delegate, byte[] secret) {
+        if (secret.length < 16) {
+            throw new IllegalArgumentException("The cache coherence secret must be at least 16 bytes long.");
+        }
+        this.delegate = delegate;
+        this.key = new SecretKeySpec(secret, ALGORITHM);
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        delegate.start(signed -> {
+            if (signed.length < TAG_LENGTH) {
+                throw new IllegalArgumentException("Unsigned invalidation batch.");
+            }
+            byte[] payload = Arrays.copyOf(signed, signed.length - TAG_LENGTH);
+            byte[] tag = Arrays.copyOfRange(signed, payload.length, signed.length);
+            if (!MessageDigest.isEqual(tag, tag(payload))) {
+                throw new IllegalArgumentException("Invalidation batch with a wrong signature.");
+            }
+            receiver.accept(payload);
+        });
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        byte[] signed = Arrays.copyOf(payload, payload.length + TAG_LENGTH);
+        System.arraycopy(tag(payload), 0, signed, payload.length, TAG_LENGTH);
+        delegate.send(signed);
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private byte[] tag(byte[] payload) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available.", e);
+        }
+    }
+}
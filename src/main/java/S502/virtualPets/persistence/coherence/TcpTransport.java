@@ -0,0 +1,153 @@
+package S502.virtualPets.persistence.coherence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Length-prefixed batches over one outgoing connection per peer. A broken connection drops
+ * the batch being sent and is opened again on the next one; the peer sees the sequence gap
+ * and flushes. Listens on {@code bindAddress} only.
+ */
+@Slf4j
+public class TcpTransport implements InvalidationTransport {
+
+    private static final int CONNECT_TIMEOUT_MS = 1000;
+    private static final int MAX_FRAME = 1 << 20;
+
+    private final InetAddress bindAddress;
+    private final int port;
+    private final List<InetSocketAddress> peers;
+    private final Map<InetSocketAddress, DataOutputStream> connections = new ConcurrentHashMap<>();
+    private final Map<Socket, Boolean> inbound = new ConcurrentHashMap<>();
+    private ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    public TcpTransport(InetAddress bindAddress, int port, List<InetSocketAddress> peers) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.peers = List.copyOf(peers);
+    }
+
+    public int localPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        try {
+            serverSocket = new ServerSocket(port, 0, bindAddress);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open the cache coherence TCP port " + bindAddress.getHostAddress() + ":" + port + ".", e);
+        }
+        Thread.ofPlatform().daemon().name("cache-coherence-tcp").start(() -> {
+            while (!closed) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    inbound.put(socket, Boolean.TRUE);
+                    Thread.ofPlatform().daemon().name("cache-coherence-tcp-" + socket.getRemoteSocketAddress())
+                            .start(() -> read(socket, receiver));
+                } catch (IOException e) {
+                    if (!closed) {
+                        log.warn("Cache coherence TCP accept failed: {}", e.getMessage());
+                    }
+                }
+            }
+        });
+        log.info("Cache coherence listening on TCP {} with peers {}.", serverSocket.getLocalSocketAddress(), peers);
+    }
+
+    private void read(Socket socket, Consumer<byte[]> receiver) {
+        try (socket; DataInputStream in = new DataInputStream(socket.getInputStream())) {
+            while (!closed) {
+                int length = in.readInt();
+                if (length < 0 || length > MAX_FRAME) {
+                    log.warn("Cache coherence frame of {} bytes from {} rejected, closing.", length, socket.getRemoteSocketAddress());
+                    return;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                try {
+                    receiver.accept(payload);
+                } catch (RuntimeException e) {
+                    log.warn("Cache coherence batch from {} rejected: {}", socket.getRemoteSocketAddress(), e.getMessage());
+                }
+            }
+        } catch (EOFException e) {
+            log.debug("Cache coherence peer {} disconnected.", socket.getRemoteSocketAddress());
+        } catch (IOException e) {
+            if (!closed) {
+                log.debug("Cache coherence connection from {} failed: {}", socket.getRemoteSocketAddress(), e.getMessage());
+            }
+        } finally {
+            inbound.remove(socket);
+        }
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        for (InetSocketAddress peer : peers) {
+            try {
+                DataOutputStream out = connections.computeIfAbsent(peer, this::connect);
+                synchronized (out) {
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                    out.flush();
+                }
+            } catch (IOException | UncheckedConnectException e) {
+                DataOutputStream broken = connections.remove(peer);
+                closeQuietly(broken);
+                log.debug("Cache coherence batch to {} not sent: {}", peer, e.getMessage());
+            }
+        }
+    }
+
+    private DataOutputStream connect(InetSocketAddress peer) {
+        Socket socket = new Socket();
+        try {
+            socket.connect(peer, CONNECT_TIMEOUT_MS);
+            socket.setTcpNoDelay(true);
+            return new DataOutputStream(socket.getOutputStream());
+        } catch (IOException e) {
+            closeQuietly(socket);
+            throw new UncheckedConnectException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        closeQuietly(serverSocket);
+        connections.values().forEach(TcpTransport::closeQuietly);
+        connections.clear();
+        inbound.keySet().forEach(TcpTransport::closeQuietly);
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+            // already broken
+        }
+    }
+
+    private static final class UncheckedConnectException extends RuntimeException {
+        private UncheckedConnectException(IOException cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package S502.virtualPets.persistence.coherence;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sends every batch as one datagram to each peer. Cheap and connectionless; lost or
+ * reordered datagrams show up as sequence gaps on the receiving side. Listens on
+ * {@code bindAddress} only.
+ */
+@Slf4j
+public class UdpTransport implements InvalidationTransport {
+
+    private static final int MAX_DATAGRAM = 65_507;
+
+    private final InetAddress bindAddress;
+    private final int port;
+    private final List<InetSocketAddress> peers;
+    private DatagramSocket socket;
+    private Thread listener;
+
+    public UdpTransport(InetAddress bindAddress, int port, List<InetSocketAddress> peers) {
+        this.bindAddress = bindAddress;
+        this.port = port;
+        this.peers = List.copyOf(peers);
+    }
+
+    public int localPort() {
+        return socket.getLocalPort();
+    }
+
+    @Override
+    public void start(Consumer<byte[]> receiver) {
+        try {
+            socket = new DatagramSocket(new InetSocketAddress(bindAddress, port));
+        } catch (SocketException e) {
+            throw new IllegalStateException("Cannot open the cache coherence UDP port " + bindAddress.getHostAddress() + ":" + port + ".", e);
+        }
+        listener = Thread.ofPlatform().daemon().name("cache-coherence-udp").start(() -> {
+            byte[] buffer = new byte[MAX_DATAGRAM];
+            while (!socket.isClosed()) {
+                DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                try {
+                    socket.receive(packet);
+                    byte[] payload = new byte[packet.getLength()];
+                    System.arraycopy(packet.getData(), packet.getOffset(), payload, 0, payload.length);
+                    receiver.accept(payload);
+                } catch (IOException e) {
+                    if (!socket.isClosed()) {
+                        log.warn("Cache coherence UDP receive failed: {}", e.getMessage());
+                    }
+                } catch (RuntimeException e) {
+                    log.warn("Cache coherence batch from {} rejected: {}", packet.getSocketAddress(), e.getMessage());
+                }
+            }
+        });
+        log.info("Cache coherence listening on UDP {} with peers {}.", socket.getLocalSocketAddress(), peers);
+    }
+
+    @Override
+    public void send(byte[] payload) {
+        if (payload.length > MAX_DATAGRAM) {
+            log.warn("Cache coherence batch of {} bytes does not fit in a datagram, dropped.", payload.length);
+            return;
+        }
+        for (InetSocketAddress peer : peers) {
+            try {
+                socket.send(new DatagramPacket(payload, payload.length, peer));
+            } catch (IOException e) {
+                log.debug("Cache coherence batch to {} not sent: {}", peer, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        if (socket != null) {
+            socket.close();
+        }
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+}
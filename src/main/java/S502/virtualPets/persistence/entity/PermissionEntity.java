@@ -2,6 +2,8 @@ package S502.virtualPets.persistence.entity;
 
 import S502.virtualPets.persistence.enums.PermissionsEnum;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.*;
 
 @Data
@@ -9,6 +11,8 @@ import lombok.*;
 @NoArgsConstructor
 @Builder
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "permissions")
 @Table(name = "permissions")
 public class PermissionEntity {
 
@@ -8,8 +8,9 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.SQLRestriction;
 
 import java.time.LocalDateTime;
 
@@ -18,7 +19,21 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Builder
 @Entity
-@Table(name = "pets")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pets")
+// deleted pets stay in the table until the purge job removes them; nothing else sees them
+@SQLRestriction("deleted_at is null")
+@Table(name = "pets", indexes = {
+        @Index(name = "idx_pets_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_pets_name", columnList = "name, id"),
+        @Index(name = "idx_pets_type", columnList = "pet_type, id"),
+        @Index(name = "idx_pets_mood", columnList = "mood, id"),
+        @Index(name = "idx_pets_energy", columnList = "energy_level, id"),
+        @Index(name = "idx_pets_hunger", columnList = "hunger_level, id"),
+        @Index(name = "idx_pets_created_at", columnList = "created_at, id"),
+        @Index(name = "idx_pets_updated_at", columnList = "updated_at, id"),
+        @Index(name = "idx_pets_deleted_at", columnList = "deleted_at")
+})
 public class PetEntity {
 
     @Id
@@ -61,11 +76,28 @@ public class PetEntity {
     @JoinColumn(name = "user_id", nullable = false)
     private UserEntity user;
 
-    @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
-    @UpdateTimestamp
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
+
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+
+    // set only when missing, so imported pets keep the timestamps of their export
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
+    }
+
+    @PreUpdate
+    void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
 }
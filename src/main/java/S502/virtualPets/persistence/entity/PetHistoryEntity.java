@@ -0,0 +1,44 @@
+package S502.virtualPets.persistence.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One block of a pet's state history. The samples are packed in {@code payload} by
+ * {@link S502.virtualPets.utils.PetHistoryCodec}; the row only keeps what is needed to find
+ * the blocks of a time range. Rows are append-only: compaction replaces them, never updates them.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "pet_history", indexes = {
+        @Index(name = "idx_pet_history_pet_first_at", columnList = "pet_id, first_at"),
+        @Index(name = "idx_pet_history_last_at", columnList = "last_at")
+})
+public class PetHistoryEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "pet_id", nullable = false)
+    private Long petId;
+
+    @Column(name = "first_at", nullable = false)
+    private LocalDateTime firstAt;
+
+    @Column(name = "last_at", nullable = false)
+    private LocalDateTime lastAt;
+
+    @Column(name = "sample_count", nullable = false)
+    private int sampleCount;
+
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    @Column(nullable = false, length = 8192)
+    private byte[] payload;
+}
@@ -0,0 +1,56 @@
+package S502.virtualPets.persistence.entity;
+
+import S502.virtualPets.persistence.enums.PetRuleEnum;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An achievement earned or an alert raised or cleared, written in batches by
+ * {@link S502.virtualPets.service.PetRuleService}. {@code petId} is null for rules about the
+ * user as a whole. Rows are append-only. Achievements also carry {@code achievementKey}, unique
+ * per user, so an achievement earned on two instances is stored once; alerts leave it null.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity
+@Table(name = "pet_rule_events", indexes = {
+        @Index(name = "idx_pet_rule_events_user", columnList = "user_id, rule")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_pet_rule_events_achievement", columnNames = {"user_id", "achievement_key"})
+})
+public class PetRuleEventEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "pet_id")
+    private Long petId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private PetRuleEnum rule;
+
+    @Column(nullable = false)
+    private boolean raised;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+
+    @Column(name = "achievement_key", length = 50)
+    private String achievementKey;
+
+    /**
+     * The rule and the pet it was earned for, or the rule alone for rules about the user.
+     */
+    public static String achievementKey(PetRuleEnum rule, Long petId) {
+        return petId != null ? rule.name() + ":" + petId : rule.name();
+    }
+}
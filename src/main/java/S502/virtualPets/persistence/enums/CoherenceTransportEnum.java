@@ -0,0 +1,7 @@
+package S502.virtualPets.persistence.enums;
+
+public enum CoherenceTransportEnum {
+    LOOPBACK,
+    UDP,
+    TCP
+}
@@ -0,0 +1,56 @@
+package S502.virtualPets.persistence.enums;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+public enum PetFieldEnum {
+
+    ID("id"),
+    NAME("name"),
+    TYPE("type"),
+    MOOD("mood"),
+    ENERGY_LEVEL("energyLevel"),
+    HUNGER_LEVEL("hungerLevel"),
+    USER_ID("userId"),
+    USERNAME("username"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt");
+
+    private final String jsonName;
+
+    PetFieldEnum(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * Parses a comma separated {@code fields=} parameter, keeping the requested order.
+     * The id is always included so clients can correlate rows.
+     */
+    public static Set<PetFieldEnum> parse(String fields) {
+        Set<PetFieldEnum> result = new LinkedHashSet<>();
+        result.add(ID);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            PetFieldEnum field = Arrays.stream(values())
+                    .filter(f -> f.jsonName.equalsIgnoreCase(trimmed))
+                    .findFirst()
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "Unknown pet field '" + trimmed + "'. Valid fields: " + EnumSet.allOf(PetFieldEnum.class)
+                                    .stream().map(PetFieldEnum::getJsonName).toList()));
+            result.add(field);
+        }
+        return result;
+    }
+}
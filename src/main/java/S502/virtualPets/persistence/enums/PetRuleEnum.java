@@ -0,0 +1,7 @@
+package S502.virtualPets.persistence.enums;
+
+public enum PetRuleEnum {
+    PET_STARVING,
+    ENERGY_MAXED,
+    ALL_PET_TYPES
+}
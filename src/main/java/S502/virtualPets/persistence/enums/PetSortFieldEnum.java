@@ -0,0 +1,21 @@
+package S502.virtualPets.persistence.enums;
+
+public enum PetSortFieldEnum {
+
+    ID("id"),
+    NAME("name"),
+    ENERGY_LEVEL("energyLevel"),
+    HUNGER_LEVEL("hungerLevel"),
+    CREATED_AT("createdAt"),
+    UPDATED_AT("updatedAt");
+
+    private final String property;
+
+    PetSortFieldEnum(String property) {
+        this.property = property;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+}
@@ -0,0 +1,6 @@
+package S502.virtualPets.persistence.enums;
+
+public enum TransferFormatEnum {
+    CSV,
+    NDJSON
+}
@@ -0,0 +1,8 @@
+package S502.virtualPets.persistence.enums;
+
+public enum TransferStatusEnum {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
@@ -0,0 +1,6 @@
+package S502.virtualPets.persistence.enums;
+
+public enum WorkloadEnum {
+    INTERACTIVE,
+    BULK
+}
@@ -0,0 +1,36 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.persistence.entity.PetHistoryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PetHistoryRepository extends JpaRepository<PetHistoryEntity, Long> {
+
+    @Query("select b from PetHistoryEntity b where b.petId = :petId and b.firstAt <= :to and b.lastAt >= :from order by b.firstAt")
+    List<PetHistoryEntity> findOverlapping(@Param("petId") Long petId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query("select b from PetHistoryEntity b where b.petId = :petId and b.lastAt < :before order by b.firstAt")
+    List<PetHistoryEntity> findOlderThan(@Param("petId") Long petId, @Param("before") LocalDateTime before);
+
+    @Query("select b.petId from PetHistoryEntity b where b.lastAt < :before and b.sampleCount < :maxSamples "
+            + "group by b.petId having count(b) > 1")
+    List<Long> findPetsWithSmallBlocksBefore(@Param("before") LocalDateTime before, @Param("maxSamples") int maxSamples);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PetHistoryEntity b where b.lastAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+
+    @Transactional
+    @Modifying
+    @Query("delete from PetHistoryEntity b where b.petId in :petIds")
+    int deleteByPetIds(@Param("petIds") List<Long> petIds);
+}
@@ -0,0 +1,15 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface PetProjectionRepository {
+
+    /**
+     * Selects only the requested columns, ordered by id. A {@code null} user id returns every pet.
+     */
+    List<Map<String, Object>> findFieldsByUserId(Set<PetFieldEnum> fields, Long userId);
+}
@@ -0,0 +1,65 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class PetProjectionRepositoryImpl implements PetProjectionRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Map<String, Object>> findFieldsByUserId(Set<PetFieldEnum> fields, Long userId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<PetEntity> root = query.from(PetEntity.class);
+
+        Join<PetEntity, ?> user = fields.contains(PetFieldEnum.USERNAME) ? root.join("user") : null;
+        List<Selection<?>> selections = new ArrayList<>(fields.size());
+        for (PetFieldEnum field : fields) {
+            Selection<?> selection = switch (field) {
+                case ID -> root.get("id");
+                case NAME -> root.get("name");
+                case TYPE -> root.get("petType");
+                case MOOD -> root.get("mood");
+                case ENERGY_LEVEL -> root.get("energyLevel");
+                case HUNGER_LEVEL -> root.get("hungerLevel");
+                case USER_ID -> root.get("user").get("id");
+                case USERNAME -> user.get("username");
+                case CREATED_AT -> root.get("createdAt");
+                case UPDATED_AT -> root.get("updatedAt");
+            };
+            selections.add(selection.alias(field.getJsonName()));
+        }
+
+        query.multiselect(selections).orderBy(cb.asc(root.get("id")));
+        if (userId != null) {
+            query.where(cb.equal(root.get("user").get("id"), userId));
+        }
+
+        List<Tuple> rows = entityManager.createQuery(query).getResultList();
+        List<Map<String, Object>> result = new ArrayList<>(rows.size());
+        for (Tuple row : rows) {
+            Map<String, Object> pet = new LinkedHashMap<>();
+            for (PetFieldEnum field : fields) {
+                pet.put(field.getJsonName(), row.get(field.getJsonName()));
+            }
+            result.add(pet);
+        }
+        return result;
+    }
+}
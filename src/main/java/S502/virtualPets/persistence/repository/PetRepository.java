@@ -1,15 +1,67 @@
 package S502.virtualPets.persistence.repository;
 
 import S502.virtualPets.persistence.entity.PetEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.NativeQuery;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-public interface PetRepository extends JpaRepository<PetEntity, Long> {
+public interface PetRepository extends JpaRepository<PetEntity, Long>, JpaSpecificationExecutor<PetEntity>, PetProjectionRepository {
 
-    List<PetEntity> findByUserId(Long userId);
+    // explicit queries: the derived ones join users, which only exists on the home shard
+    @Query("select p from PetEntity p where p.user.id = :userId")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "pets-by-user")
+    })
+    List<PetEntity> findByUserId(@Param("userId") Long userId);
 
-    Optional<PetEntity> findByIdAndUserId(Long petId, Long userId);
+    @Query("select p from PetEntity p where p.id = :petId and p.user.id = :userId")
+    Optional<PetEntity> findByIdAndUserId(@Param("petId") Long petId, @Param("userId") Long userId);
+
+    // routed by owner like findByIdAndUserId, so both locks of a battle land on the same shard
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from PetEntity p where p.id = :petId and p.user.id = :userId")
+    Optional<PetEntity> lockByIdAndUserId(@Param("petId") Long petId, @Param("userId") Long userId);
+
+    @Query("select p from PetEntity p where p.id > :afterId order by p.id")
+    List<PetEntity> findChunkAfter(@Param("afterId") Long afterId, Limit limit);
+
+    // the natural key of an imported pet, used when an import resumes
+    @Query("select count(p) > 0 from PetEntity p where p.user.id = :userId and p.name = :name and p.createdAt = :createdAt")
+    boolean existsImported(@Param("userId") Long userId, @Param("name") String name, @Param("createdAt") LocalDateTime createdAt);
+
+    @Transactional
+    @Modifying
+    @Query("update PetEntity p set p.deletedAt = :deletedAt where p.id = :petId and p.user.id = :userId")
+    int softDeleteByIdAndUserId(@Param("petId") Long petId, @Param("userId") Long userId, @Param("deletedAt") LocalDateTime deletedAt);
+
+    @Transactional
+    @Modifying
+    @Query("update PetEntity p set p.deletedAt = :deletedAt where p.id = :petId")
+    int softDeleteById(@Param("petId") Long petId, @Param("deletedAt") LocalDateTime deletedAt);
+
+    // native: the entity restriction hides exactly the rows these have to find
+    @NativeQuery("select id from pets where deleted_at < :before order by id limit :batchSize")
+    List<Long> findPurgeableIds(@Param("before") LocalDateTime before, @Param("batchSize") int batchSize);
+
+    @Transactional
+    @Modifying
+    @NativeQuery("delete from pets where id in :ids and deleted_at is not null")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "pets"))
+    int purgeByIds(@Param("ids") List<Long> ids);
 
 }
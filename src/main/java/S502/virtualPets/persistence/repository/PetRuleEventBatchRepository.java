@@ -0,0 +1,14 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.persistence.entity.PetRuleEventEntity;
+
+import java.util.Collection;
+
+public interface PetRuleEventBatchRepository {
+
+    /**
+     * Inserts the achievements in one JDBC batch. An achievement another instance already
+     * stored hits the unique key and is skipped.
+     */
+    void insertAchievements(Collection<PetRuleEventEntity> achievements);
+}
@@ -0,0 +1,36 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.persistence.entity.PetRuleEventEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Collection;
+
+public class PetRuleEventBatchRepositoryImpl implements PetRuleEventBatchRepository {
+
+    private static final String INSERT_ACHIEVEMENT = "insert ignore into pet_rule_events "
+            + "(user_id, pet_id, rule, raised, occurred_at, achievement_key) values (?, ?, ?, true, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PetRuleEventBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    @Transactional
+    public void insertAchievements(Collection<PetRuleEventEntity> achievements) {
+        if (achievements.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ACHIEVEMENT, achievements, achievements.size(), (ps, event) -> {
+            ps.setLong(1, event.getUserId());
+            ps.setObject(2, event.getPetId(), Types.BIGINT);
+            ps.setString(3, event.getRule().name());
+            ps.setTimestamp(4, Timestamp.valueOf(event.getOccurredAt()));
+            ps.setString(5, event.getAchievementKey());
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.persistence.entity.PetRuleEventEntity;
+import S502.virtualPets.persistence.enums.PetRuleEnum;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PetRuleEventRepository extends JpaRepository<PetRuleEventEntity, Long>, PetRuleEventBatchRepository {
+
+    @Query("select e from PetRuleEventEntity e where e.userId = :userId and e.raised = true and e.rule in :rules")
+    List<PetRuleEventEntity> findRaised(@Param("userId") Long userId, @Param("rules") Collection<PetRuleEnum> rules);
+}
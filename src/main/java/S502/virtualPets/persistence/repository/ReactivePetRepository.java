@@ -0,0 +1,67 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import io.r2dbc.spi.Readable;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * Non-blocking reads of the {@code pets} table for the reactive stack. Rows are mapped
+ * straight to {@link PetResponseDTO} and streamed as they arrive from the driver.
+ */
+@Repository
+@Profile("reactive")
+public class ReactivePetRepository {
+
+    private static final String COLUMNS = "p.id, p.name, p.pet_type, p.mood, p.energy_level, p.hunger_level, p.user_id, p.created_at, p.updated_at";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactivePetRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Flux<PetResponseDTO> findByUserId(Long userId, String username) {
+        return databaseClient.sql("select " + COLUMNS + " from pets p where p.user_id = :userId and p.deleted_at is null order by p.id")
+                .bind("userId", userId)
+                .map(row -> toDto(row, username))
+                .all();
+    }
+
+    public Mono<PetResponseDTO> findById(Long petId) {
+        return databaseClient.sql("select " + COLUMNS + ", u.username from pets p join users u on u.id = p.user_id where p.id = :petId and p.deleted_at is null")
+                .bind("petId", petId)
+                .map(row -> toDto(row, row.get("username", String.class)))
+                .one();
+    }
+
+    public Mono<PetResponseDTO> findByIdAndUserId(Long petId, Long userId, String username) {
+        return databaseClient.sql("select " + COLUMNS + " from pets p where p.id = :petId and p.user_id = :userId and p.deleted_at is null")
+                .bind("petId", petId)
+                .bind("userId", userId)
+                .map(row -> toDto(row, username))
+                .one();
+    }
+
+    private static PetResponseDTO toDto(Readable row, String username) {
+        return new PetResponseDTO(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                PetTypeEnum.valueOf(row.get("pet_type", String.class)),
+                MoodEnum.valueOf(row.get("mood", String.class)),
+                row.get("energy_level", Integer.class),
+                row.get("hunger_level", Integer.class),
+                row.get("user_id", Long.class),
+                username,
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class)
+        );
+    }
+}
@@ -1,6 +1,7 @@
 package S502.virtualPets.persistence.repository;
 
 import S502.virtualPets.persistence.entity.RoleEntity;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +11,7 @@ import java.util.List;
 public interface RoleRepository extends CrudRepository<RoleEntity, Long> {
 
     List<RoleEntity> findRoleEntitiesByRoleEnumIn(List<String> roleNames);
+
+    @Query("select distinct r from RoleEntity r left join fetch r.permissionEntities")
+    List<RoleEntity> findAllWithPermissions();
 }
@@ -1,13 +1,29 @@
 package S502.virtualPets.persistence.repository;
 
 import S502.virtualPets.persistence.entity.UserEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<UserEntity, Long> {
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "user-by-username")
+    })
     Optional<UserEntity> findUserEntityByUsername(String username);
+
+    boolean existsByUsername(String username);
+
+    @Query("select u.username from UserEntity u where u.username > :after order by u.username")
+    List<String> findUsernamesAfter(@Param("after") String after, Limit limit);
 }
@@ -0,0 +1,58 @@
+package S502.virtualPets.persistence.resilience;
+
+import S502.virtualPets.persistence.enums.WorkloadEnum;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import S502.virtualPets.utils.CircuitBreaker;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+/**
+ * Sits in front of a repository and guards its calls with the database {@link CircuitBreaker}.
+ * Only failures that say something about the database itself count (lost or refused
+ * connections, pool timeouts, query timeouts); constraint violations, lock conflicts and
+ * empty results are answers, not outages. Bulk work runs on its own pool with long
+ * timeouts, so it neither trips the breaker nor is turned away by it.
+ */
+public class DatabaseCircuitBreakerInterceptor implements MethodInterceptor {
+
+    private final CircuitBreaker circuitBreaker;
+
+    public DatabaseCircuitBreakerInterceptor(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (invocation.getMethod().getDeclaringClass() == Object.class || WorkloadContext.current() == WorkloadEnum.BULK) {
+            return invocation.proceed();
+        }
+        if (!circuitBreaker.tryAcquire()) {
+            throw new DatabaseUnavailableException(circuitBreaker.retryAfter());
+        }
+        long start = System.nanoTime();
+        boolean failed = false;
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            failed = isDatabaseFailure(e);
+            throw e;
+        } finally {
+            circuitBreaker.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    public static boolean isDatabaseFailure(Throwable e) {
+        if (e instanceof ConcurrencyFailureException) {
+            return false;
+        }
+        return e instanceof DataAccessResourceFailureException
+                || e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof CannotCreateTransactionException;
+    }
+}
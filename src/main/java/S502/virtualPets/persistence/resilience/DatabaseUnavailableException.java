@@ -0,0 +1,22 @@
+package S502.virtualPets.persistence.resilience;
+
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.time.Duration;
+
+/**
+ * Thrown instead of calling the database while the circuit breaker is open.
+ */
+public class DatabaseUnavailableException extends TransientDataAccessResourceException {
+
+    private final Duration retryAfter;
+
+    public DatabaseUnavailableException(Duration retryAfter) {
+        super("Database calls are suspended for " + retryAfter.toMillis() + " ms after repeated failures or slow calls.");
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,32 @@
+package S502.virtualPets.persistence.sharding;
+
+/**
+ * Shard selected for the current thread. {@link ShardRoutingDataSource} reads it when a
+ * connection is acquired, so it has to be set before a transaction begins. No shard
+ * means the home shard.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer current() {
+        return CURRENT.get();
+    }
+
+    public static Integer enter(int shard) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        return previous;
+    }
+
+    public static void restore(Integer previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package S502.virtualPets.persistence.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Offline tool that moves every pet to the shard its owner hashes to with the current shard
+ * list. Meant to run after adding a shard, with the application stopped. Rows keep their ids
+ * and are copied before they are deleted from the source, so an interrupted run is simply
+ * started again. Shards can only be appended, so pets only move to a shard whose id range lies
+ * above theirs and the copied ids never push its id generator into another shard's range.
+ */
+@Slf4j
+public class ShardRebalancer {
+
+    private static final String COLUMNS = "id, name, pet_type, mood, energy_level, hunger_level, user_id, created_at, updated_at, deleted_at";
+
+    private final ShardRoutingDataSource shards;
+    private final int chunkSize;
+
+    public ShardRebalancer(ShardRoutingDataSource shards, int chunkSize) {
+        this.shards = shards;
+        this.chunkSize = chunkSize;
+    }
+
+    public long rebalance(boolean dryRun) {
+        long moved = 0;
+        for (int source = 0; source < shards.size(); source++) {
+            JdbcTemplate sourceJdbc = new JdbcTemplate(shards.shard(source));
+            long afterId = 0;
+            List<Map<String, Object>> rows;
+            do {
+                rows = sourceJdbc.queryForList("select " + COLUMNS + " from pets where id > ? order by id limit ?", afterId, chunkSize);
+                Map<Integer, List<Map<String, Object>>> misplaced = new LinkedHashMap<>();
+                for (Map<String, Object> row : rows) {
+                    int target = shards.shardForUser(((Number) row.get("user_id")).longValue());
+                    if (target != source) {
+                        misplaced.computeIfAbsent(target, shard -> new ArrayList<>()).add(row);
+                    }
+                }
+                for (Map.Entry<Integer, List<Map<String, Object>>> group : misplaced.entrySet()) {
+                    log.info("{} {} pets from shard {} to shard {}.", dryRun ? "Would move" : "Moving",
+                            group.getValue().size(), source, group.getKey());
+                    if (!dryRun) {
+                        move(source, group.getKey(), group.getValue());
+                    }
+                    moved += group.getValue().size();
+                }
+                if (!rows.isEmpty()) {
+                    afterId = ((Number) rows.get(rows.size() - 1).get("id")).longValue();
+                }
+            } while (rows.size() == chunkSize);
+        }
+        log.info("Shard rebalance finished. {} pets {}.", moved, dryRun ? "would be moved" : "moved");
+        return moved;
+    }
+
+    private void move(int source, int target, List<Map<String, Object>> rows) {
+        List<Long> ids = rows.stream().map(row -> ((Number) row.get("id")).longValue()).toList();
+        long rangeEnd = (target + 1) * ShardRoutingDataSource.SHARD_ID_RANGE;
+        if (ids.stream().anyMatch(id -> id >= rangeEnd)) {
+            throw new IllegalStateException("Pets of shard " + source + " cannot move to shard " + target
+                    + ": their ids lie above its range. Shards can only be appended to the list.");
+        }
+        NamedParameterJdbcTemplate targetJdbc = new NamedParameterJdbcTemplate(shards.shard(target));
+        Set<Long> alreadyCopied = new HashSet<>(targetJdbc.queryForList(
+                "select id from pets where id in (:ids)", new MapSqlParameterSource("ids", ids), Long.class));
+
+        List<Object[]> inserts = rows.stream()
+                .filter(row -> !alreadyCopied.contains(((Number) row.get("id")).longValue()))
+                .map(row -> new Object[]{row.get("id"), row.get("name"), row.get("pet_type"), row.get("mood"),
+                        row.get("energy_level"), row.get("hunger_level"), row.get("user_id"),
+                        row.get("created_at"), row.get("updated_at"), row.get("deleted_at")})
+                .toList();
+        if (!inserts.isEmpty()) {
+            targetJdbc.getJdbcTemplate().batchUpdate("insert into pets (" + COLUMNS + ") values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)", inserts);
+        }
+        new NamedParameterJdbcTemplate(shards.shard(source))
+                .update("delete from pets where id in (:ids)", new MapSqlParameterSource("ids", ids));
+    }
+}
@@ -0,0 +1,253 @@
+package S502.virtualPets.persistence.sharding;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.specification.PetSpecifications;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.Param;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Sits in front of {@code PetRepository} and sends each call to the right shard.
+ * <ul>
+ *     <li>Calls with a {@code userId} argument go to that user's shard.</li>
+ *     <li>{@code save}/{@code delete} of a pet go to the owner's shard; batches are split by shard.</li>
+ *     <li>Everything else runs on every shard and the results are merged: lists by their
+ *     {@link Sort} (or by id), pages by re-paginating the merged rows, counts summed.</li>
+ * </ul>
+ * A page at offset {@code n} reads the first {@code n + size} rows of every shard, so pages past
+ * {@code maxPageOffset} are refused; deep listings should follow the search cursor instead.
+ * Routing happens before the repository opens its transaction, so it cannot be used
+ * inside an outer transaction that already holds a connection to another shard.
+ */
+public class ShardRoutingRepositoryInterceptor implements MethodInterceptor {
+
+    private static final int NO_USER_ID = -1;
+
+    private final Supplier<ShardRoutingDataSource> dataSource;
+    private final long maxPageOffset;
+    private final Map<Method, Integer> userIdParameters = new ConcurrentHashMap<>();
+
+    public ShardRoutingRepositoryInterceptor(Supplier<ShardRoutingDataSource> dataSource, long maxPageOffset) {
+        this.dataSource = dataSource;
+        this.maxPageOffset = maxPageOffset;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        ShardRoutingDataSource shards = dataSource.get();
+        if (method.getDeclaringClass() == Object.class || shards.size() == 1) {
+            return invocation.proceed();
+        }
+        Object[] args = invocation.getArguments();
+
+        int userIdIndex = userIdParameters.computeIfAbsent(method, ShardRoutingRepositoryInterceptor::findUserIdParameter);
+        if (userIdIndex != NO_USER_ID && args[userIdIndex] != null) {
+            return proceedOn(shards.shardForUser((Long) args[userIdIndex]), invocation, args);
+        }
+
+        switch (method.getName()) {
+            case "save", "saveAndFlush", "delete" -> {
+                if (args.length == 1 && args[0] instanceof PetEntity pet) {
+                    return proceedOn(shardOf(shards, pet), invocation, args);
+                }
+            }
+            case "saveAll", "saveAllAndFlush", "deleteAll", "deleteAllInBatch" -> {
+                if (args.length == 1 && args[0] instanceof Iterable<?> pets) {
+                    return proceedByShard(shards, pets, invocation);
+                }
+            }
+            case "getReferenceById", "getById", "getOne" ->
+                    throw new UnsupportedOperationException("A pet reference cannot be resolved without knowing its shard. Use findById instead.");
+            default -> {
+            }
+        }
+        return scatter(shards, invocation, args);
+    }
+
+    private Object scatter(ShardRoutingDataSource shards, MethodInvocation invocation, Object[] args) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Cross-shard call " + invocation.getMethod().getName()
+                    + " cannot run inside a transaction bound to a single shard.");
+        }
+        int pageableIndex = indexOf(args, Pageable.class);
+        Pageable pageable = pageableIndex >= 0 ? (Pageable) args[pageableIndex] : Pageable.unpaged();
+        Object[] shardArgs = args;
+        if (pageable.isPaged()) {
+            if (pageable.getOffset() > maxPageOffset) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Pages past the first " + maxPageOffset
+                        + " rows cannot be read across shards. Use the search cursor to go further.");
+            }
+            // every shard has to return enough rows to fill the requested page after merging
+            shardArgs = args.clone();
+            shardArgs[pageableIndex] = PageRequest.of(0, Math.toIntExact(pageable.getOffset() + pageable.getPageSize()), pageable.getSort());
+        }
+
+        List<Object> results = new ArrayList<>(shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            results.add(proceedOn(shard, invocation, shardArgs));
+        }
+        return merge(results, args, pageable);
+    }
+
+    private Object proceedByShard(ShardRoutingDataSource shards, Iterable<?> pets, MethodInvocation invocation) throws Throwable {
+        Map<Integer, List<Object>> byShard = new LinkedHashMap<>();
+        for (Object pet : pets) {
+            byShard.computeIfAbsent(shardOf(shards, (PetEntity) pet), shard -> new ArrayList<>()).add(pet);
+        }
+        List<Object> saved = new ArrayList<>();
+        for (Map.Entry<Integer, List<Object>> group : byShard.entrySet()) {
+            Object result = proceedOn(group.getKey(), invocation, new Object[]{group.getValue()});
+            if (result instanceof Iterable<?> rows) {
+                rows.forEach(saved::add);
+            }
+        }
+        return invocation.getMethod().getReturnType() == void.class ? null : saved;
+    }
+
+    private Object proceedOn(int shard, MethodInvocation invocation, Object[] args) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            Integer current = ShardContext.current();
+            if ((current == null ? 0 : current) != shard) {
+                throw new IllegalStateException("Call " + invocation.getMethod().getName() + " targets shard " + shard
+                        + " but the surrounding transaction is bound to another shard.");
+            }
+        }
+        Integer previous = ShardContext.enter(shard);
+        try {
+            return ((ProxyMethodInvocation) invocation).invocableClone(args).proceed();
+        } finally {
+            ShardContext.restore(previous);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object merge(List<Object> results, Object[] args, Pageable pageable) {
+        Object first = results.get(0);
+        if (first == null) {
+            return null;
+        }
+        if (first instanceof Optional<?>) {
+            return results.stream().map(Optional.class::cast).filter(Optional::isPresent).findFirst().orElse(Optional.empty());
+        }
+        if (first instanceof Boolean) {
+            return results.stream().anyMatch(Boolean.TRUE::equals);
+        }
+        if (first instanceof Long) {
+            return results.stream().mapToLong(Long.class::cast).sum();
+        }
+        if (first instanceof Integer) {
+            return results.stream().mapToInt(Integer.class::cast).sum();
+        }
+
+        List<Object> rows = new ArrayList<>();
+        long total = 0;
+        for (Object result : results) {
+            if (result instanceof Page<?> page) {
+                rows.addAll(page.getContent());
+                total += page.getTotalElements();
+            } else if (result instanceof Iterable<?> iterable) {
+                iterable.forEach(rows::add);
+            } else {
+                throw new UnsupportedOperationException("Cannot merge results of type " + first.getClass().getName() + " across shards.");
+            }
+        }
+
+        Sort sort = pageable.getSort();
+        int sortIndex = indexOf(args, Sort.class);
+        if (sortIndex >= 0) {
+            sort = (Sort) args[sortIndex];
+        }
+        rows.sort(sort.isSorted() ? (Comparator) byProperties(sort) : Comparator.comparing(ShardRoutingRepositoryInterceptor::idOf));
+
+        if (first instanceof Page<?>) {
+            int from = (int) Math.min(pageable.isPaged() ? pageable.getOffset() : 0, rows.size());
+            int to = pageable.isPaged() ? Math.min(from + pageable.getPageSize(), rows.size()) : rows.size();
+            return new PageImpl<>(new ArrayList<>(rows.subList(from, to)), pageable, total);
+        }
+        int limitIndex = indexOf(args, Limit.class);
+        if (limitIndex >= 0 && ((Limit) args[limitIndex]).isLimited()) {
+            int max = ((Limit) args[limitIndex]).max();
+            return rows.size() > max ? new ArrayList<>(rows.subList(0, max)) : rows;
+        }
+        return rows;
+    }
+
+    private static Comparator<Object> byProperties(Sort sort) {
+        Comparator<Object> comparator = (a, b) -> 0;
+        for (Sort.Order order : sort) {
+            Comparator<Object> byProperty = Comparator.comparing(
+                    row -> PropertyAccessorFactory.forBeanPropertyAccess(row).getPropertyValue(order.getProperty()),
+                    Comparator.nullsFirst(PetSpecifications.COLUMN_ORDER));
+            comparator = comparator.thenComparing(order.isAscending() ? byProperty : byProperty.reversed());
+        }
+        return comparator;
+    }
+
+    private static Long idOf(Object row) {
+        if (row instanceof PetEntity pet) {
+            return pet.getId();
+        }
+        if (row instanceof PetResponseDTO pet) {
+            return pet.id();
+        }
+        if (row instanceof Long id) {
+            return id;
+        }
+        if (row instanceof Map<?, ?> fields && fields.get("id") instanceof Long id) {
+            return id;
+        }
+        throw new UnsupportedOperationException("Cannot order rows of type " + row.getClass().getName() + " across shards.");
+    }
+
+    private static int shardOf(ShardRoutingDataSource shards, PetEntity pet) {
+        if (pet.getUser() == null || pet.getUser().getId() == null) {
+            throw new IllegalArgumentException("A pet must have an owner before it can be routed to a shard.");
+        }
+        return shards.shardForUser(pet.getUser().getId());
+    }
+
+    private static int indexOf(Object[] args, Class<?> type) {
+        for (int i = 0; i < args.length; i++) {
+            if (type.isInstance(args[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int findUserIdParameter(Method method) {
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            Param param = parameters[i].getAnnotation(Param.class);
+            String name = param != null ? param.value() : parameters[i].getName();
+            if ("userId".equals(name) && parameters[i].getType() == Long.class) {
+                return i;
+            }
+        }
+        return NO_USER_ID;
+    }
+}
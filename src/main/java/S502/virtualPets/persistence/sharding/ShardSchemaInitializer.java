@@ -0,0 +1,71 @@
+package S502.virtualPets.persistence.sharding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Prepares the non-home shards at startup: creates the {@code pets} table when missing, adds
+ * columns introduced since it was created, and moves each shard's id generator into its own
+ * range, so a pet id never exists on two shards.
+ * The home shard keeps its schema from Hibernate and its ids from 1.
+ */
+@Slf4j
+public class ShardSchemaInitializer implements InitializingBean {
+
+    private final ShardRoutingDataSource shards;
+
+    public ShardSchemaInitializer(ShardRoutingDataSource shards) {
+        this.shards = shards;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws SQLException {
+        for (int shard = 1; shard < shards.size(); shard++) {
+            DataSource dataSource = shards.shard(shard);
+            new ResourceDatabasePopulator(new ClassPathResource("db/sharding/pets-shard-schema.sql")).execute(dataSource);
+            addDeletedAtColumn(shard, dataSource);
+            alignIdRange(shard, dataSource);
+        }
+    }
+
+    private void addDeletedAtColumn(int shard, DataSource dataSource) {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        try {
+            jdbc.queryForList("select deleted_at from pets where 1 = 0");
+            return;
+        } catch (BadSqlGrammarException e) {
+            // created before soft delete
+        }
+        jdbc.execute("alter table pets add column deleted_at datetime(6)");
+        jdbc.execute("create index idx_pets_deleted_at on pets (deleted_at)");
+        log.info("Added the deleted_at column to pets on shard {}.", shard);
+    }
+
+    private void alignIdRange(int shard, DataSource dataSource) throws SQLException {
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        long rangeStart = shard * ShardRoutingDataSource.SHARD_ID_RANGE;
+        Long maxId = jdbc.queryForObject("select coalesce(max(id), 0) from pets", Long.class);
+        if (maxId != null && maxId >= rangeStart) {
+            return;
+        }
+        String product;
+        try (Connection connection = dataSource.getConnection()) {
+            product = connection.getMetaData().getDatabaseProductName();
+        }
+        long next = rangeStart + 1;
+        if ("H2".equals(product)) {
+            jdbc.execute("alter table pets alter column id restart with " + next);
+        } else {
+            jdbc.execute("alter table pets auto_increment = " + next);
+        }
+        log.info("Pet ids on shard {} now start at {}.", shard, next);
+    }
+}
@@ -0,0 +1,58 @@
+package S502.virtualPets.persistence.specification;
+
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.enums.PetSortFieldEnum;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Opaque keyset position: the sort value and the id of the last pet of a page.
+ */
+public record PetSearchCursor(PetSortFieldEnum sort, Comparable<?> value, Long id) {
+
+    private static final char SEPARATOR = '|';
+
+    public static PetSearchCursor after(PetSortFieldEnum sort, PetEntity last) {
+        Comparable<?> value = switch (sort) {
+            case ID -> last.getId();
+            case NAME -> last.getName();
+            case ENERGY_LEVEL -> last.getEnergyLevel();
+            case HUNGER_LEVEL -> last.getHungerLevel();
+            case CREATED_AT -> last.getCreatedAt();
+            case UPDATED_AT -> last.getUpdatedAt();
+        };
+        return new PetSearchCursor(sort, value, last.getId());
+    }
+
+    public String encode() {
+        String raw = sort.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PetSearchCursor decode(String cursor, PetSortFieldEnum expectedSort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int first = raw.indexOf(SEPARATOR);
+            int second = raw.indexOf(SEPARATOR, first + 1);
+            PetSortFieldEnum sort = PetSortFieldEnum.valueOf(raw.substring(0, first));
+            if (sort != expectedSort) {
+                throw new IllegalArgumentException("Cursor was issued for a different sort.");
+            }
+            Long id = Long.valueOf(raw.substring(first + 1, second));
+            String value = raw.substring(second + 1);
+            Comparable<?> typedValue = switch (sort) {
+                case ID -> id;
+                case NAME -> value;
+                case ENERGY_LEVEL, HUNGER_LEVEL -> Integer.valueOf(value);
+                case CREATED_AT, UPDATED_AT -> LocalDateTime.parse(value);
+            };
+            return new PetSearchCursor(sort, typedValue, id);
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid search cursor.");
+        }
+    }
+}
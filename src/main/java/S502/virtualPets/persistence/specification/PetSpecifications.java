@@ -0,0 +1,149 @@
+package S502.virtualPets.persistence.specification;
+
+import S502.virtualPets.dto.PetSearchRequestDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetSortFieldEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import jakarta.persistence.criteria.Path;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Building blocks for the admin pet search. Every filter maps onto a column
+ * covered by one of the indexes declared on {@link PetEntity}.
+ */
+public final class PetSpecifications {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Column values in the order the database sorts them. Text ignores case and accents like
+     * MySQL's default utf8mb4_0900_ai_ci; that collation and this order agree on letters, digits,
+     * spaces and the usual name punctuation. Everything else keeps its natural order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static final Comparator<Object> COLUMN_ORDER = (a, b) -> a instanceof String left && b instanceof String right
+            ? String.CASE_INSENSITIVE_ORDER.compare(withoutAccents(left), withoutAccents(right))
+            : ((Comparable) a).compareTo(b);
+
+    private PetSpecifications() {
+    }
+
+    public static Specification<PetEntity> fromCriteria(PetSearchRequestDTO criteria) {
+        List<Specification<PetEntity>> specs = new ArrayList<>();
+        if (criteria.namePrefix() != null && !criteria.namePrefix().isBlank()) {
+            specs.add(nameStartsWith(criteria.namePrefix()));
+        }
+        if (criteria.type() != null) {
+            specs.add(hasType(criteria.type()));
+        }
+        if (criteria.mood() != null) {
+            specs.add(hasMood(criteria.mood()));
+        }
+        if (criteria.minEnergy() != null || criteria.maxEnergy() != null) {
+            specs.add(between("energyLevel", criteria.minEnergy(), criteria.maxEnergy()));
+        }
+        if (criteria.minHunger() != null || criteria.maxHunger() != null) {
+            specs.add(between("hungerLevel", criteria.minHunger(), criteria.maxHunger()));
+        }
+        if (criteria.userId() != null) {
+            specs.add(ownedBy(criteria.userId()));
+        }
+        if (criteria.createdFrom() != null || criteria.createdTo() != null) {
+            specs.add(between("createdAt", criteria.createdFrom(), criteria.createdTo()));
+        }
+        if (criteria.updatedFrom() != null || criteria.updatedTo() != null) {
+            specs.add(between("updatedAt", criteria.updatedFrom(), criteria.updatedTo()));
+        }
+        return Specification.allOf(specs);
+    }
+
+    public static Specification<PetEntity> nameStartsWith(String prefix) {
+        String escaped = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+        return (root, query, cb) -> cb.like(root.get("name"), escaped + "%", '\\');
+    }
+
+    public static Specification<PetEntity> hasType(PetTypeEnum type) {
+        return (root, query, cb) -> cb.equal(root.get("petType"), type);
+    }
+
+    public static Specification<PetEntity> hasMood(MoodEnum mood) {
+        return (root, query, cb) -> cb.equal(root.get("mood"), mood);
+    }
+
+    public static Specification<PetEntity> ownedBy(Long userId) {
+        return (root, query, cb) -> cb.equal(root.get("user").get("id"), userId);
+    }
+
+    public static <T extends Comparable<? super T>> Specification<PetEntity> between(String property, T from, T to) {
+        return (root, query, cb) -> {
+            Path<T> path = root.get(property);
+            if (from != null && to != null) {
+                return cb.between(path, from, to);
+            }
+            return from != null ? cb.greaterThanOrEqualTo(path, from) : cb.lessThanOrEqualTo(path, to);
+        };
+    }
+
+    public static Specification<PetEntity> fetchOwner() {
+        return (root, query, cb) -> {
+            if (query != null && !Long.class.equals(query.getResultType())) {
+                root.fetch("user");
+            }
+            return null;
+        };
+    }
+
+    /**
+     * Keyset predicate: rows strictly after the cursor in (sort value, id) order.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<PetEntity> after(PetSearchCursor cursor, Sort.Direction direction) {
+        return (root, query, cb) -> {
+            Path<Long> id = root.get("id");
+            boolean ascending = direction.isAscending();
+            if (cursor.sort() == PetSortFieldEnum.ID) {
+                return ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id());
+            }
+            Path<Comparable> field = root.get(cursor.sort().getProperty());
+            Comparable value = cursor.value();
+            return cb.or(
+                    ascending ? cb.greaterThan(field, value) : cb.lessThan(field, value),
+                    cb.and(cb.equal(field, value),
+                            ascending ? cb.greaterThan(id, cursor.id()) : cb.lessThan(id, cursor.id()))
+            );
+        };
+    }
+
+    public static Sort sortWithTiebreak(PetSortFieldEnum sort, Sort.Direction direction) {
+        Sort primary = Sort.by(direction, sort.getProperty());
+        return sort == PetSortFieldEnum.ID ? primary : primary.and(Sort.by(direction, "id"));
+    }
+
+    /**
+     * Same order as {@link #sortWithTiebreak}, in memory. Used to merge results read from several shards.
+     * Names compare like the database does, otherwise a keyset cursor would skip or repeat rows.
+     */
+    public static Comparator<PetEntity> comparator(PetSortFieldEnum sort, Sort.Direction direction) {
+        Comparator<PetEntity> comparator = Comparator.comparing(pet -> PetSearchCursor.after(sort, pet).value(), COLUMN_ORDER);
+        comparator = comparator.thenComparing(PetEntity::getId);
+        return direction.isAscending() ? comparator : comparator.reversed();
+    }
+
+    private static String withoutAccents(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return value;
+    }
+}
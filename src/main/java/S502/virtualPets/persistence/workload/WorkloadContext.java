@@ -0,0 +1,46 @@
+package S502.virtualPets.persistence.workload;
+
+import S502.virtualPets.persistence.enums.WorkloadEnum;
+
+/**
+ * Workload of the current thread. {@link WorkloadRoutingDataSource} reads it when a
+ * connection is acquired, so it has to be set before a transaction begins. Unmarked
+ * work is interactive.
+ */
+public final class WorkloadContext {
+
+    private static final ThreadLocal<WorkloadEnum> CURRENT = new ThreadLocal<>();
+
+    private WorkloadContext() {
+    }
+
+    public static WorkloadEnum current() {
+        WorkloadEnum workload = CURRENT.get();
+        return workload != null ? workload : WorkloadEnum.INTERACTIVE;
+    }
+
+    public static WorkloadEnum enter(WorkloadEnum workload) {
+        WorkloadEnum previous = CURRENT.get();
+        CURRENT.set(workload);
+        return previous;
+    }
+
+    public static void restore(WorkloadEnum previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    public static Runnable bulk(Runnable task) {
+        return () -> {
+            WorkloadEnum previous = enter(WorkloadEnum.BULK);
+            try {
+                task.run();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+}
@@ -0,0 +1,67 @@
+package S502.virtualPets.persistence.workload;
+
+import S502.virtualPets.persistence.enums.WorkloadEnum;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.Map;
+
+/**
+ * Bulkhead over one database: interactive requests and bulk work (admin scans, exports,
+ * maintenance jobs) get separate Hikari pools, so a long scan can only exhaust its own
+ * pool. Both pools publish their wait times and usage as {@code hikaricp.*} metrics.
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final HikariDataSource interactive;
+    private final HikariDataSource bulk;
+
+    private WorkloadRoutingDataSource(HikariDataSource interactive, HikariDataSource bulk) {
+        this.interactive = interactive;
+        this.bulk = bulk;
+        setTargetDataSources(Map.of(WorkloadEnum.INTERACTIVE, interactive, WorkloadEnum.BULK, bulk));
+        setDefaultTargetDataSource(interactive);
+        afterPropertiesSet();
+    }
+
+    public static WorkloadRoutingDataSource create(String name, String url, String username, String password, String driverClassName,
+                                                   HikariConfig interactiveTemplate, HikariConfig bulkTemplate, MeterRegistry meterRegistry) {
+        return new WorkloadRoutingDataSource(
+                pool(name + "-interactive", url, username, password, driverClassName, interactiveTemplate, meterRegistry),
+                pool(name + "-bulk", url, username, password, driverClassName, bulkTemplate, meterRegistry));
+    }
+
+    private static HikariDataSource pool(String poolName, String url, String username, String password, String driverClassName,
+                                         HikariConfig template, MeterRegistry meterRegistry) {
+        // the pool starts on the first connection request, like the auto-configured one
+        HikariDataSource pool = new HikariDataSource();
+        template.copyStateTo(pool);
+        pool.setPoolName(poolName);
+        pool.setJdbcUrl(url);
+        pool.setUsername(username);
+        pool.setPassword(password);
+        if (driverClassName != null) {
+            pool.setDriverClassName(driverClassName);
+        }
+        pool.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return pool;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return WorkloadContext.current();
+    }
+
+    public HikariDataSource pool(WorkloadEnum workload) {
+        return workload == WorkloadEnum.BULK ? bulk : interactive;
+    }
+
+    @Override
+    public void close() {
+        interactive.close();
+        bulk.close();
+    }
+}
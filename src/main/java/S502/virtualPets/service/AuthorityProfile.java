@@ -0,0 +1,21 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.enums.RoleEnum;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.List;
+
+/**
+ * The authorities of one combination of roles. One instance exists per combination
+ * and is shared by every user holding it; role checks are a bit test on {@code roleMask}.
+ */
+public record AuthorityProfile(int roleMask, List<GrantedAuthority> authorities) {
+
+    public static int bit(RoleEnum role) {
+        return 1 << role.ordinal();
+    }
+
+    public boolean hasRole(RoleEnum role) {
+        return (roleMask & bit(role)) != 0;
+    }
+}
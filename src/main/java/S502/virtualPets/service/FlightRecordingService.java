@@ -0,0 +1,157 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.config.jfr.JwtVerificationEvent;
+import S502.virtualPets.config.jfr.PasswordHashEvent;
+import S502.virtualPets.config.jfr.PetOperationEvent;
+import S502.virtualPets.config.jfr.PrincipalLoadEvent;
+import S502.virtualPets.dto.FlightRecordingDTO;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * One Java Flight Recorder recording at a time, started and dumped on demand. It records
+ * the JDK events of the chosen settings ({@code default} is cheap enough for production,
+ * {@code profile} adds more detail) plus this application's events, and keeps at most
+ * {@code pets.jfr.max-age} / {@code pets.jfr.max-size} of data. Dumps go to
+ * {@code pets.jfr.directory} and can be opened in JDK Mission Control.
+ */
+@Service
+@Slf4j
+public class FlightRecordingService {
+
+    private static final List<Class<? extends jdk.jfr.Event>> EVENTS = List.of(
+            JwtVerificationEvent.class, PrincipalLoadEvent.class, PasswordHashEvent.class, PetOperationEvent.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final Path directory;
+    private final Duration maxAge;
+    private final DataSize maxSize;
+    private Recording recording;
+    private String settings;
+
+    public FlightRecordingService(@Value("${pets.jfr.directory:./recordings}") String directory,
+                                  @Value("${pets.jfr.max-age:1h}") Duration maxAge,
+                                  @Value("${pets.jfr.max-size:250MB}") DataSize maxSize) {
+        this.directory = Path.of(directory);
+        this.maxAge = maxAge;
+        this.maxSize = maxSize;
+    }
+
+    public synchronized FlightRecordingDTO start(String settings) {
+        if (!FlightRecorder.isAvailable()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Flight Recorder is not available in this runtime.");
+        }
+        if (recording != null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A recording is already running. Stop it first.");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (NoSuchFileException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown recording settings '" + settings + "'. Use 'default' or 'profile'.");
+        } catch (IOException | ParseException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not read recording settings '" + settings + "'.");
+        }
+
+        Recording started = new Recording(configuration);
+        started.setName("virtualpets-" + LocalDateTime.now().format(FILE_TIMESTAMP));
+        started.setToDisk(true);
+        started.setMaxAge(maxAge);
+        started.setMaxSize(maxSize.toBytes());
+        EVENTS.forEach(started::enable);
+        started.start();
+        this.recording = started;
+        this.settings = settings;
+        log.info("Flight recording '{}' started with settings '{}'.", started.getName(), settings);
+        return describe(null, null);
+    }
+
+    /**
+     * Writes what has been recorded so far to a file and keeps recording.
+     */
+    public synchronized FlightRecordingDTO dump() {
+        Recording current = running();
+        Path file = write(current);
+        return describe(file, size(file));
+    }
+
+    public synchronized FlightRecordingDTO stop() {
+        Recording current = running();
+        current.stop();
+        Path file = write(current);
+        FlightRecordingDTO stopped = describe(file, size(file));
+        current.close();
+        recording = null;
+        log.info("Flight recording '{}' stopped and written to {}.", current.getName(), file);
+        return stopped;
+    }
+
+    public synchronized FlightRecordingDTO status() {
+        return describe(null, null);
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    private Recording running() {
+        if (recording == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No recording is running.");
+        }
+        return recording;
+    }
+
+    private Path write(Recording current) {
+        Path file = directory.resolve(current.getName() + "-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+        try {
+            Files.createDirectories(directory);
+            current.dump(file);
+        } catch (IOException e) {
+            log.error("Could not write flight recording to {}: {}", file, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Could not write the recording file.");
+        }
+        return file.toAbsolutePath();
+    }
+
+    private static Long size(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private FlightRecordingDTO describe(Path file, Long sizeBytes) {
+        if (recording == null) {
+            return new FlightRecordingDTO(null, "NONE", null, null, null, null);
+        }
+        LocalDateTime startedAt = recording.getStartTime() != null
+                ? LocalDateTime.ofInstant(recording.getStartTime(), ZoneId.systemDefault())
+                : null;
+        return new FlightRecordingDTO(recording.getName(), recording.getState().name(), settings, startedAt,
+                file != null ? file.toString() : null, sizeBytes);
+    }
+}
@@ -0,0 +1,176 @@
+package S502.virtualPets.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the response of requests sent with an {@code Idempotency-Key} header so
+ * retries replay it instead of running the write again. Concurrent duplicates wait
+ * for the first request instead of executing in parallel.
+ */
+@Service
+@Slf4j
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Duration inFlightWait;
+    private final ObjectWriter fingerprintWriter;
+
+    public IdempotencyService(ObjectMapper objectMapper,
+                              @Value("${idempotency.ttl:10m}") Duration ttl,
+                              @Value("${idempotency.max-entries:10000}") int maxEntries,
+                              @Value("${idempotency.in-flight-wait:30s}") Duration inFlightWait) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+        this.inFlightWait = inFlightWait;
+        this.fingerprintWriter = objectMapper.writer().with(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    }
+
+    public <T> ResponseEntity<T> execute(String operation, String idempotencyKey, Object request,
+                                         Supplier<ResponseEntity<T>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > 255) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The Idempotency-Key header cannot exceed 255 characters.");
+        }
+
+        String storeKey = operation + ':' + currentScope() + ':' + idempotencyKey;
+        String fingerprint = fingerprint(request);
+        Entry created = new Entry(fingerprint, System.nanoTime());
+        Entry existing = entries.putIfAbsent(storeKey, created);
+
+        if (existing != null) {
+            return replay(storeKey, existing, fingerprint);
+        }
+
+        insertionOrder.add(storeKey);
+        evictOverflow();
+        try {
+            ResponseEntity<T> response = action.get();
+            created.response.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // whatever went wrong, waiting duplicates must be released and a retry must run again
+            entries.remove(storeKey, created);
+            created.response.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(String storeKey, Entry existing, String fingerprint) {
+        if (!existing.fingerprint.equals(fingerprint)) {
+            log.warn("Idempotency key '{}' reused with a different request.", storeKey);
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "The Idempotency-Key was already used for a different request.");
+        }
+        ResponseEntity<?> original;
+        try {
+            original = existing.response.get(inFlightWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException runtime ? runtime : new CompletionException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with the same Idempotency-Key is still in progress.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted while waiting for the original request.");
+        }
+        log.info("Replaying stored response for idempotency key '{}'.", storeKey);
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(original.getHeaders());
+        headers.set(REPLAYED_HEADER, "true");
+        return new ResponseEntity<>((T) original.getBody(), headers, original.getStatusCode());
+    }
+
+    private String currentScope() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            return "anonymous";
+        }
+        return authentication.getName();
+    }
+
+    /**
+     * Hashes the request as it is serialized to JSON, so equal bodies match whatever their {@code toString}.
+     */
+    private String fingerprint(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(fingerprintWriter.writeValueAsBytes(request)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot fingerprint the request for idempotency.", e);
+        }
+    }
+
+    private void evictOverflow() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        // one pass over the queue at most: when every entry is still running there is nothing to evict
+        for (int left = insertionOrder.size(); left > 0 && entries.size() > maxEntries; left--) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            Entry running = entries.computeIfPresent(oldest, (key, entry) -> entry.response.isDone() ? null : entry);
+            if (running != null) {
+                // back in line, so it can be evicted once it completes
+                insertionOrder.add(oldest);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        long ttlNanos = ttl.toNanos();
+        entries.entrySet().removeIf(e -> e.getValue().response.isDone() && now - e.getValue().createdAtNanos > ttlNanos);
+        insertionOrder.removeIf(key -> !entries.containsKey(key));
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long createdAtNanos;
+        private final CompletableFuture<ResponseEntity<?>> response = new CompletableFuture<>();
+
+        private Entry(String fingerprint, long createdAtNanos) {
+            this.fingerprint = fingerprint;
+            this.createdAtNanos = createdAtNanos;
+        }
+    }
+}
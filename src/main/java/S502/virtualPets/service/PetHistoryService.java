@@ -0,0 +1,230 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.dto.PetHistoryPointDTO;
+import S502.virtualPets.dto.PetHistoryResponseDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.PetHistoryEntity;
+import S502.virtualPets.persistence.repository.PetHistoryRepository;
+import S502.virtualPets.persistence.resilience.DatabaseCircuitBreakerInterceptor;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import S502.virtualPets.utils.PetHistoryCodec;
+import S502.virtualPets.utils.PetHistoryCodec.Sample;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Append-only history of pet state (energy, hunger, mood). The update path only queues a
+ * sample; a scheduled flush packs the queued samples of each pet into one compact block row.
+ * Another scheduled job drops blocks past the retention period and merges the small blocks
+ * of older history into full ones.
+ */
+@Service
+@Slf4j
+public class PetHistoryService {
+
+    /** Keeps a full block below the 8 KB payload column even with the largest deltas. */
+    static final int MAX_SAMPLES_PER_BLOCK = 500;
+
+    private final PetHistoryRepository historyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxPending;
+    private final Duration retention;
+    private final Duration compactAfter;
+    private final ConcurrentLinkedQueue<PendingSample> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Counter dropped;
+
+    public PetHistoryService(PetHistoryRepository historyRepository,
+                             TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${pets.history.max-pending:100000}") int maxPending,
+                             @Value("${pets.history.retention:90d}") Duration retention,
+                             @Value("${pets.history.compact-after:1h}") Duration compactAfter) {
+        this.historyRepository = historyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.maxPending = maxPending;
+        this.retention = retention;
+        this.compactAfter = compactAfter;
+        this.dropped = Counter.builder("virtualpets.history.dropped")
+                .description("Pet history samples dropped because the write queue was full")
+                .register(meterRegistry);
+    }
+
+    public void record(PetEntity pet) {
+        LocalDateTime at = pet.getUpdatedAt() != null ? pet.getUpdatedAt() : LocalDateTime.now();
+        enqueue(new PendingSample(pet.getId(), new Sample(at, pet.getEnergyLevel(), pet.getHungerLevel(), pet.getMood())));
+    }
+
+    private void enqueue(PendingSample sample) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        pending.add(sample);
+    }
+
+    /**
+     * Writes what is still queued when the application stops. A scheduled flush may still be
+     * running then; both take samples off the queue, so no sample is written twice.
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    @Scheduled(fixedDelayString = "${pets.history.flush-interval-ms:5000}")
+    public void flush() {
+        Map<Long, List<Sample>> byPet = new LinkedHashMap<>();
+        PendingSample next;
+        while ((next = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            byPet.computeIfAbsent(next.petId(), id -> new ArrayList<>()).add(next.sample());
+        }
+        if (byPet.isEmpty()) {
+            return;
+        }
+        List<PetHistoryEntity> blocks = new ArrayList<>();
+        byPet.forEach((petId, samples) -> {
+            samples.sort((a, b) -> a.at().compareTo(b.at()));
+            blocks.addAll(toBlocks(petId, samples));
+        });
+        try {
+            historyRepository.saveAll(blocks);
+        } catch (RuntimeException e) {
+            if (!DatabaseCircuitBreakerInterceptor.isDatabaseFailure(e)) {
+                throw e;
+            }
+            // keep the samples for the next flush, still within max-pending
+            byPet.forEach((petId, samples) -> samples.forEach(sample -> enqueue(new PendingSample(petId, sample))));
+            log.warn("Pet history flush postponed, the database is unavailable: {}", e.getMessage());
+            return;
+        }
+        log.debug("Flushed {} pet history blocks.", blocks.size());
+    }
+
+    public PetHistoryResponseDTO getHistory(Long petId, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(7);
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "'from' must be before 'to'.");
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        for (PetHistoryEntity block : historyRepository.findOverlapping(petId, start, end)) {
+            for (Sample sample : PetHistoryCodec.decode(block.getFirstAt(), block.getSampleCount(), block.getPayload())) {
+                if (!sample.at().isBefore(start) && !sample.at().isAfter(end)) {
+                    samples.add(sample);
+                }
+            }
+        }
+        samples.sort((a, b) -> a.at().compareTo(b.at()));
+        return new PetHistoryResponseDTO(petId, start, end, samples.size(), downsample(samples, start, end, maxPoints));
+    }
+
+    /**
+     * Averages the samples into at most {@code maxPoints} equal time buckets. Empty buckets are skipped.
+     */
+    private static List<PetHistoryPointDTO> downsample(List<Sample> samples, LocalDateTime start, LocalDateTime end, int maxPoints) {
+        if (samples.size() <= maxPoints) {
+            return samples.stream()
+                    .map(s -> new PetHistoryPointDTO(s.at(), s.energyLevel(), s.hungerLevel(), s.mood(), 1))
+                    .toList();
+        }
+        long bucketNanos = Math.max(1, Duration.between(start, end).toNanos() / maxPoints);
+        List<PetHistoryPointDTO> points = new ArrayList<>(maxPoints);
+        int i = 0;
+        while (i < samples.size()) {
+            long bucket = Duration.between(start, samples.get(i).at()).toNanos() / bucketNanos;
+            long energy = 0;
+            long hunger = 0;
+            int count = 0;
+            Sample last = null;
+            while (i < samples.size() && Duration.between(start, samples.get(i).at()).toNanos() / bucketNanos == bucket) {
+                last = samples.get(i++);
+                energy += last.energyLevel();
+                hunger += last.hungerLevel();
+                count++;
+            }
+            points.add(new PetHistoryPointDTO(start.plusNanos(bucket * bucketNanos),
+                    Math.round((float) energy / count), Math.round((float) hunger / count), last.mood(), count));
+        }
+        return points;
+    }
+
+    @Scheduled(fixedDelayString = "${pets.history.maintenance-interval-ms:3600000}", initialDelayString = "${pets.history.maintenance-interval-ms:3600000}")
+    public void maintain() {
+        WorkloadContext.bulk(this::expireAndCompact).run();
+    }
+
+    private void expireAndCompact() {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = historyRepository.deleteOlderThan(now.minus(retention));
+        int compacted = 0;
+        LocalDateTime cutoff = now.minus(compactAfter);
+        for (Long petId : historyRepository.findPetsWithSmallBlocksBefore(cutoff, MAX_SAMPLES_PER_BLOCK)) {
+            compacted += compact(petId, cutoff);
+        }
+        log.info("Pet history maintenance removed {} expired blocks and compacted {} blocks.", expired, compacted);
+    }
+
+    /**
+     * Rewrites the finished history of a pet into as few blocks as possible, in one transaction.
+     */
+    private int compact(Long petId, LocalDateTime cutoff) {
+        Integer replaced = transactionTemplate.execute(status -> {
+            List<PetHistoryEntity> blocks = historyRepository.findOlderThan(petId, cutoff);
+            if (blocks.size() < 2) {
+                return 0;
+            }
+            List<Sample> samples = new ArrayList<>();
+            for (PetHistoryEntity block : blocks) {
+                samples.addAll(PetHistoryCodec.decode(block.getFirstAt(), block.getSampleCount(), block.getPayload()));
+            }
+            samples.sort((a, b) -> a.at().compareTo(b.at()));
+            List<PetHistoryEntity> merged = toBlocks(petId, samples);
+            if (merged.size() >= blocks.size()) {
+                return 0;
+            }
+            historyRepository.deleteAllInBatch(blocks);
+            historyRepository.saveAll(merged);
+            return blocks.size();
+        });
+        return replaced != null ? replaced : 0;
+    }
+
+    private static List<PetHistoryEntity> toBlocks(Long petId, List<Sample> samples) {
+        List<PetHistoryEntity> blocks = new ArrayList<>();
+        for (int from = 0; from < samples.size(); from += MAX_SAMPLES_PER_BLOCK) {
+            List<Sample> chunk = samples.subList(from, Math.min(from + MAX_SAMPLES_PER_BLOCK, samples.size()));
+            blocks.add(PetHistoryEntity.builder()
+                    .petId(petId)
+                    .firstAt(chunk.get(0).at())
+                    .lastAt(chunk.get(chunk.size() - 1).at())
+                    .sampleCount(chunk.size())
+                    .payload(PetHistoryCodec.encode(chunk))
+                    .build());
+        }
+        return blocks;
+    }
+
+    private record PendingSample(Long petId, Sample sample) {
+    }
+}
@@ -0,0 +1,95 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.repository.PetHistoryRepository;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Removes soft-deleted pets for good. Runs off-peak ({@code pets.purge.cron}) on the bulk
+ * pool, deleting at most {@code pets.purge.batch-size} rows per statement with a pause
+ * between statements, so it never holds many row locks at once. A run stops after
+ * {@code pets.purge.max-duration} and the next one carries on. Deleted pets are kept for
+ * {@code pets.purge.grace-period} first, so a mistaken delete can still be undone by hand.
+ * The history of a purged pet goes in the same batch, just before the pet; samples still
+ * buffered for it at that moment are left to the history retention.
+ */
+@Service
+@Slf4j
+public class PetPurgeService {
+
+    private final PetRepository petRepository;
+    private final PetHistoryRepository historyRepository;
+    private final int batchSize;
+    private final Duration pause;
+    private final Duration gracePeriod;
+    private final Duration maxDuration;
+    private final Counter purged;
+
+    public PetPurgeService(PetRepository petRepository,
+                           PetHistoryRepository historyRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${pets.purge.batch-size:500}") int batchSize,
+                           @Value("${pets.purge.pause:500ms}") Duration pause,
+                           @Value("${pets.purge.grace-period:24h}") Duration gracePeriod,
+                           @Value("${pets.purge.max-duration:30m}") Duration maxDuration) {
+        this.petRepository = petRepository;
+        this.historyRepository = historyRepository;
+        this.batchSize = batchSize;
+        this.pause = pause;
+        this.gracePeriod = gracePeriod;
+        this.maxDuration = maxDuration;
+        this.purged = Counter.builder("virtualpets.pets.purged")
+                .description("Soft-deleted pets removed from the table")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${pets.purge.cron:0 */15 2-5 * * *}")
+    public void purge() {
+        WorkloadContext.bulk(this::purgeBatches).run();
+    }
+
+    int purgeBatches() {
+        LocalDateTime before = LocalDateTime.now().minus(gracePeriod);
+        long deadline = System.nanoTime() + maxDuration.toNanos();
+        int total = 0;
+        int deleted;
+        do {
+            // each shard returns up to a batch, so the size of a batch says nothing about what is left
+            List<Long> ids = petRepository.findPurgeableIds(before, batchSize);
+            if (ids.isEmpty()) {
+                deleted = 0;
+                break;
+            }
+            // history first: if deleting the pets fails, the next run finds them and their history again
+            historyRepository.deleteByPetIds(ids);
+            deleted = petRepository.purgeByIds(ids);
+            total += deleted;
+            purged.increment(deleted);
+        } while (deleted > 0 && System.nanoTime() < deadline && pause());
+        if (total > 0) {
+            log.info("Pet purge removed {} pets deleted before {}{}.", total, before,
+                    deleted > 0 ? ", more may be left for the next run" : "");
+        }
+        return total;
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(pause);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
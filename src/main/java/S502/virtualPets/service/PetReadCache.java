@@ -0,0 +1,114 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.persistence.coherence.CacheCoherenceService;
+import S502.virtualPets.persistence.coherence.InvalidationHandler;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.resilience.DatabaseCircuitBreakerInterceptor;
+import S502.virtualPets.utils.StaleWhileRevalidateCache;
+import S502.virtualPets.utils.StaleWhileRevalidateCache.Read;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived copies of the pet reads users hit most: a pet by id and the caller's own pets.
+ * Entries are served for {@code pets.read-cache.ttl} and reloaded in the background when they
+ * get close to it. Past the ttl they are reloaded on the request, and if the database is
+ * down or the circuit breaker is open the last known value is served as stale for up to
+ * {@code pets.read-cache.max-stale}. Local writes go through {@link PetService}, which evicts
+ * what they change; writes on other instances arrive through cache coherence.
+ */
+@Service
+@Slf4j
+public class PetReadCache implements InvalidationHandler {
+
+    private static final String PET_ENTITY = PetEntity.class.getName();
+
+    private final StaleWhileRevalidateCache<Long, PetResponseDTO> pets;
+    private final StaleWhileRevalidateCache<String, List<PetResponseDTO>> petsByOwner;
+
+    public PetReadCache(@Qualifier("petReadRefreshExecutor") Executor refreshExecutor, MeterRegistry meterRegistry,
+                        @Value("${pets.read-cache.ttl:10s}") Duration ttl,
+                        @Value("${pets.read-cache.refresh-ahead:0.8}") double refreshAhead,
+                        @Value("${pets.read-cache.max-stale:10m}") Duration maxStale,
+                        @Value("${pets.read-cache.max-entries:10000}") int maxEntries) {
+        Duration refreshAfter = Duration.ofNanos((long) (ttl.toNanos() * refreshAhead));
+        this.pets = new StaleWhileRevalidateCache<>(refreshAfter, ttl, maxStale, maxEntries, refreshExecutor,
+                DatabaseCircuitBreakerInterceptor::isDatabaseFailure,
+                result -> meterRegistry.counter("virtualpets.read.cache", "cache", "pet", "result", result).increment());
+        this.petsByOwner = new StaleWhileRevalidateCache<>(refreshAfter, ttl, maxStale, maxEntries, refreshExecutor,
+                DatabaseCircuitBreakerInterceptor::isDatabaseFailure,
+                result -> meterRegistry.counter("virtualpets.read.cache", "cache", "my-pets", "result", result).increment());
+    }
+
+    /**
+     * @param visible whether the caller may see a cached copy; copies are shared by every caller
+     */
+    public Read<PetResponseDTO> pet(Long petId, Supplier<PetResponseDTO> loader, Predicate<PetResponseDTO> visible) {
+        return pets.get(petId, loader, visible);
+    }
+
+    public Read<List<PetResponseDTO>> petsOf(String username, Supplier<List<PetResponseDTO>> loader) {
+        return petsByOwner.get(username, loader);
+    }
+
+    /**
+     * Call once the change to the pet is committed.
+     */
+    public void evict(Long petId, String ownerUsername) {
+        pets.invalidate(petId);
+        petsByOwner.invalidate(ownerUsername);
+    }
+
+    public void evictPet(Long petId) {
+        pets.invalidate(petId);
+    }
+
+    public void evictPetsOf(String ownerUsername) {
+        petsByOwner.invalidate(ownerUsername);
+    }
+
+    public void evictAllPetLists() {
+        petsByOwner.invalidateAll();
+    }
+
+    @Scheduled(fixedDelayString = "${pets.read-cache.eviction-interval-ms:60000}")
+    public void evictExpired() {
+        pets.evictExpired();
+        petsByOwner.evictExpired();
+    }
+
+    /**
+     * A pet changed on another instance. The owner is not part of the invalidation, so every
+     * cached list goes.
+     */
+    @Override
+    public void invalidate(String cache, String key) {
+        if (!PET_ENTITY.equals(cache)) {
+            return;
+        }
+        if (CacheCoherenceService.ALL_KEYS.equals(key)) {
+            pets.invalidateAll();
+        } else {
+            pets.invalidate(Long.valueOf(key));
+        }
+        petsByOwner.invalidateAll();
+    }
+
+    @Override
+    public void invalidateAll() {
+        pets.invalidateAll();
+        petsByOwner.invalidateAll();
+        log.debug("Pet read cache flushed.");
+    }
+}
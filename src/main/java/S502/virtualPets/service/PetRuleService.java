@@ -0,0 +1,291 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.coherence.CacheCoherenceService;
+import S502.virtualPets.persistence.coherence.InvalidationHandler;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.PetRuleEventEntity;
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+import S502.virtualPets.persistence.enums.PetRuleEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.PetRuleEventRepository;
+import S502.virtualPets.persistence.resilience.DatabaseCircuitBreakerInterceptor;
+import S502.virtualPets.utils.PetRuleEngine;
+import S502.virtualPets.utils.PetRuleEngine.Earned;
+import S502.virtualPets.utils.PetRuleEngine.Outcome;
+import S502.virtualPets.utils.PetRuleEngine.PetRule;
+import S502.virtualPets.utils.PetRuleEngine.PetState;
+import S502.virtualPets.utils.PetRuleEngine.Snapshot;
+import S502.virtualPets.utils.PetRuleEngine.UserRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Achievements and alerts computed from the pet changes made through {@link PetService}, see
+ * {@link PetRuleEngine}. The rule state of a user is loaded from the database on its first
+ * change (one query for its pets, one for its achievements) and dropped after
+ * {@code pets.rules.idle-after} without changes. Results are queued and written in batches.
+ * Rules are best effort: a failure never fails the pet write, it only reloads the user next time.
+ * <p>
+ * With several instances, a pet changed elsewhere arrives through cache coherence and drops its
+ * owner's state here. Two instances may still both earn the same achievement; the unique key on
+ * achievements keeps only the first copy.
+ */
+@Service
+@Slf4j
+public class PetRuleService implements InvalidationHandler {
+
+    private static final String PET_ENTITY = PetEntity.class.getName();
+
+    private record Change(Long petId, Snapshot before, PetState after) {
+    }
+
+    private final PetRuleEngine engine;
+    private final PetRepository petRepository;
+    private final PetRuleEventRepository eventRepository;
+    private final MeterRegistry meterRegistry;
+    private final int maxPending;
+    private final Duration idleAfter;
+    private final List<PetRuleEnum> achievements;
+    private final ConcurrentLinkedQueue<PetRuleEventEntity> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final Counter dropped;
+
+    public PetRuleService(PetRepository petRepository,
+                          PetRuleEventRepository eventRepository,
+                          MeterRegistry meterRegistry,
+                          @Value("${pets.rules.starving-hunger:90}") int starvingHunger,
+                          @Value("${pets.rules.energy-maxed-for:24h}") Duration energyMaxedFor,
+                          @Value("${pets.rules.max-pending:100000}") int maxPending,
+                          @Value("${pets.rules.idle-after:7d}") Duration idleAfter) {
+        this.petRepository = petRepository;
+        this.eventRepository = eventRepository;
+        this.meterRegistry = meterRegistry;
+        this.maxPending = maxPending;
+        this.idleAfter = idleAfter;
+        List<PetRule> petRules = List.of(
+                new PetRule(PetRuleEnum.PET_STARVING, EnumSet.of(PetFieldEnum.HUNGER_LEVEL),
+                        pet -> pet.hungerLevel() >= starvingHunger, Duration.ZERO, false),
+                new PetRule(PetRuleEnum.ENERGY_MAXED, EnumSet.of(PetFieldEnum.ENERGY_LEVEL),
+                        pet -> pet.energyLevel() >= 100, energyMaxedFor, true));
+        List<UserRule> userRules = List.of(
+                new UserRule(PetRuleEnum.ALL_PET_TYPES, typeCounts -> Arrays.stream(typeCounts).allMatch(count -> count > 0)));
+        this.engine = new PetRuleEngine(petRules, userRules);
+        this.achievements = new ArrayList<>();
+        petRules.stream().filter(PetRule::once).map(PetRule::rule).forEach(achievements::add);
+        userRules.stream().map(UserRule::rule).forEach(achievements::add);
+        this.dropped = Counter.builder("virtualpets.rules.dropped")
+                .description("Rule events dropped because the write queue was full")
+                .register(meterRegistry);
+        Gauge.builder("virtualpets.rules.users", engine, PetRuleEngine::loadedUsers)
+                .description("Users whose rule state is in memory")
+                .register(meterRegistry);
+    }
+
+    /**
+     * The state of a pet and when it last changed, taken before changing it.
+     */
+    public static Snapshot snapshot(PetEntity pet) {
+        return new Snapshot(pet.getId(), state(pet), toMillis(pet.getUpdatedAt(), System.currentTimeMillis()));
+    }
+
+    public void created(PetEntity pet) {
+        transition(pet.getUser().getId(), List.of(new Change(pet.getId(), null, state(pet))));
+    }
+
+    public void updated(Snapshot before, PetEntity pet) {
+        transition(pet.getUser().getId(), List.of(new Change(pet.getId(), before, state(pet))));
+    }
+
+    /**
+     * Both pets of a battle. When one user owns both and is not loaded yet, the user is loaded
+     * with both pets as they were before the battle; loading it for the first change would read
+     * the second pet as it is after it.
+     */
+    public void battled(Snapshot petBefore, PetEntity pet, Snapshot opponentBefore, PetEntity opponent) {
+        Long owner = pet.getUser().getId();
+        if (!owner.equals(opponent.getUser().getId())) {
+            updated(petBefore, pet);
+            updated(opponentBefore, opponent);
+            return;
+        }
+        transition(owner, List.of(new Change(pet.getId(), petBefore, state(pet)),
+                new Change(opponent.getId(), opponentBefore, state(opponent))));
+    }
+
+    /**
+     * @param userId the owner, or null when the caller does not know it
+     */
+    public void deleted(Long userId, Long petId) {
+        Long owner = userId != null ? userId : engine.ownerOf(petId);
+        // an owner that is not loaded will be read from the database, where the pet is already gone
+        if (owner != null && engine.isLoaded(owner)) {
+            transition(owner, List.of(new Change(petId, null, null)));
+        }
+    }
+
+    private void transition(Long userId, List<Change> changes) {
+        long now = System.currentTimeMillis();
+        try {
+            if (!engine.isLoaded(userId)) {
+                load(userId, changes, now);
+            }
+            for (Change change : changes) {
+                engine.apply(userId, change.petId(), change.after(), now).forEach(this::enqueue);
+            }
+        } catch (RuntimeException e) {
+            engine.unload(userId);
+            log.warn("Rules of user {} not evaluated for the change of pets {}: {}", userId,
+                    changes.stream().map(Change::petId).toList(), e.getMessage());
+        }
+    }
+
+    /**
+     * The database already holds the changes being applied, so the changed pets are loaded as they were before them.
+     */
+    private void load(Long userId, List<Change> changes, long now) {
+        List<Long> changedPetIds = changes.stream().map(Change::petId).toList();
+        List<Snapshot> pets = new ArrayList<>();
+        for (PetEntity pet : petRepository.findByUserId(userId)) {
+            if (!changedPetIds.contains(pet.getId())) {
+                pets.add(new Snapshot(pet.getId(), state(pet), toMillis(pet.getUpdatedAt(), now)));
+            }
+        }
+        for (Change change : changes) {
+            if (change.before() != null) {
+                pets.add(change.before());
+            }
+        }
+        List<Earned> earned = eventRepository.findRaised(userId, achievements).stream()
+                .map(event -> new Earned(event.getRule(), event.getPetId()))
+                .toList();
+        engine.load(userId, pets, earned, now);
+        log.debug("Loaded the rule state of user {}: {} pets, {} achievements.", userId, pets.size(), earned.size());
+    }
+
+    @Scheduled(fixedDelayString = "${pets.rules.timer-interval-ms:60000}")
+    public void fireDue() {
+        engine.fireDue(System.currentTimeMillis()).forEach(this::enqueue);
+    }
+
+    @Scheduled(fixedDelayString = "${pets.rules.eviction-interval-ms:3600000}")
+    public void unloadIdle() {
+        int unloaded = engine.unloadIdle(System.currentTimeMillis() - idleAfter.toMillis());
+        if (unloaded > 0) {
+            log.debug("Dropped the rule state of {} idle users.", unloaded);
+        }
+    }
+
+    private void enqueue(Outcome outcome) {
+        meterRegistry.counter("virtualpets.rules.events", "rule", outcome.rule().name(), "raised", String.valueOf(outcome.raised())).increment();
+        log.debug("Rule {} {} for user {} (pet {}).", outcome.rule(), outcome.raised() ? "raised" : "cleared", outcome.userId(), outcome.petId());
+        boolean achievement = outcome.raised() && achievements.contains(outcome.rule());
+        enqueue(PetRuleEventEntity.builder()
+                .userId(outcome.userId())
+                .petId(outcome.petId())
+                .rule(outcome.rule())
+                .raised(outcome.raised())
+                .occurredAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(outcome.atMillis()), ZoneId.systemDefault()))
+                .achievementKey(achievement ? PetRuleEventEntity.achievementKey(outcome.rule(), outcome.petId()) : null)
+                .build());
+    }
+
+    private void enqueue(PetRuleEventEntity event) {
+        if (pendingCount.incrementAndGet() > maxPending) {
+            pendingCount.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        pending.add(event);
+    }
+
+    @Scheduled(fixedDelayString = "${pets.rules.flush-interval-ms:5000}")
+    public void flush() {
+        List<PetRuleEventEntity> batch = new ArrayList<>();
+        PetRuleEventEntity next;
+        while ((next = pending.poll()) != null) {
+            pendingCount.decrementAndGet();
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            // achievements first: writing one twice is a no-op, so a retry of the whole batch is safe
+            List<PetRuleEventEntity> achievements = new ArrayList<>();
+            List<PetRuleEventEntity> alerts = new ArrayList<>(batch.size());
+            for (PetRuleEventEntity event : batch) {
+                (event.getAchievementKey() == null ? alerts : achievements).add(event);
+            }
+            eventRepository.insertAchievements(achievements);
+            eventRepository.saveAll(alerts);
+        } catch (RuntimeException e) {
+            if (!DatabaseCircuitBreakerInterceptor.isDatabaseFailure(e)) {
+                throw e;
+            }
+            // keep the events for the next flush, still within max-pending
+            batch.forEach(this::enqueue);
+            log.warn("Rule event flush postponed, the database is unavailable: {}", e.getMessage());
+            return;
+        }
+        log.debug("Flushed {} rule events.", batch.size());
+    }
+
+    /**
+     * Writes what is still queued when the application stops. Kept apart from {@link #flush()}
+     * so the scheduled method carries no lifecycle annotation.
+     */
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * A pet changed on another instance: its owner's state here may be out of date, so it is
+     * loaded again on its next change. A pet this instance never loaded has nothing to drop.
+     */
+    @Override
+    public void invalidate(String cache, String key) {
+        if (!PET_ENTITY.equals(cache)) {
+            return;
+        }
+        if (CacheCoherenceService.ALL_KEYS.equals(key)) {
+            engine.unloadAll();
+            return;
+        }
+        Long owner = engine.ownerOf(Long.valueOf(key));
+        if (owner != null) {
+            engine.unload(owner);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        engine.unloadAll();
+        log.debug("Rule state of every user dropped.");
+    }
+
+    private static PetState state(PetEntity pet) {
+        return new PetState(pet.getPetType(), pet.getMood(), pet.getEnergyLevel(), pet.getHungerLevel());
+    }
+
+    private static long toMillis(LocalDateTime at, long fallback) {
+        return at != null ? at.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : fallback;
+    }
+}
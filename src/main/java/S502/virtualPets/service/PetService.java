@@ -1,29 +1,69 @@
 package S502.virtualPets.service;
 
+import S502.virtualPets.config.jfr.PetOperationEvent;
+import S502.virtualPets.dto.BattleResultDTO;
 import S502.virtualPets.dto.CreatePetRequestDTO;
+import S502.virtualPets.dto.PetHistoryResponseDTO;
+import S502.virtualPets.dto.PetPageResponseDTO;
 import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.dto.PetSearchRequestDTO;
+import S502.virtualPets.dto.PetSearchResponseDTO;
 import S502.virtualPets.dto.UpdatePetRequestDTO;
+import S502.virtualPets.persistence.coherence.CacheCoherenceService;
 import S502.virtualPets.persistence.entity.PetEntity;
 import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+import S502.virtualPets.persistence.enums.PetSortFieldEnum;
 import S502.virtualPets.persistence.enums.RoleEnum;
 import S502.virtualPets.persistence.repository.PetRepository;
 import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.persistence.sharding.ShardContext;
+import S502.virtualPets.persistence.sharding.ShardRoutingDataSource;
+import S502.virtualPets.persistence.specification.PetSearchCursor;
+import S502.virtualPets.persistence.specification.PetSpecifications;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import S502.virtualPets.utils.BattleEngine;
+import S502.virtualPets.utils.BattleEngine.Fighter;
+import S502.virtualPets.utils.BattleEngine.Outcome;
+import S502.virtualPets.utils.PetRuleEngine;
+import S502.virtualPets.utils.SingleFlight;
+import S502.virtualPets.utils.StaleWhileRevalidateCache.Read;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.CachePut;
+import org.springframework.cache.annotation.Caching;
 
 @Service
 @Slf4j
@@ -35,6 +75,42 @@ public class PetService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PetHistoryService petHistoryService;
+
+    @Autowired
+    private PetReadCache petReadCache;
+
+    @Autowired
+    private PetRuleService petRuleService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectProvider<ShardRoutingDataSource> shardRouting;
+
+    @Autowired
+    private ObjectProvider<CacheCoherenceService> cacheCoherence;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pets.sharding.enabled:false}")
+    private boolean sharded;
+
+    private SingleFlight<String, PetResponseDTO> petByIdLoads;
+    private SingleFlight<String, List<PetResponseDTO>> allPetsLoads;
+
+    @PostConstruct
+    void createLoaders() {
+        this.petByIdLoads = new SingleFlight<>("pet-by-id", meterRegistry);
+        this.allPetsLoads = new SingleFlight<>("all-pets", meterRegistry);
+    }
+
     private UserEntity getAuthenticatedUser() {
         log.debug("Trying to recover authenticated user from the security context.");
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -51,14 +127,28 @@ public class PetService {
                 });
     }
 
+    private static final String ADMIN_AUTHORITY = "ROLE_" + RoleEnum.ADMIN.name();
+
     private boolean isAdmin(Authentication authentication) {
-        boolean isAdmin = authentication.getAuthorities().stream()
-                .anyMatch(a -> a.getAuthority().equals("ROLE_" + RoleEnum.ADMIN.name()));
+        boolean isAdmin = authentication.getPrincipal() instanceof AuthenticatedUser user
+                ? user.hasRole(RoleEnum.ADMIN)
+                : authentication.getAuthorities().stream().anyMatch(a -> ADMIN_AUTHORITY.equals(a.getAuthority()));
         log.debug("Verifying admin role for the user '{}': {}", authentication.getName(), isAdmin);
         return isAdmin;
     }
 
-    private PetResponseDTO convertToDto(PetEntity petEntity) {
+    public static PetResponseDTO convertToDto(PetEntity petEntity) {
+        PetOperationEvent operation = PetOperationEvent.current();
+        if (operation == null) {
+            return toDto(petEntity);
+        }
+        long start = System.nanoTime();
+        PetResponseDTO dto = toDto(petEntity);
+        operation.addMappingTime(System.nanoTime() - start);
+        return dto;
+    }
+
+    private static PetResponseDTO toDto(PetEntity petEntity) {
         return new PetResponseDTO(
                 petEntity.getId(),
                 petEntity.getName(),
@@ -87,6 +177,9 @@ public class PetService {
                 .build();
 
         PetEntity savedPet = petRepository.save(newPet);
+        petReadCache.evictPetsOf(currentUser.getUsername());
+        petHistoryService.record(savedPet);
+        petRuleService.created(savedPet);
         log.info("Pet '{}' (ID: {}) successfully created for the user '{}'.",
                 savedPet.getName(), savedPet.getId(), currentUser.getUsername());
         return convertToDto(savedPet);
@@ -100,30 +193,167 @@ public class PetService {
             log.warn("User '{}' He tried to access all pets without a role admin. Access denied.", authentication.getName());
             throw new AccessDeniedException("Access denied. Only administrators can see all pets.");
         }
-        List<PetEntity> pets = petRepository.findAll();
-        log.info("They recovered {} User pets ADMIN '{}'.", pets.size(), authentication.getName());
-        return pets.stream().map(this::convertToDto).collect(Collectors.toList());
+        return allPetsLoads.execute("admin", () -> {
+            List<PetEntity> pets = petRepository.findAll();
+            log.info("They recovered {} User pets ADMIN '{}'.", pets.size(), authentication.getName());
+            // coalesced callers all get this list, so nobody may change it
+            return pets.stream().map(PetService::convertToDto).toList();
+        });
+    }
+
+    public PetPageResponseDTO getAllPetsPage(int page, int size) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        log.info("Request to obtain page {} (size {}) of all the pets by the user '{}' (rol ADMIN).", page, size, authentication.getName());
+        if (!isAdmin(authentication)) {
+            log.warn("User '{}' He tried to access all pets without a role admin. Access denied.", authentication.getName());
+            throw new AccessDeniedException("Access denied. Only administrators can see all pets.");
+        }
+        Page<PetEntity> pets = petRepository.findAll(PageRequest.of(page, size, Sort.by("id")));
+        log.info("They recovered {} of {} pets.", pets.getNumberOfElements(), pets.getTotalElements());
+        return new PetPageResponseDTO(pets.getContent().stream().map(PetService::convertToDto).collect(Collectors.toList()),
+                page, size, pets.getTotalElements(), pets.getTotalPages());
+    }
+
+    public List<Map<String, Object>> getAllPetsFields(Set<PetFieldEnum> fields) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        log.info("Request to obtain fields {} of all the pets by the user '{}' (rol ADMIN).", fields, authentication.getName());
+        if (!isAdmin(authentication)) {
+            log.warn("User '{}' He tried to access all pets without a role admin. Access denied.", authentication.getName());
+            throw new AccessDeniedException("Access denied. Only administrators can see all pets.");
+        }
+        List<Map<String, Object>> pets = findFields(fields, null);
+        log.info("They recovered {} pets with fields {}.", pets.size(), fields);
+        return pets;
+    }
+
+    public List<Map<String, Object>> getMyPetsFields(Set<PetFieldEnum> fields) {
+        UserEntity currentUser = getAuthenticatedUser();
+        log.info("Request to obtain fields {} of user pets '{}'.", fields, currentUser.getUsername());
+        List<Map<String, Object>> pets = findFields(fields, currentUser.getId());
+        log.info("They recovered {} User pets '{}'.", pets.size(), currentUser.getUsername());
+        return pets;
+    }
+
+    private List<Map<String, Object>> findFields(Set<PetFieldEnum> fields, Long userId) {
+        if (!sharded || !fields.contains(PetFieldEnum.USERNAME)) {
+            return petRepository.findFieldsByUserId(fields, userId);
+        }
+        // users only exist on the home shard: read the owner ids from the pet shards and resolve the names afterwards
+        Set<PetFieldEnum> shardFields = EnumSet.copyOf(fields);
+        shardFields.remove(PetFieldEnum.USERNAME);
+        shardFields.add(PetFieldEnum.USER_ID);
+        List<Map<String, Object>> pets = petRepository.findFieldsByUserId(shardFields, userId);
+        String userIdKey = PetFieldEnum.USER_ID.getJsonName();
+        Map<Long, String> usernames = userRepository.findAllById(pets.stream().map(pet -> (Long) pet.get(userIdKey)).distinct().toList())
+                .stream().collect(Collectors.toMap(UserEntity::getId, UserEntity::getUsername));
+        for (Map<String, Object> pet : pets) {
+            Long owner = (Long) (fields.contains(PetFieldEnum.USER_ID) ? pet.get(userIdKey) : pet.remove(userIdKey));
+            pet.put(PetFieldEnum.USERNAME.getJsonName(), usernames.get(owner));
+        }
+        return pets;
+    }
+
+    public PetSearchResponseDTO searchPets(PetSearchRequestDTO criteria) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        log.info("Pet search requested by the user '{}' with criteria: {}", authentication.getName(), criteria);
+        if (!isAdmin(authentication)) {
+            log.warn("User '{}' tried to search all pets without a role admin. Access denied.", authentication.getName());
+            throw new AccessDeniedException("Access denied. Only administrators can search all pets.");
+        }
+
+        PetSortFieldEnum sort = criteria.sortOrDefault();
+        Sort.Direction direction = criteria.directionOrDefault();
+        int size = criteria.sizeOrDefault();
+
+        Specification<PetEntity> spec = PetSpecifications.fromCriteria(criteria);
+        if (!sharded) {
+            // with sharding the owners live on the home shard and are loaded lazily instead
+            spec = spec.and(PetSpecifications.fetchOwner());
+        }
+        if (criteria.cursor() != null && !criteria.cursor().isBlank()) {
+            spec = spec.and(PetSpecifications.after(PetSearchCursor.decode(criteria.cursor(), sort), direction));
+        }
+
+        List<PetEntity> pets = new ArrayList<>(petRepository.findBy(spec, query -> query
+                .sortBy(PetSpecifications.sortWithTiebreak(sort, direction))
+                .limit(size + 1)
+                .all()));
+        if (sharded) {
+            // every shard returns its own top rows, so merge them back into one order
+            pets.sort(PetSpecifications.comparator(sort, direction));
+        }
+
+        String nextCursor = null;
+        if (pets.size() > size) {
+            pets = pets.subList(0, size);
+            nextCursor = PetSearchCursor.after(sort, pets.get(size - 1)).encode();
+        }
+        log.info("Pet search returned {} pets. More results: {}.", pets.size(), nextCursor != null);
+        return new PetSearchResponseDTO(pets.stream().map(PetService::convertToDto).collect(Collectors.toList()), nextCursor);
     }
 
     @Cacheable(value = "myPets", key = "#currentUser.id", unless = "#result.empty")
     public List<PetResponseDTO> getMyPets() {
+        return readMyPets().value();
+    }
+
+    /**
+     * {@link #getMyPets()} with the age of the answer, which may be a stale copy while the database is unreachable.
+     */
+    public Read<List<PetResponseDTO>> readMyPets() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null) {
+            throw new AccessDeniedException("There is no authenticated user.");
+        }
+        return petReadCache.petsOf(authentication.getName(), this::loadMyPets);
+    }
+
+    private List<PetResponseDTO> loadMyPets() {
         UserEntity currentUser = getAuthenticatedUser();
         log.info("Request to obtain user pets '{}'.", currentUser.getUsername());
         List<PetEntity> pets = petRepository.findByUserId(currentUser.getId());
         log.info("They recovered {} User pets '{}'.", pets.size(), currentUser.
                 getUsername());
-        return pets.stream().map(this::convertToDto).collect(Collectors.toList());
+        // cached and shared between requests
+        return pets.stream().map(PetService::convertToDto).toList();
     }
 
     @Cacheable(value = "pets", key = "#petId")
     public PetResponseDTO getPetById(Long petId) {
+        return readPetById(petId).value();
+    }
+
+    /**
+     * {@link #getPetById(Long)} with the age of the answer, which may be a stale copy while the database is unreachable.
+     */
+    public Read<PetResponseDTO> readPetById(Long petId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        boolean admin = isAdmin(authentication);
+        String scope = admin ? "admin:" + petId : "user:" + authentication.getName() + ":" + petId;
+        // the copy may have been loaded by its owner or an admin: apply the same rule as the query would
+        Predicate<PetResponseDTO> visible = pet -> admin || authentication.getName().equals(pet.username());
+        Read<PetResponseDTO> read = petReadCache.pet(petId, () -> petByIdLoads.execute(scope, () -> loadPetById(petId, admin)), visible);
+        if (!visible.test(read.value())) {
+            log.warn("Pet with ID {} Not found or user '{}' It has no permission.", petId, authentication.getName());
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found or you have no permission to see it.");
+        }
+        return read;
+    }
+
+    public PetHistoryResponseDTO getPetHistory(Long petId, LocalDateTime from, LocalDateTime to, int maxPoints) {
+        // same visibility rules as reading the pet itself
+        getPetById(petId);
+        log.info("Request to obtain the history of pet with ID: {} from {} to {}.", petId, from, to);
+        return petHistoryService.getHistory(petId, from, to, maxPoints);
+    }
+
+    private PetResponseDTO loadPetById(Long petId, boolean admin) {
         UserEntity currentUser = getAuthenticatedUser();
         log.info("Request to obtain pet with ID: {} by the user '{}'.", petId, currentUser.getUsername());
 
         Optional<PetEntity> petOptional;
 
-        if (isAdmin(authentication)) {
+        if (admin) {
             petOptional = petRepository.findById(petId);
             log.debug("User ADMIN '{}' looking for pet with ID: {}.", currentUser.getUsername(), petId);
         } else {
@@ -164,43 +394,152 @@ public class PetService {
             log.debug("User '{}' updating your pet with ID: {}.", currentUser.getUsername(), petId);
         }
 
+        int previousEnergy = petToUpdate.getEnergyLevel();
+        int previousHunger = petToUpdate.getHungerLevel();
+        MoodEnum previousMood = petToUpdate.getMood();
+        PetRuleEngine.Snapshot previous = PetRuleService.snapshot(petToUpdate);
+
         Optional.ofNullable(updatePetRequestDTO.name()).ifPresent(petToUpdate::setName);
         Optional.ofNullable(updatePetRequestDTO.mood()).ifPresent(petToUpdate::setMood);
         Optional.ofNullable(updatePetRequestDTO.energyLevel()).ifPresent(petToUpdate::setEnergyLevel);
         Optional.ofNullable(updatePetRequestDTO.hungerLevel()).ifPresent(petToUpdate::setHungerLevel);
 
         PetEntity updatedPet = petRepository.save(petToUpdate);
+        petReadCache.evict(updatedPet.getId(), updatedPet.getUser().getUsername());
+        if (updatedPet.getEnergyLevel() != previousEnergy || updatedPet.getHungerLevel() != previousHunger
+                || updatedPet.getMood() != previousMood) {
+            petHistoryService.record(updatedPet);
+            petRuleService.updated(previous, updatedPet);
+        }
         log.info("Pet '{}' (ID: {}) Updated successfully by the user '{}'.",
                 updatedPet.getName(), updatedPet.getId(), currentUser.getUsername());
         return convertToDto(updatedPet);
     }
 
-    @CachePut(value = "pets", key = "#petId")
+    /**
+     * Marks the pet as deleted with one owner-scoped update; the row itself is removed later
+     * by {@link PetPurgeService}. Admins may delete any pet.
+     */
     @CacheEvict(value = {"allPets", "myPets"}, allEntries = true)
     public void deletePet(Long petId) {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         UserEntity currentUser = getAuthenticatedUser();
         log.info("Request to eliminate pet with ID: {} by the user '{}'.", petId, currentUser.getUsername());
 
-        PetEntity petToDelete;
-
+        LocalDateTime deletedAt = LocalDateTime.now();
         if (isAdmin(authentication)) {
-            petToDelete = petRepository.findById(petId)
-                    .orElseThrow(() -> {
-                        log.warn("UsER ADMIN '{}' He tried to eliminate pet not existing with ID: {}.", currentUser.getUsername(), petId);
-                        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found.");
-                    });
             log.debug("UsER ADMIN '{}' eliminating pet with ID: {}.", currentUser.getUsername(), petId);
+            if (petRepository.softDeleteById(petId, deletedAt) == 0) {
+                log.warn("UsER ADMIN '{}' He tried to eliminate pet not existing with ID: {}.", currentUser.getUsername(), petId);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found.");
+            }
+            // the owner is not known without reading the row
+            petReadCache.evictPet(petId);
+            petReadCache.evictAllPetLists();
+            petRuleService.deleted(null, petId);
         } else {
-            petToDelete = petRepository.findByIdAndUserId(petId, currentUser.getId())
-                    .orElseThrow(() -> {
-                        log.warn("UsER '{}' tried to eliminate pet with ID {} No permission or not found.", currentUser.getUsername(), petId);
-                        return new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found or you have no permission to eliminate it.");
-                    });
             log.debug("UsER '{}' Eliminating your pet with ID: {}.", currentUser.getUsername(), petId);
+            if (petRepository.softDeleteByIdAndUserId(petId, currentUser.getId(), deletedAt) == 0) {
+                log.warn("UsER '{}' tried to eliminate pet with ID {} No permission or not found.", currentUser.getUsername(), petId);
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found or you have no permission to eliminate it.");
+            }
+            petReadCache.evict(petId, currentUser.getUsername());
+            petRuleService.deleted(currentUser.getId(), petId);
         }
-
-        petRepository.delete(petToDelete);
+        // a bulk update raises no entity events, so other instances are told here
+        cacheCoherence.ifAvailable(coherence -> {
+            coherence.invalidate(PetEntity.class.getName(), petId);
+            coherence.invalidate(CacheCoherenceService.QUERY_SPACES, "pets");
+        });
         log.info("Pet with ID {} successfully eliminated by the user '{}'.", petId, currentUser.getUsername());
     }
+
+    @Caching(evict = {
+            @CacheEvict(value = "pets", key = "#petId"),
+            @CacheEvict(value = "pets", key = "#opponentId"),
+            @CacheEvict(value = {"allPets", "myPets"}, allEntries = true)
+    })
+    public BattleResultDTO battle(Long petId, Long opponentId, Long seed) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        UserEntity currentUser = getAuthenticatedUser();
+        log.info("Battle requested between pet {} and pet {} by the user '{}'.", petId, opponentId, currentUser.getUsername());
+        if (petId.equals(opponentId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A pet cannot battle itself.");
+        }
+
+        PetEntity pet = (isAdmin(authentication) ? petRepository.findById(petId) : petRepository.findByIdAndUserId(petId, currentUser.getId()))
+                .orElseThrow(() -> {
+                    log.warn("Pet with ID {} Not found or user '{}' It has no permission.", petId, currentUser.getUsername());
+                    return new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found or you have no permission to battle with it.");
+                });
+        PetEntity opponent = petRepository.findById(opponentId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Opponent not found."));
+        PetRuleEngine.Snapshot petBefore = PetRuleService.snapshot(pet);
+        PetRuleEngine.Snapshot opponentBefore = PetRuleService.snapshot(opponent);
+        Long petOwnerId = pet.getUser().getId();
+        Long opponentOwnerId = opponent.getUser().getId();
+
+        // both rows are written in one local transaction, which only exists inside a single shard
+        ShardRoutingDataSource shards = sharded ? shardRouting.getIfAvailable() : null;
+        int shard = shards != null ? shards.shardForUser(petOwnerId) : 0;
+        if (shards != null && shards.shardForUser(opponentOwnerId) != shard) {
+            log.warn("Battle between pet {} and pet {} rejected: they live on different shards.", petId, opponentId);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "These pets live on different shards and cannot battle each other.");
+        }
+
+        long battleSeed = seed != null ? seed : ThreadLocalRandom.current().nextLong();
+        Integer previousShard = shards != null ? ShardContext.enter(shard) : null;
+        Battle battle;
+        try {
+            battle = transactionTemplate.execute(status -> {
+                // lock in id order so two battles over the same pets cannot deadlock
+                PetEntity first = lockForBattle(Math.min(petId, opponentId), petId < opponentId ? petOwnerId : opponentOwnerId);
+                PetEntity second = lockForBattle(Math.max(petId, opponentId), petId < opponentId ? opponentOwnerId : petOwnerId);
+                PetEntity lockedPet = petId < opponentId ? first : second;
+                PetEntity lockedOpponent = petId < opponentId ? second : first;
+
+                Outcome result = BattleEngine.fight(toFighter(lockedPet), toFighter(lockedOpponent), new SplittableRandom(battleSeed));
+                applyFighter(lockedPet, result);
+                applyFighter(lockedOpponent, result);
+                return new Battle(result, lockedPet, lockedOpponent);
+            });
+        } finally {
+            if (shards != null) {
+                ShardContext.restore(previousShard);
+            }
+        }
+
+        petReadCache.evict(petId, battle.pet().getUser().getUsername());
+        petReadCache.evict(opponentId, battle.opponent().getUser().getUsername());
+        Outcome outcome = battle.outcome();
+        petHistoryService.record(battle.pet());
+        petHistoryService.record(battle.opponent());
+        petRuleService.battled(petBefore, battle.pet(), opponentBefore, battle.opponent());
+        log.info("Pet {} won the battle against pet {} after {} exchanges (seed {}).",
+                outcome.winner().id(), outcome.loser().id(), outcome.exchanges(), battleSeed);
+        return new BattleResultDTO(outcome.winner().id(), outcome.loser().id(), outcome.exchanges(), battleSeed,
+                convertToDto(battle.pet()), convertToDto(battle.opponent()));
+    }
+
+    private record Battle(Outcome outcome, PetEntity pet, PetEntity opponent) {
+    }
+
+    private PetEntity lockForBattle(Long petId, Long ownerId) {
+        PetEntity pet = petRepository.lockByIdAndUserId(petId, ownerId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet " + petId + " was removed before the battle started."));
+        // the instance may already be in the persistence context with the state read before the lock
+        entityManager.refresh(pet);
+        return pet;
+    }
+
+    private static Fighter toFighter(PetEntity pet) {
+        return new Fighter(pet.getId(), pet.getPetType(), pet.getEnergyLevel(), pet.getHungerLevel(), pet.getMood());
+    }
+
+    private static void applyFighter(PetEntity pet, Outcome outcome) {
+        Fighter after = outcome.winner().id().equals(pet.getId()) ? outcome.winner() : outcome.loser();
+        pet.setEnergyLevel(after.energyLevel());
+        pet.setHungerLevel(after.hungerLevel());
+        pet.setMood(after.mood());
+    }
 }
@@ -0,0 +1,428 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.dto.PetImportRequestDTO;
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.dto.PetTransferJobDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.persistence.enums.TransferFormatEnum;
+import S502.virtualPets.persistence.enums.TransferStatusEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.persistence.sharding.ShardContext;
+import S502.virtualPets.persistence.sharding.ShardRoutingDataSource;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Export and import of the pets table as background jobs. Both directions work in
+ * chunks of {@code pets.transfer.chunk-size} rows, so memory stays bounded whatever the
+ * table size. Imports commit each chunk in one transaction (one per shard the chunk touches
+ * when sharding is on) and checkpoint the committed row count next to the file, so a failed
+ * or interrupted import resumes where it stopped. One file is imported by one job at a time,
+ * and a failed job can be resumed once, since two jobs would share its checkpoint.
+ * Imported pets keep their creation and update times. Finished jobs are listed for
+ * {@code pets.transfer.job-ttl}.
+ */
+@Service
+@Slf4j
+public class PetTransferService {
+
+    private static final String CSV_HEADER = "id,name,type,mood,energyLevel,hungerLevel,userId,username,createdAt,updatedAt";
+    private static final String CHECKPOINT_SUFFIX = ".progress";
+
+    private final PetRepository petRepository;
+    private final UserRepository userRepository;
+    private final PetReadCache petReadCache;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectProvider<ShardRoutingDataSource> shardRouting;
+    private final ObjectMapper objectMapper;
+    private final ThreadPoolTaskExecutor executor;
+    private final Path directory;
+    private final int chunkSize;
+    private final Duration jobTtl;
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private final Set<String> importing = ConcurrentHashMap.newKeySet();
+
+    public PetTransferService(PetRepository petRepository,
+                              UserRepository userRepository,
+                              PetReadCache petReadCache,
+                              TransactionTemplate transactionTemplate,
+                              ObjectProvider<ShardRoutingDataSource> shardRouting,
+                              ObjectMapper objectMapper,
+                              @Qualifier("petTransferExecutor") ThreadPoolTaskExecutor executor,
+                              @Value("${pets.transfer.directory:./transfers}") String directory,
+                              @Value("${pets.transfer.chunk-size:500}") int chunkSize,
+                              @Value("${pets.transfer.job-ttl:24h}") Duration jobTtl) {
+        this.petRepository = petRepository;
+        this.userRepository = userRepository;
+        this.petReadCache = petReadCache;
+        this.transactionTemplate = transactionTemplate;
+        this.shardRouting = shardRouting;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+        this.directory = Path.of(directory).toAbsolutePath().normalize();
+        this.chunkSize = chunkSize;
+        this.jobTtl = jobTtl;
+    }
+
+    public PetTransferJobDTO startExport(TransferFormatEnum format, boolean gzip) {
+        String id = UUID.randomUUID().toString();
+        String extension = format == TransferFormatEnum.CSV ? ".csv" : ".ndjson";
+        String fileName = "pets-export-" + id + extension + (gzip ? ".gz" : "");
+        Job job = new Job(id, "EXPORT", format, fileName);
+        job.totalRows = petRepository.count();
+        log.info("Starting export job {} of {} pets to '{}'.", id, job.totalRows, fileName);
+        submit(job, () -> runExport(job, gzip));
+        return job.toDto();
+    }
+
+    public PetTransferJobDTO startImport(PetImportRequestDTO request) {
+        Path file = resolve(request.fileName());
+        if (!Files.isRegularFile(file)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Import file not found in the transfer directory.");
+        }
+        String fileName = file.getFileName().toString();
+        if (!importing.add(fileName)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "This file is already being imported.");
+        }
+        Job job = new Job(UUID.randomUUID().toString(), "IMPORT", request.format(), fileName);
+        log.info("Starting import job {} from '{}'.", job.id, fileName);
+        submit(job, () -> runImport(job, file));
+        return job.toDto();
+    }
+
+    public PetTransferJobDTO resumeImport(String jobId) {
+        Job previous = findJob(jobId);
+        if (!"IMPORT".equals(previous.type) || previous.status != TransferStatusEnum.FAILED) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Only failed import jobs can be resumed.");
+        }
+        if (!previous.resumed.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "This import job has already been resumed.");
+        }
+        try {
+            return startImport(new PetImportRequestDTO(previous.fileName, previous.format));
+        } catch (RuntimeException e) {
+            previous.resumed.set(false);
+            throw e;
+        }
+    }
+
+    public PetTransferJobDTO getJob(String jobId) {
+        return findJob(jobId).toDto();
+    }
+
+    public List<PetTransferJobDTO> getJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((Job job) -> job.startedAt).reversed())
+                .map(Job::toDto)
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${pets.transfer.job-eviction-interval-ms:600000}")
+    public void evictFinishedJobs() {
+        LocalDateTime before = LocalDateTime.now().minus(jobTtl);
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt.isBefore(before));
+    }
+
+    private Job findJob(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Transfer job not found.");
+        }
+        return job;
+    }
+
+    private void submit(Job job, ThrowingRunnable work) {
+        jobs.put(job.id, job);
+        try {
+            executor.execute(() -> {
+                job.status = TransferStatusEnum.RUNNING;
+                TransferStatusEnum outcome = TransferStatusEnum.FAILED;
+                try {
+                    work.run();
+                    outcome = TransferStatusEnum.COMPLETED;
+                    log.info("Transfer job {} completed with {} rows.", job.id, job.processedRows.get());
+                } catch (Exception e) {
+                    job.error = e.getMessage();
+                    log.error("Transfer job {} failed after {} rows.", job.id, job.processedRows.get(), e);
+                } finally {
+                    job.finishedAt = LocalDateTime.now();
+                    // released before the outcome is visible, so a finished job can be resumed at once
+                    release(job);
+                    job.status = outcome;
+                }
+            });
+        } catch (TaskRejectedException e) {
+            jobs.remove(job.id);
+            release(job);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many transfer jobs queued. Try again later.");
+        }
+    }
+
+    private void release(Job job) {
+        if ("IMPORT".equals(job.type)) {
+            importing.remove(job.fileName);
+        }
+    }
+
+    private void runExport(Job job, boolean gzip) throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(job.fileName);
+        Path partial = directory.resolve(job.fileName + ".part");
+
+        try (OutputStream out = gzip ? new GZIPOutputStream(Files.newOutputStream(partial)) : Files.newOutputStream(partial);
+             BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            if (job.format == TransferFormatEnum.CSV) {
+                writer.write(CSV_HEADER);
+                writer.newLine();
+            }
+            long afterId = 0L;
+            List<PetEntity> chunk;
+            do {
+                chunk = petRepository.findChunkAfter(afterId, Limit.of(chunkSize));
+                // owners are read separately: with sharding the users table only exists on the home shard
+                Map<Long, String> usernames = userRepository.findAllById(chunk.stream().map(pet -> pet.getUser().getId()).distinct().toList())
+                        .stream().collect(Collectors.toMap(UserEntity::getId, UserEntity::getUsername));
+                for (PetEntity entity : chunk) {
+                    PetResponseDTO pet = new PetResponseDTO(entity.getId(), entity.getName(), entity.getPetType(), entity.getMood(),
+                            entity.getEnergyLevel(), entity.getHungerLevel(), entity.getUser().getId(),
+                            usernames.get(entity.getUser().getId()), entity.getCreatedAt(), entity.getUpdatedAt());
+                    writer.write(job.format == TransferFormatEnum.CSV ? toCsv(pet) : objectMapper.writeValueAsString(pet));
+                    writer.newLine();
+                }
+                if (!chunk.isEmpty()) {
+                    afterId = chunk.get(chunk.size() - 1).getId();
+                }
+                job.processedRows.addAndGet(chunk.size());
+            } while (chunk.size() == chunkSize);
+        }
+        Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void runImport(Job job, Path file) throws IOException {
+        Path checkpoint = file.resolveSibling(file.getFileName() + CHECKPOINT_SUFFIX);
+        long committed = Files.exists(checkpoint) ? Long.parseLong(Files.readString(checkpoint).trim()) : 0L;
+        job.processedRows.set(committed);
+        if (committed > 0) {
+            log.info("Import job {} resumes '{}' after {} committed rows.", job.id, job.fileName, committed);
+        }
+
+        try (InputStream in = file.getFileName().toString().endsWith(".gz")
+                ? new GZIPInputStream(Files.newInputStream(file)) : Files.newInputStream(file);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            if (job.format == TransferFormatEnum.CSV) {
+                reader.readLine();
+            }
+            // the checkpoint counts rows, so blank lines are skipped without counting, like below
+            String line;
+            long skipped = 0;
+            while (skipped < committed && (line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    skipped++;
+                }
+            }
+
+            // a previous attempt may have committed the next chunk and stopped before writing its checkpoint
+            boolean uncertain = committed > 0;
+            List<PetResponseDTO> batch = new ArrayList<>(chunkSize);
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                batch.add(job.format == TransferFormatEnum.CSV ? fromCsv(line) : objectMapper.readValue(line, PetResponseDTO.class));
+                if (batch.size() == chunkSize) {
+                    commitChunk(job, batch, checkpoint, uncertain);
+                    uncertain = false;
+                }
+            }
+            if (!batch.isEmpty()) {
+                commitChunk(job, batch, checkpoint, uncertain);
+            }
+        }
+        Files.deleteIfExists(checkpoint);
+    }
+
+    /**
+     * @param uncertain whether rows of the chunk may already be in the database; they are
+     *                  then looked up by owner, name and creation time and skipped if found
+     */
+    private void commitChunk(Job job, List<PetResponseDTO> batch, Path checkpoint, boolean uncertain) throws IOException {
+        List<PetEntity> pets = batch.stream()
+                .filter(pet -> !uncertain || !petRepository.existsImported(pet.userId(), pet.name(), pet.createdAt()))
+                .map(pet -> PetEntity.builder()
+                        .name(pet.name())
+                        .petType(pet.type())
+                        .mood(pet.mood())
+                        .energyLevel(pet.energyLevel())
+                        .hungerLevel(pet.hungerLevel())
+                        .user(userRepository.getReferenceById(pet.userId()))
+                        .createdAt(pet.createdAt())
+                        .updatedAt(pet.updatedAt())
+                        .build())
+                .toList();
+        if (uncertain && pets.size() < batch.size()) {
+            log.info("Import job {} skipped {} rows committed by the previous attempt.", job.id, batch.size() - pets.size());
+        }
+        save(pets);
+        petReadCache.evictAllPetLists();
+        long committed = job.processedRows.addAndGet(batch.size());
+        Path partial = checkpoint.resolveSibling(checkpoint.getFileName() + ".part");
+        Files.writeString(partial, Long.toString(committed));
+        Files.move(partial, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        batch.clear();
+    }
+
+    /**
+     * A local transaction cannot span shards, so a sharded chunk commits once per shard. A chunk
+     * cut short between two shards is completed on resume like any uncertain chunk.
+     */
+    private void save(List<PetEntity> pets) {
+        ShardRoutingDataSource shards = shardRouting.getIfAvailable();
+        if (shards == null) {
+            transactionTemplate.executeWithoutResult(status -> petRepository.saveAll(pets));
+            return;
+        }
+        Map<Integer, List<PetEntity>> byShard = pets.stream()
+                .collect(Collectors.groupingBy(pet -> shards.shardForUser(pet.getUser().getId()), LinkedHashMap::new, Collectors.toList()));
+        byShard.forEach((shard, group) -> {
+            Integer previous = ShardContext.enter(shard);
+            try {
+                transactionTemplate.executeWithoutResult(status -> petRepository.saveAll(group));
+            } finally {
+                ShardContext.restore(previous);
+            }
+        });
+    }
+
+    private Path resolve(String fileName) {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.getParent().equals(directory)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "The file must be directly inside the transfer directory.");
+        }
+        return file;
+    }
+
+    private static String toCsv(PetResponseDTO pet) {
+        return String.join(",",
+                String.valueOf(pet.id()), csvField(pet.name()), pet.type().name(), pet.mood().name(),
+                String.valueOf(pet.energyLevel()), String.valueOf(pet.hungerLevel()),
+                String.valueOf(pet.userId()), csvField(pet.username()),
+                String.valueOf(pet.createdAt()), String.valueOf(pet.updatedAt()));
+    }
+
+    private static String csvField(String value) {
+        String singleLine = value.replace('\r', ' ').replace('\n', ' ');
+        if (singleLine.indexOf(',') < 0 && singleLine.indexOf('"') < 0) {
+            return singleLine;
+        }
+        return '"' + singleLine.replace("\"", "\"\"") + '"';
+    }
+
+    private static PetResponseDTO fromCsv(String line) {
+        List<String> fields = new ArrayList<>(10);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        if (fields.size() != 10) {
+            throw new IllegalArgumentException("Expected 10 CSV columns but found " + fields.size() + ": " + line);
+        }
+        return new PetResponseDTO(
+                Long.valueOf(fields.get(0)), fields.get(1),
+                PetTypeEnum.valueOf(fields.get(2)), MoodEnum.valueOf(fields.get(3)),
+                Integer.valueOf(fields.get(4)), Integer.valueOf(fields.get(5)),
+                Long.valueOf(fields.get(6)), fields.get(7),
+                LocalDateTime.parse(fields.get(8)), LocalDateTime.parse(fields.get(9)));
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+
+    private static final class Job {
+        private final String id;
+        private final String type;
+        private final TransferFormatEnum format;
+        private final String fileName;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong processedRows = new AtomicLong();
+        private final AtomicBoolean resumed = new AtomicBoolean();
+        private volatile TransferStatusEnum status = TransferStatusEnum.QUEUED;
+        private volatile Long totalRows;
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+
+        private Job(String id, String type, TransferFormatEnum format, String fileName) {
+            this.id = id;
+            this.type = type;
+            this.format = format;
+            this.fileName = fileName;
+        }
+
+        private PetTransferJobDTO toDto() {
+            return new PetTransferJobDTO(id, type, format, fileName, status, processedRows.get(), totalRows,
+                    error, startedAt, finishedAt);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.ReactivePetRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Read-only pet operations of the reactive stack, with the same visibility rules as
+ * {@link PetService}: users see their own pets, admins see every pet.
+ */
+@Service
+@Profile("reactive")
+@Slf4j
+public class ReactivePetService {
+
+    private final ReactivePetRepository petRepository;
+
+    public ReactivePetService(ReactivePetRepository petRepository) {
+        this.petRepository = petRepository;
+    }
+
+    public Flux<PetResponseDTO> getMyPets(AuthenticatedUser currentUser) {
+        log.info("Request to obtain user pets '{}'.", currentUser.getUsername());
+        return petRepository.findByUserId(currentUser.getId(), currentUser.getUsername());
+    }
+
+    public Mono<PetResponseDTO> getPetById(Long petId, AuthenticatedUser currentUser) {
+        log.info("Request to obtain pet with ID: {} by the user '{}'.", petId, currentUser.getUsername());
+        Mono<PetResponseDTO> pet = currentUser.hasRole(RoleEnum.ADMIN)
+                ? petRepository.findById(petId)
+                : petRepository.findByIdAndUserId(petId, currentUser.getId(), currentUser.getUsername());
+        return pet.switchIfEmpty(Mono.error(() -> {
+            log.warn("Pet with ID {} Not found or user '{}' It has no permission.", petId, currentUser.getUsername());
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "Pet not found or you have no permission to see it.");
+        }));
+    }
+}
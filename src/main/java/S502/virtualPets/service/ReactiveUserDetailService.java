@@ -0,0 +1,68 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.enums.RoleEnum;
+import org.springframework.context.annotation.Profile;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive counterpart of {@link UserDetailServiceImpl#loadUserByUsername}: one query for
+ * the user and its role names, authorities from the shared {@link RoleSnapshotService}.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveUserDetailService implements ReactiveUserDetailsService {
+
+    private static final String USER_WITH_ROLES = """
+            select u.id, u.username, u.password, u.is_enabled, u.account_no_expired, u.account_no_locked,
+                   u.credential_no_expired, r.role_name
+            from users u
+            left join user_roles ur on ur.user_id = u.id
+            left join roles r on r.id = ur.role_id
+            where u.username = :username""";
+
+    private final DatabaseClient databaseClient;
+    private final RoleSnapshotService roleSnapshotService;
+
+    public ReactiveUserDetailService(DatabaseClient databaseClient, RoleSnapshotService roleSnapshotService) {
+        this.databaseClient = databaseClient;
+        this.roleSnapshotService = roleSnapshotService;
+    }
+
+    @Override
+    public Mono<UserDetails> findByUsername(String username) {
+        return databaseClient.sql(USER_WITH_ROLES)
+                .bind("username", username)
+                .map(row -> new UserRow(
+                        row.get("id", Long.class),
+                        row.get("username", String.class),
+                        row.get("password", String.class),
+                        Boolean.TRUE.equals(row.get("is_enabled", Boolean.class)),
+                        Boolean.TRUE.equals(row.get("account_no_expired", Boolean.class)),
+                        Boolean.TRUE.equals(row.get("account_no_locked", Boolean.class)),
+                        Boolean.TRUE.equals(row.get("credential_no_expired", Boolean.class)),
+                        row.get("role_name", String.class)))
+                .all()
+                .collectList()
+                .filter(rows -> !rows.isEmpty())
+                .map(rows -> {
+                    int roleMask = 0;
+                    for (UserRow row : rows) {
+                        if (row.roleName() != null) {
+                            roleMask |= AuthorityProfile.bit(RoleEnum.valueOf(row.roleName()));
+                        }
+                    }
+                    UserRow user = rows.get(0);
+                    return new AuthenticatedUser(user.id(), user.username(), user.password(), user.enabled(),
+                            user.accountNotExpired(), user.credentialNotExpired(), user.accountNotLocked(),
+                            roleSnapshotService.profileFor(roleMask));
+                });
+    }
+
+    private record UserRow(Long id, String username, String password, boolean enabled, boolean accountNotExpired,
+                           boolean accountNotLocked, boolean credentialNotExpired, String roleName) {
+    }
+}
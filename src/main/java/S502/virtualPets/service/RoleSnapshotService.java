@@ -0,0 +1,155 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Roles and permissions change almost never, so they are read once into an immutable
+ * snapshot instead of being joined into every user load. {@link #reload()} swaps in a
+ * fresh snapshot; readers always see a complete one. The first reader loads it, so requests
+ * served before startup completes never see an empty snapshot.
+ */
+@Service
+@Slf4j
+public class RoleSnapshotService {
+
+    private final RoleRepository roleRepository;
+    private final long minReloadIntervalNanos;
+    private volatile Snapshot snapshot;
+
+    public RoleSnapshotService(RoleRepository roleRepository,
+                               @Value("${security.roles.min-reload-interval:30s}") Duration minReloadInterval) {
+        this.roleRepository = roleRepository;
+        this.minReloadIntervalNanos = minReloadInterval.toNanos();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        snapshot();
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            return snapshot != null ? snapshot : reload();
+        }
+    }
+
+    public synchronized Snapshot reload() {
+        Map<String, GrantedAuthority> interned = new HashMap<>();
+        EnumMap<RoleEnum, RoleEntry> roles = new EnumMap<>(RoleEnum.class);
+        for (RoleEntity role : roleRepository.findAllWithPermissions()) {
+            List<GrantedAuthority> authorities = new ArrayList<>();
+            authorities.add(intern(interned, "ROLE_" + role.getRoleEnum().name()));
+            role.getPermissionEntities().stream()
+                    .map(permission -> intern(interned, permission.getPermissionsEnum().name()))
+                    .distinct()
+                    .forEach(authorities::add);
+            roles.put(role.getRoleEnum(), new RoleEntry(role.getId(), role.getRoleEnum(), List.copyOf(authorities)));
+        }
+        Snapshot loaded = new Snapshot(Collections.unmodifiableMap(roles), buildProfiles(roles), LocalDateTime.now(), System.nanoTime());
+        this.snapshot = loaded;
+        log.info("Role snapshot loaded with roles {} and {} authority profiles.", roles.keySet(), loaded.profiles().length);
+        return loaded;
+    }
+
+    private static GrantedAuthority intern(Map<String, GrantedAuthority> interned, String authority) {
+        return interned.computeIfAbsent(authority, SimpleGrantedAuthority::new);
+    }
+
+    /**
+     * One profile per subset of roles, indexed by the role bitmask. With a handful of
+     * roles this is a tiny table, and every user with the same roles shares one list.
+     */
+    private static AuthorityProfile[] buildProfiles(Map<RoleEnum, RoleEntry> roles) {
+        RoleEnum[] all = RoleEnum.values();
+        AuthorityProfile[] profiles = new AuthorityProfile[1 << all.length];
+        for (int mask = 0; mask < profiles.length; mask++) {
+            Set<GrantedAuthority> authorities = new LinkedHashSet<>();
+            for (RoleEnum role : all) {
+                RoleEntry entry = roles.get(role);
+                if ((mask & AuthorityProfile.bit(role)) != 0 && entry != null) {
+                    authorities.addAll(entry.authorities());
+                }
+            }
+            profiles[mask] = new AuthorityProfile(mask, List.copyOf(authorities));
+        }
+        return profiles;
+    }
+
+    public Snapshot current() {
+        return snapshot();
+    }
+
+    public AuthorityProfile profileFor(Collection<RoleEntity> roles) {
+        int mask = 0;
+        for (RoleEntity role : roles) {
+            mask |= AuthorityProfile.bit(role.getRoleEnum());
+        }
+        return profileFor(mask);
+    }
+
+    public AuthorityProfile profileFor(int roleMask) {
+        return snapshot().profiles()[roleMask];
+    }
+
+    /**
+     * Detached role references for the requested names, ready to be linked to a new user
+     * without querying the roles table. Unknown names are ignored.
+     */
+    public Set<RoleEntity> resolveRoles(List<String> roleNames) {
+        Set<RoleEntity> resolved = resolve(snapshot(), roleNames);
+        if (resolved.size() < roleNames.size() && reloadAllowed()) {
+            log.info("Roles {} not all found in the snapshot, reloading it.", roleNames);
+            resolved = resolve(reload(), roleNames);
+        }
+        return resolved;
+    }
+
+    private boolean reloadAllowed() {
+        Snapshot current = snapshot();
+        return System.nanoTime() - current.loadedAtNanos() > minReloadIntervalNanos || current.roles().isEmpty();
+    }
+
+    private static Set<RoleEntity> resolve(Snapshot snapshot, List<String> roleNames) {
+        Set<RoleEntity> resolved = new HashSet<>();
+        for (String name : roleNames) {
+            for (RoleEntry entry : snapshot.roles().values()) {
+                if (entry.roleEnum().name().equals(name)) {
+                    resolved.add(RoleEntity.builder().id(entry.id()).roleEnum(entry.roleEnum()).build());
+                }
+            }
+        }
+        return resolved;
+    }
+
+    public record RoleEntry(int id, RoleEnum roleEnum, List<GrantedAuthority> authorities) {
+    }
+
+    public record Snapshot(Map<RoleEnum, RoleEntry> roles, AuthorityProfile[] profiles, LocalDateTime loadedAt, long loadedAtNanos) {
+    }
+}
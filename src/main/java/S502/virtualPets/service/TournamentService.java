@@ -0,0 +1,131 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.dto.TournamentMatchDTO;
+import S502.virtualPets.dto.TournamentRequestDTO;
+import S502.virtualPets.dto.TournamentRoundDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import S502.virtualPets.utils.BattleEngine.Fighter;
+import S502.virtualPets.utils.TournamentSimulator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Knockout tournaments over the pets table. The simulation only reads pets: nobody's energy,
+ * hunger or mood changes, so any number of pets can take part without locking anything.
+ * Pets are loaded in keyset chunks on the bulk pool and the rounds are fought on the
+ * tournament fork-join pool. Cancelling the returned future stops the tournament before its
+ * next chunk or round.
+ */
+@Service
+@Slf4j
+public class TournamentService {
+
+    private final PetRepository petRepository;
+    private final ForkJoinPool tournamentPool;
+    private final int chunkSize;
+    private final int defaultMaxPets;
+    private final int defaultBestOf;
+
+    public TournamentService(PetRepository petRepository,
+                             @Qualifier("tournamentPool") ForkJoinPool tournamentPool,
+                             @Value("${pets.tournament.chunk-size:500}") int chunkSize,
+                             @Value("${pets.tournament.max-pets:1024}") int defaultMaxPets,
+                             @Value("${pets.tournament.best-of:3}") int defaultBestOf) {
+        this.petRepository = petRepository;
+        this.tournamentPool = tournamentPool;
+        this.chunkSize = chunkSize;
+        this.defaultMaxPets = defaultMaxPets;
+        this.defaultBestOf = defaultBestOf;
+    }
+
+    /**
+     * Starts a tournament and hands every finished round to {@code onRound}, in order. An
+     * exception thrown by {@code onRound} stops the tournament, and so does cancelling the
+     * returned future.
+     */
+    public CompletableFuture<Void> run(TournamentRequestDTO request, Consumer<TournamentRoundDTO> onRound) {
+        long seed = request != null && request.seed() != null ? request.seed() : ThreadLocalRandom.current().nextLong();
+        int maxPets = request != null && request.maxPets() != null ? request.maxPets() : defaultMaxPets;
+        int bestOf = request != null && request.bestOf() != null ? request.bestOf() : defaultBestOf;
+        if (bestOf % 2 == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bestOf must be odd so every match has a winner.");
+        }
+        log.info("Starting tournament with up to {} pets, best of {} (seed {}).", maxPets, bestOf, seed);
+
+        CompletableFuture<Void> tournament = new CompletableFuture<>();
+        tournamentPool.execute(WorkloadContext.bulk(() -> {
+            try {
+                play(tournament, seed, maxPets, bestOf, onRound);
+                tournament.complete(null);
+            } catch (CancellationException e) {
+                log.info("Tournament cancelled (seed {}).", seed);
+            } catch (Throwable e) {
+                tournament.completeExceptionally(e);
+            }
+        }));
+        return tournament;
+    }
+
+    private void play(CompletableFuture<Void> tournament, long seed, int maxPets, int bestOf, Consumer<TournamentRoundDTO> onRound) {
+        List<Fighter> entrants = loadEntrants(tournament, maxPets);
+        if (entrants.isEmpty()) {
+            onRound.accept(new TournamentRoundDTO(seed, 0, 0, List.of(), null));
+            return;
+        }
+        int[] entrantsLeft = {entrants.size()};
+        Fighter champion = TournamentSimulator.run(entrants, seed, bestOf, (round, matches) -> {
+            stopIfCancelled(tournament);
+            Long championId = matches.size() == 1 ? matches.get(0).winner().id() : null;
+            onRound.accept(new TournamentRoundDTO(seed, round, entrantsLeft[0], matches.stream()
+                    .map(match -> new TournamentMatchDTO(match.fighter().id(),
+                            match.opponent() != null ? match.opponent().id() : null,
+                            match.winner().id(), match.fighterWins(), match.opponentWins()))
+                    .toList(), championId));
+            entrantsLeft[0] = matches.size();
+        });
+        if (entrants.size() == 1) {
+            onRound.accept(new TournamentRoundDTO(seed, 0, 1, List.of(), champion.id()));
+        }
+        log.info("Tournament with {} pets won by pet {} (seed {}).", entrants.size(), champion.id(), seed);
+    }
+
+    private List<Fighter> loadEntrants(CompletableFuture<Void> tournament, int maxPets) {
+        List<Fighter> entrants = new ArrayList<>();
+        long afterId = 0L;
+        List<PetEntity> chunk;
+        int limit;
+        do {
+            stopIfCancelled(tournament);
+            limit = Math.min(chunkSize, maxPets - entrants.size());
+            chunk = petRepository.findChunkAfter(afterId, Limit.of(limit));
+            for (PetEntity pet : chunk) {
+                entrants.add(new Fighter(pet.getId(), pet.getPetType(), pet.getEnergyLevel(), pet.getHungerLevel(), pet.getMood()));
+            }
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == limit && entrants.size() < maxPets);
+        return entrants;
+    }
+
+    private static void stopIfCancelled(CompletableFuture<Void> tournament) {
+        if (tournament.isCancelled()) {
+            throw new CancellationException();
+        }
+    }
+}
@@ -1,28 +1,27 @@
 package S502.virtualPets.service;
 
+import S502.virtualPets.config.jfr.PrincipalLoadEvent;
 import S502.virtualPets.dto.AuthCreateUserRequestDTO;
 import S502.virtualPets.dto.AuthLoginRequestDTO;
 import S502.virtualPets.dto.AuthResponseDTO;
 import S502.virtualPets.persistence.entity.RoleEntity;
 import S502.virtualPets.persistence.entity.UserEntity;
-import S502.virtualPets.persistence.repository.RoleRepository;
 import S502.virtualPets.persistence.repository.UserRepository;
 import S502.virtualPets.utils.JwtUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
-import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class UserDetailServiceImpl implements UserDetailsService {
@@ -30,37 +29,46 @@ public class UserDetailServiceImpl implements UserDetailsService {
     private final UserRepository userRepository;
     private final JwtUtils jwtUtils;
     private final PasswordEncoder passwordEncoder;
-    private final RoleRepository roleRepository;
+    private final RoleSnapshotService roleSnapshotService;
+    private final UsernameAvailabilityService usernameAvailabilityService;
 
-    public UserDetailServiceImpl(UserRepository userRepository, JwtUtils jwtUtils, PasswordEncoder passwordEncoder, RoleRepository roleRepository) {
+    public UserDetailServiceImpl(UserRepository userRepository, JwtUtils jwtUtils, PasswordEncoder passwordEncoder, RoleSnapshotService roleSnapshotService,
+                                 UsernameAvailabilityService usernameAvailabilityService) {
         this.userRepository = userRepository;
         this.jwtUtils = jwtUtils;
         this.passwordEncoder = passwordEncoder;
-        this.roleRepository = roleRepository;
+        this.roleSnapshotService = roleSnapshotService;
+        this.usernameAvailabilityService = usernameAvailabilityService;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        PrincipalLoadEvent event = new PrincipalLoadEvent();
+        event.begin();
+        event.username = username;
+        try {
+            return loadPrincipal(username, event);
+        } finally {
+            event.commit();
+        }
+    }
 
+    private UserDetails loadPrincipal(String username, PrincipalLoadEvent event) {
         UserEntity userEntity = userRepository.findUserEntityByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User " + username + " does not exist"));
 
-        List<SimpleGrantedAuthority> authorityList = new ArrayList<>();
-
-        userEntity.getRoles()
-                .forEach(role -> authorityList.add(new SimpleGrantedAuthority("ROLE_".concat(role.getRoleEnum().name()))));
+        AuthorityProfile profile = roleSnapshotService.profileFor(userEntity.getRoles());
+        event.found = true;
+        event.authorities = profile.authorities().size();
 
-        userEntity.getRoles().stream()
-                .flatMap(role -> role.getPermissionEntities().stream())
-                .forEach(permission -> authorityList.add(new SimpleGrantedAuthority(permission.getPermissionsEnum().name())));
-
-        return new User(userEntity.getUsername(),
+        return new AuthenticatedUser(userEntity.getId(),
+                userEntity.getUsername(),
                 userEntity.getPassword(),
                 userEntity.isEnable(),
                 userEntity.isAccountNotExpired(),
                 userEntity.isCredentialNoExpired(),
                 userEntity.isAccountNoLocked(),
-                authorityList);
+                profile);
 
     }
 
@@ -87,7 +95,12 @@ public class UserDetailServiceImpl implements UserDetailsService {
         String password = authCreateUserRequestDTO.password();
         List<String> roleRequest = authCreateUserRequestDTO.roleRequestDTO().roleListName();
 
-        Set<RoleEntity> roleEntitySet = roleRepository.findRoleEntitiesByRoleEnumIn(roleRequest).stream().collect(Collectors.toSet());
+        // before hashing the password: duplicates and bots retrying taken names are turned away cheaply
+        if (!usernameAvailabilityService.isAvailable(username)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Username " + username + " is already taken.");
+        }
+
+        Set<RoleEntity> roleEntitySet = roleSnapshotService.resolveRoles(roleRequest);
 
         if (roleEntitySet.isEmpty()){
             throw new IllegalArgumentException("The specified role does not exist");
@@ -103,18 +116,23 @@ public class UserDetailServiceImpl implements UserDetailsService {
                 .credentialNoExpired(true)
                 .build();
 
-        UserEntity userCreated = userRepository.save(userEntity);
-
-        ArrayList<SimpleGrantedAuthority> authorityList = new ArrayList<>();
-
-        userCreated.getRoles().forEach(role -> authorityList.add(new SimpleGrantedAuthority("ROLE_".concat(role.getRoleEnum().name()))));
+        UserEntity userCreated;
+        try {
+            userCreated = userRepository.save(userEntity);
+        } catch (DataIntegrityViolationException e) {
+            // taken in the meantime, or by another instance whose sign-up this filter has not seen yet;
+            // any other constraint is not the caller's conflict
+            if (!userRepository.existsByUsername(username)) {
+                throw e;
+            }
+            usernameAvailabilityService.record(username);
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Username " + username + " is already taken.");
+        }
+        usernameAvailabilityService.record(userCreated.getUsername());
 
-        userCreated.getRoles()
-                .stream()
-                .flatMap(role -> role.getPermissionEntities().stream())
-                .forEach(permission -> authorityList.add(new SimpleGrantedAuthority(permission.getPermissionsEnum().name())));
+        AuthorityProfile profile = roleSnapshotService.profileFor(userCreated.getRoles());
 
-        Authentication authentication = new UsernamePasswordAuthenticationToken(userCreated.getUsername(), userCreated.getPassword(), authorityList);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(userCreated.getUsername(), userCreated.getPassword(), profile.authorities());
         String accessToken = jwtUtils.createToken(authentication);
 
         AuthResponseDTO authResponseDTO = new AuthResponseDTO(userCreated.getUsername(), "User created successfully", accessToken, true);
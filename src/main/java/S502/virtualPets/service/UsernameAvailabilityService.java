@@ -0,0 +1,132 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import S502.virtualPets.utils.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Answers "is this username taken?" from a Bloom filter of every username, so most free
+ * names are confirmed without touching the database. A "maybe taken" answer is checked
+ * against the users table. The filter is built from the table at startup and rebuilt
+ * periodically, which resizes it and picks up users created by other instances; until
+ * the first build every question goes to the database.
+ * <p>
+ * A "free" answer is therefore a hint: a name taken on another instance since the last
+ * rebuild still reads as free here. Sign-up does not rely on it, the unique username
+ * constraint has the last word.
+ */
+@Service
+@Slf4j
+public class UsernameAvailabilityService {
+
+    private final UserRepository userRepository;
+    private final double falsePositiveRate;
+    private final long minCapacity;
+    private final int chunkSize;
+    private final Counter filtered;
+    private final Counter confirmed;
+    private final Counter falsePositives;
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+
+    public UsernameAvailabilityService(UserRepository userRepository, MeterRegistry meterRegistry,
+                                       @Value("${security.username-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                       @Value("${security.username-filter.min-capacity:100000}") long minCapacity,
+                                       @Value("${security.username-filter.chunk-size:5000}") int chunkSize) {
+        this.userRepository = userRepository;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+        this.chunkSize = chunkSize;
+        this.filtered = lookups(meterRegistry, "filtered");
+        this.confirmed = lookups(meterRegistry, "taken");
+        this.falsePositives = lookups(meterRegistry, "false_positive");
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("virtualpets.username.lookups")
+                .description("Username availability checks by how they were answered")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${security.username-filter.rebuild-interval-ms:3600000}",
+            initialDelayString = "${security.username-filter.rebuild-interval-ms:3600000}")
+    public void rebuild() {
+        WorkloadContext.bulk(this::load).run();
+    }
+
+    private synchronized void load() {
+        long users = userRepository.count();
+        // twice the current users leaves room for sign-ups until the next rebuild
+        BloomFilter fresh = BloomFilter.create(Math.max(minCapacity, users * 2), falsePositiveRate);
+        // sign-ups during the scan go to both filters, so none falls between them
+        building = fresh;
+        long loaded = 0;
+        String after = "";
+        List<String> chunk;
+        do {
+            chunk = userRepository.findUsernamesAfter(after, Limit.of(chunkSize));
+            chunk.forEach(username -> fresh.put(key(username)));
+            loaded += chunk.size();
+            if (!chunk.isEmpty()) {
+                after = chunk.get(chunk.size() - 1);
+            }
+        } while (chunk.size() == chunkSize);
+        filter = fresh;
+        building = null;
+        log.info("Username filter built with {} users ({} KB, {} hash functions).",
+                loaded, fresh.bitSize() / 8 / 1024, fresh.hashFunctions());
+    }
+
+    /**
+     * False when the username is not taken as far as this instance knows, see the class comment.
+     */
+    public boolean mightBeTaken(String username) {
+        BloomFilter current = filter;
+        return current == null || current.mightContain(key(username));
+    }
+
+    public boolean isAvailable(String username) {
+        if (!mightBeTaken(username)) {
+            filtered.increment();
+            return true;
+        }
+        boolean taken = userRepository.existsByUsername(username);
+        (taken ? confirmed : falsePositives).increment();
+        return !taken;
+    }
+
+    public void record(String username) {
+        String key = key(username);
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(key);
+        }
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(key);
+        }
+    }
+
+    /** The users table compares usernames case-insensitively, so the filter must as well. */
+    private static String key(String username) {
+        return username.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,111 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+
+import java.util.SplittableRandom;
+
+/**
+ * Resolves a fight between two pets. Both attack once per exchange until one is knocked out
+ * or {@value #MAX_EXCHANGES} exchanges have passed. Attack grows with energy, drops with
+ * hunger, and is scaled by mood and by the type matchup. All randomness comes from the given
+ * generator, so the same seed always gives the same fight.
+ */
+public final class BattleEngine {
+
+    public record Fighter(Long id, PetTypeEnum type, int energyLevel, int hungerLevel, MoodEnum mood) {
+    }
+
+    /**
+     * @param winner state of the winner after the fight
+     * @param loser  state of the loser after the fight
+     */
+    public record Outcome(Fighter winner, Fighter loser, int exchanges) {
+    }
+
+    static final int MAX_EXCHANGES = 20;
+
+    private static final double[] BASE_ATTACK = {12.0, 11.5, 11.0, 6.0};
+
+    /** Attack multiplier, attacker type by defender type, in {@link PetTypeEnum} order. */
+    private static final double[][] MATCHUPS = {
+            // defender: GOKU, VEGETA, FREZER, MR_SATAN
+            {1.00, 1.10, 1.25, 1.00}, // GOKU
+            {0.95, 1.00, 1.15, 1.00}, // VEGETA
+            {0.85, 1.10, 1.00, 1.00}, // FREZER
+            {1.30, 1.30, 1.30, 1.00}  // MR_SATAN
+    };
+
+    /** Attack multiplier per mood, in {@link MoodEnum} order: HAPPY, NEUTRAL, SAD, ANGRY, EXCITED. */
+    private static final double[] MOOD_ATTACK = {1.05, 1.00, 0.85, 1.15, 1.10};
+    private static final double[] MOOD_CRITICAL = {0.10, 0.10, 0.05, 0.20, 0.15};
+
+    private BattleEngine() {
+    }
+
+    public static Outcome fight(Fighter first, Fighter second, SplittableRandom random) {
+        double firstHealth = maxHealth(first);
+        double secondHealth = maxHealth(second);
+        double firstAttack = attack(first, second);
+        double secondAttack = attack(second, first);
+        // excited pets strike first, otherwise the order is a coin flip
+        boolean firstStrikesFirst = first.mood() == MoodEnum.EXCITED == (second.mood() == MoodEnum.EXCITED)
+                ? random.nextBoolean()
+                : first.mood() == MoodEnum.EXCITED;
+
+        int exchanges = 0;
+        while (exchanges < MAX_EXCHANGES && firstHealth > 0 && secondHealth > 0) {
+            exchanges++;
+            if (firstStrikesFirst) {
+                secondHealth -= hit(firstAttack, first.mood(), random);
+                if (secondHealth > 0) {
+                    firstHealth -= hit(secondAttack, second.mood(), random);
+                }
+            } else {
+                firstHealth -= hit(secondAttack, second.mood(), random);
+                if (firstHealth > 0) {
+                    secondHealth -= hit(firstAttack, first.mood(), random);
+                }
+            }
+        }
+
+        double firstLeft = firstHealth / maxHealth(first);
+        double secondLeft = secondHealth / maxHealth(second);
+        boolean firstWins = firstLeft != secondLeft ? firstLeft > secondLeft : first.id() < second.id();
+        return firstWins
+                ? new Outcome(afterWin(first, exchanges), afterLoss(second, exchanges, secondLeft), exchanges)
+                : new Outcome(afterWin(second, exchanges), afterLoss(first, exchanges, firstLeft), exchanges);
+    }
+
+    private static double maxHealth(Fighter fighter) {
+        return 40 + fighter.energyLevel();
+    }
+
+    private static double attack(Fighter attacker, Fighter defender) {
+        return BASE_ATTACK[attacker.type().ordinal()]
+                * MATCHUPS[attacker.type().ordinal()][defender.type().ordinal()]
+                * (0.5 + attacker.energyLevel() / 200.0)
+                * (1 - attacker.hungerLevel() / 250.0)
+                * MOOD_ATTACK[attacker.mood().ordinal()];
+    }
+
+    private static double hit(double attack, MoodEnum mood, SplittableRandom random) {
+        double damage = attack * (0.85 + 0.3 * random.nextDouble());
+        return random.nextDouble() < MOOD_CRITICAL[mood.ordinal()] ? damage * 1.5 : damage;
+    }
+
+    private static Fighter afterWin(Fighter fighter, int exchanges) {
+        return new Fighter(fighter.id(), fighter.type(), clamp(fighter.energyLevel() - 2 * exchanges),
+                clamp(fighter.hungerLevel() + exchanges), MoodEnum.EXCITED);
+    }
+
+    private static Fighter afterLoss(Fighter fighter, int exchanges, double healthLeft) {
+        // losing on points makes a pet angry, a knockout sad
+        return new Fighter(fighter.id(), fighter.type(), clamp(fighter.energyLevel() - 3 * exchanges),
+                clamp(fighter.hungerLevel() + exchanges), healthLeft > 0 ? MoodEnum.ANGRY : MoodEnum.SAD);
+    }
+
+    private static int clamp(int level) {
+        return Math.max(0, Math.min(100, level));
+    }
+}
@@ -0,0 +1,151 @@
+package S502.virtualPets.utils;
+
+import java.time.Duration;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based circuit breaker. The outcomes of the last {@code windowSize} calls are kept in
+ * a ring; once at least {@code minimumCalls} are in it and the share of failures or of slow
+ * calls reaches its threshold, the breaker opens and rejects calls for {@code openDuration}.
+ * It then lets {@code halfOpenCalls} trial calls through: if they stay under the thresholds
+ * it closes with an empty window, otherwise it opens again.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    public record Policy(int windowSize, int minimumCalls, double failureRateThreshold, double slowCallRateThreshold,
+                         Duration slowCallDuration, Duration openDuration, int halfOpenCalls) {
+
+        public Policy {
+            if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize || halfOpenCalls < 1) {
+                throw new IllegalArgumentException("Invalid circuit breaker window: " + windowSize + "/" + minimumCalls + "/" + halfOpenCalls);
+            }
+        }
+    }
+
+    private static final byte SUCCESS = 0;
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    private final Policy policy;
+    private final LongSupplier nanoClock;
+    private final long slowCallNanos;
+    private final BiConsumer<State, State> onTransition;
+    private final byte[] outcomes;
+    private int next;
+    private int recorded;
+    private int failures;
+    private int slowCalls;
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int trialsPermitted;
+    private int trialsRecorded;
+
+    public CircuitBreaker(Policy policy, BiConsumer<State, State> onTransition) {
+        this(policy, onTransition, System::nanoTime);
+    }
+
+    public CircuitBreaker(Policy policy, BiConsumer<State, State> onTransition, LongSupplier nanoClock) {
+        this.policy = policy;
+        this.onTransition = onTransition;
+        this.nanoClock = nanoClock;
+        this.slowCallNanos = policy.slowCallDuration().toNanos();
+        this.outcomes = new byte[policy.windowSize()];
+    }
+
+    /**
+     * Asks to make a call. Every permitted call must be followed by {@link #record}.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (nanoClock.getAsLong() - openedAtNanos < policy.openDuration().toNanos()) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+            resetWindow();
+            trialsPermitted = 0;
+            trialsRecorded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialsPermitted >= policy.halfOpenCalls()) {
+                return false;
+            }
+            trialsPermitted++;
+        }
+        return true;
+    }
+
+    public synchronized void record(long durationNanos, boolean failed) {
+        if (state == State.OPEN) {
+            // a call let through before the breaker opened: its outcome is already known
+            return;
+        }
+        byte outcome = (byte) ((failed ? FAILURE : SUCCESS) | (durationNanos >= slowCallNanos ? SLOW : SUCCESS));
+        if (recorded == outcomes.length) {
+            forget(outcomes[next]);
+        } else {
+            recorded++;
+        }
+        outcomes[next] = outcome;
+        next = (next + 1) % outcomes.length;
+        failures += (outcome & FAILURE);
+        slowCalls += (outcome & SLOW) >> 1;
+
+        if (state == State.HALF_OPEN) {
+            trialsRecorded++;
+            if (exceedsThresholds()) {
+                open();
+            } else if (trialsRecorded >= policy.halfOpenCalls()) {
+                transition(State.CLOSED);
+                resetWindow();
+            }
+        } else if (recorded >= policy.minimumCalls() && exceedsThresholds()) {
+            open();
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Time until an open breaker lets trial calls through, zero otherwise.
+     */
+    public synchronized Duration retryAfter() {
+        if (state != State.OPEN) {
+            return Duration.ZERO;
+        }
+        long remaining = policy.openDuration().toNanos() - (nanoClock.getAsLong() - openedAtNanos);
+        return Duration.ofNanos(Math.max(0, remaining));
+    }
+
+    private boolean exceedsThresholds() {
+        return failures >= policy.failureRateThreshold() * recorded
+                || slowCalls >= policy.slowCallRateThreshold() * recorded;
+    }
+
+    private void open() {
+        openedAtNanos = nanoClock.getAsLong();
+        transition(State.OPEN);
+    }
+
+    private void forget(byte outcome) {
+        failures -= (outcome & FAILURE);
+        slowCalls -= (outcome & SLOW) >> 1;
+    }
+
+    private void resetWindow() {
+        next = 0;
+        recorded = 0;
+        failures = 0;
+        slowCalls = 0;
+    }
+
+    private void transition(State to) {
+        State from = state;
+        state = to;
+        onTransition.accept(from, to);
+    }
+}
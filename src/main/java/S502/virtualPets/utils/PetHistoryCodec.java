@@ -0,0 +1,98 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Packs pet state samples into bytes. Each sample stores, relative to the previous one, the
+ * time in milliseconds and the energy and hunger levels as zigzag varints, followed by the
+ * mood ordinal. A typical update takes 4 to 6 bytes.
+ */
+public final class PetHistoryCodec {
+
+    public record Sample(LocalDateTime at, int energyLevel, int hungerLevel, MoodEnum mood) {
+    }
+
+    private static final MoodEnum[] MOODS = MoodEnum.values();
+
+    private PetHistoryCodec() {
+    }
+
+    /**
+     * @param samples in chronological order
+     */
+    public static byte[] encode(List<Sample> samples) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(samples.size() * 6);
+        long previousMillis = samples.isEmpty() ? 0 : toMillis(samples.get(0).at());
+        int previousEnergy = 0;
+        int previousHunger = 0;
+        for (Sample sample : samples) {
+            long millis = toMillis(sample.at());
+            writeVarLong(out, zigzag(millis - previousMillis));
+            writeVarLong(out, zigzag(sample.energyLevel() - previousEnergy));
+            writeVarLong(out, zigzag(sample.hungerLevel() - previousHunger));
+            out.write(sample.mood().ordinal());
+            previousMillis = millis;
+            previousEnergy = sample.energyLevel();
+            previousHunger = sample.hungerLevel();
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @param firstAt time of the first sample, as stored next to the payload
+     */
+    public static List<Sample> decode(LocalDateTime firstAt, int sampleCount, byte[] payload) {
+        List<Sample> samples = new ArrayList<>(sampleCount);
+        int[] position = {0};
+        long millis = toMillis(firstAt);
+        int energy = 0;
+        int hunger = 0;
+        for (int i = 0; i < sampleCount; i++) {
+            millis += unzigzag(readVarLong(payload, position));
+            energy += (int) unzigzag(readVarLong(payload, position));
+            hunger += (int) unzigzag(readVarLong(payload, position));
+            MoodEnum mood = MOODS[payload[position[0]++]];
+            samples.add(new Sample(LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000), (int) Math.floorMod(millis, 1000) * 1_000_000, ZoneOffset.UTC),
+                    energy, hunger, mood));
+        }
+        return samples;
+    }
+
+    private static long toMillis(LocalDateTime at) {
+        return at.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] in, int[] position) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in[position[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
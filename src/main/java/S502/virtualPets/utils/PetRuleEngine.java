@@ -0,0 +1,421 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+import S502.virtualPets.persistence.enums.PetRuleEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Evaluates achievement and alert rules on pet state transitions, keeping only what the rules
+ * need per user: the packed state of each pet with one "holds" and one "raised" bit per rule,
+ * and how many pets of each type the user owns.
+ * <ul>
+ *     <li>A transition only evaluates the pet rules that read one of the fields it changed, and
+ *     the user rules when it changed the type counts, so its cost does not depend on how many
+ *     pets exist.</li>
+ *     <li>A rule with a {@code heldFor} duration is raised by {@link #fireDue} once its condition
+ *     held that long without interruption. Pending deadlines sit in a heap; a deadline whose
+ *     condition was broken in the meantime is simply skipped when it comes up.</li>
+ *     <li>{@code once} rules are achievements: raised at most once per pet (or user) and never
+ *     cleared. The others are alerts, cleared when their condition stops holding.</li>
+ * </ul>
+ * Users must be {@link #load loaded} before their first transition. All methods lock the engine;
+ * every call does a bounded amount of work.
+ */
+public class PetRuleEngine {
+
+    public record PetState(PetTypeEnum type, MoodEnum mood, int energyLevel, int hungerLevel) {
+    }
+
+    public record PetRule(PetRuleEnum rule, Set<PetFieldEnum> reads, Predicate<PetState> condition, Duration heldFor, boolean once) {
+    }
+
+    /**
+     * A condition on how many pets of each type a user owns, indexed by {@link PetTypeEnum} ordinal.
+     * User rules are achievements.
+     */
+    public record UserRule(PetRuleEnum rule, Predicate<int[]> condition) {
+    }
+
+    public record Outcome(PetRuleEnum rule, Long userId, Long petId, boolean raised, long atMillis) {
+    }
+
+    /**
+     * A pet as found in the database when its owner is loaded, with the time it last changed.
+     */
+    public record Snapshot(Long petId, PetState state, long changedAtMillis) {
+    }
+
+    /**
+     * An achievement already raised, {@code petId} is null for user rules.
+     */
+    public record Earned(PetRuleEnum rule, Long petId) {
+    }
+
+    private record Deadline(long dueMillis, Long userId, Long petId, int rule, long sinceMillis) {
+    }
+
+    // packed pet state: energy and hunger (0..100) in 7 bits each, then type and mood ordinals
+    private static final int HUNGER_SHIFT = 7;
+    private static final int TYPE_SHIFT = 14;
+    private static final int MOOD_SHIFT = 18;
+    private static final long LEVEL_MASK = 0x7F;
+    private static final long ORDINAL_MASK = 0xF;
+    // rule i keeps its "holds" bit at FLAGS_SHIFT + 2i and its "raised" bit right after it
+    private static final int FLAGS_SHIFT = 32;
+
+    private final PetRule[] petRules;
+    private final long[] ruleReads;
+    private final long[] heldForMillis;
+    private final UserRule[] userRules;
+    private final Map<Long, UserState> users = new HashMap<>();
+    private final Map<Long, Long> owners = new HashMap<>();
+    private final PriorityQueue<Deadline> deadlines = new PriorityQueue<>((a, b) -> Long.compare(a.dueMillis(), b.dueMillis()));
+
+    public PetRuleEngine(List<PetRule> petRules, List<UserRule> userRules) {
+        if (petRules.size() > (Long.SIZE - FLAGS_SHIFT) / 2 || userRules.size() > Long.SIZE) {
+            throw new IllegalArgumentException("Too many rules: " + petRules.size() + " pet rules, " + userRules.size() + " user rules.");
+        }
+        this.petRules = petRules.toArray(PetRule[]::new);
+        this.userRules = userRules.toArray(UserRule[]::new);
+        this.ruleReads = new long[this.petRules.length];
+        this.heldForMillis = new long[this.petRules.length];
+        for (int i = 0; i < this.petRules.length; i++) {
+            for (PetFieldEnum field : this.petRules[i].reads()) {
+                ruleReads[i] |= 1L << field.ordinal();
+            }
+            heldForMillis[i] = this.petRules[i].heldFor().toMillis();
+        }
+    }
+
+    public synchronized boolean isLoaded(Long userId) {
+        return users.containsKey(userId);
+    }
+
+    /**
+     * Sets up the state of a user from its pets and the achievements it already has, without
+     * raising anything. Conditions that already hold count as raised alerts, and held conditions
+     * are timed from when the pet last changed. Does nothing if the user is already loaded.
+     */
+    public synchronized void load(Long userId, Collection<Snapshot> pets, Collection<Earned> earned, long nowMillis) {
+        if (users.containsKey(userId)) {
+            return;
+        }
+        UserState user = new UserState(pets.size(), petRules.length);
+        for (Snapshot pet : pets) {
+            int index = user.add(pet.petId(), pack(pet.state()));
+            owners.put(pet.petId(), userId);
+            user.typeCounts[pet.state().type().ordinal()]++;
+            for (int rule = 0; rule < petRules.length; rule++) {
+                if (!petRules[rule].condition().test(pet.state())) {
+                    continue;
+                }
+                user.pets[index] |= holdsBit(rule);
+                if (heldForMillis[rule] > 0) {
+                    startHolding(userId, user, index, rule, pet.changedAtMillis());
+                } else if (!petRules[rule].once()) {
+                    user.pets[index] |= raisedBit(rule);
+                }
+            }
+        }
+        for (Earned achievement : earned) {
+            int userRule = userRuleIndex(achievement.rule());
+            if (achievement.petId() == null && userRule >= 0) {
+                user.earned |= 1L << userRule;
+                continue;
+            }
+            int rule = petRuleIndex(achievement.rule());
+            int index = achievement.petId() != null ? user.indexOf(achievement.petId()) : -1;
+            if (rule >= 0 && index >= 0) {
+                user.pets[index] |= raisedBit(rule);
+            }
+        }
+        user.lastUsedMillis = nowMillis;
+        users.put(userId, user);
+    }
+
+    /**
+     * Applies the new state of a pet of a loaded user, {@code null} once the pet is deleted.
+     */
+    public synchronized List<Outcome> apply(Long userId, Long petId, PetState after, long nowMillis) {
+        UserState user = users.get(userId);
+        if (user == null) {
+            throw new IllegalStateException("Rule state of user " + userId + " is not loaded.");
+        }
+        user.lastUsedMillis = nowMillis;
+        List<Outcome> outcomes = new ArrayList<>(0);
+        int index = user.indexOf(petId);
+
+        if (after == null) {
+            if (index < 0) {
+                return outcomes;
+            }
+            long previous = user.pets[index];
+            for (int rule = 0; rule < petRules.length; rule++) {
+                if (!petRules[rule].once() && (previous & raisedBit(rule)) != 0) {
+                    outcomes.add(new Outcome(petRules[rule].rule(), userId, petId, false, nowMillis));
+                }
+            }
+            user.remove(index);
+            owners.remove(petId);
+            user.typeCounts[typeOrdinal(previous)]--;
+            evaluateUserRules(userId, user, nowMillis, outcomes);
+            return outcomes;
+        }
+
+        long packed = pack(after);
+        long changed;
+        if (index < 0) {
+            index = user.add(petId, packed);
+            owners.put(petId, userId);
+            user.typeCounts[after.type().ordinal()]++;
+            changed = -1L;
+        } else {
+            long previous = user.pets[index];
+            changed = changedFields(previous, packed);
+            if ((changed & (1L << PetFieldEnum.TYPE.ordinal())) != 0) {
+                user.typeCounts[typeOrdinal(previous)]--;
+                user.typeCounts[after.type().ordinal()]++;
+            }
+            user.pets[index] = (previous & ~0xFFFFFFFFL) | packed;
+        }
+
+        for (int rule = 0; rule < petRules.length; rule++) {
+            if ((ruleReads[rule] & changed) != 0) {
+                evaluate(userId, user, index, rule, after, nowMillis, outcomes);
+            }
+        }
+        if ((changed & (1L << PetFieldEnum.TYPE.ordinal())) != 0) {
+            evaluateUserRules(userId, user, nowMillis, outcomes);
+        }
+        return outcomes;
+    }
+
+    /**
+     * Raises the held rules whose deadline passed with their condition still holding.
+     */
+    public synchronized List<Outcome> fireDue(long nowMillis) {
+        List<Outcome> outcomes = new ArrayList<>(0);
+        Deadline deadline;
+        while ((deadline = deadlines.peek()) != null && deadline.dueMillis() <= nowMillis) {
+            deadlines.poll();
+            UserState user = users.get(deadline.userId());
+            int index = user != null ? user.indexOf(deadline.petId()) : -1;
+            if (index < 0) {
+                continue;
+            }
+            int rule = deadline.rule();
+            long flags = user.pets[index];
+            if ((flags & holdsBit(rule)) == 0 || (flags & raisedBit(rule)) != 0
+                    || user.heldSince[index * petRules.length + rule] != deadline.sinceMillis()) {
+                continue;
+            }
+            user.pets[index] |= raisedBit(rule);
+            outcomes.add(new Outcome(petRules[rule].rule(), deadline.userId(), deadline.petId(), true, deadline.dueMillis()));
+        }
+        return outcomes;
+    }
+
+    /**
+     * The owner of a pet whose owner is loaded, null otherwise.
+     */
+    public synchronized Long ownerOf(Long petId) {
+        return owners.get(petId);
+    }
+
+    public synchronized void unload(Long userId) {
+        UserState user = users.remove(userId);
+        if (user != null) {
+            for (int i = 0; i < user.size; i++) {
+                owners.remove(user.petIds[i]);
+            }
+        }
+    }
+
+    public synchronized void unloadAll() {
+        users.clear();
+        owners.clear();
+        deadlines.clear();
+    }
+
+    /**
+     * Forgets users without transitions since {@code idleSinceMillis}; they are loaded again on
+     * their next one.
+     */
+    public synchronized int unloadIdle(long idleSinceMillis) {
+        List<Long> idle = users.entrySet().stream()
+                .filter(entry -> entry.getValue().lastUsedMillis < idleSinceMillis)
+                .map(Map.Entry::getKey)
+                .toList();
+        idle.forEach(this::unload);
+        deadlines.removeIf(deadline -> !users.containsKey(deadline.userId()));
+        return idle.size();
+    }
+
+    public synchronized int loadedUsers() {
+        return users.size();
+    }
+
+    public synchronized int pendingDeadlines() {
+        return deadlines.size();
+    }
+
+    private void evaluate(Long userId, UserState user, int index, int rule, PetState after, long nowMillis, List<Outcome> outcomes) {
+        long flags = user.pets[index];
+        boolean held = (flags & holdsBit(rule)) != 0;
+        boolean holds = petRules[rule].condition().test(after);
+        if (holds == held) {
+            return;
+        }
+        Long petId = user.petIds[index];
+        if (holds) {
+            user.pets[index] |= holdsBit(rule);
+            if (heldForMillis[rule] > 0) {
+                startHolding(userId, user, index, rule, nowMillis);
+            } else if ((flags & raisedBit(rule)) == 0) {
+                user.pets[index] |= raisedBit(rule);
+                outcomes.add(new Outcome(petRules[rule].rule(), userId, petId, true, nowMillis));
+            }
+            return;
+        }
+        user.pets[index] &= ~holdsBit(rule);
+        if (!petRules[rule].once() && (flags & raisedBit(rule)) != 0) {
+            user.pets[index] &= ~raisedBit(rule);
+            outcomes.add(new Outcome(petRules[rule].rule(), userId, petId, false, nowMillis));
+        }
+    }
+
+    private void evaluateUserRules(Long userId, UserState user, long nowMillis, List<Outcome> outcomes) {
+        for (int rule = 0; rule < userRules.length; rule++) {
+            if ((user.earned & (1L << rule)) == 0 && userRules[rule].condition().test(user.typeCounts)) {
+                user.earned |= 1L << rule;
+                outcomes.add(new Outcome(userRules[rule].rule(), userId, null, true, nowMillis));
+            }
+        }
+    }
+
+    private void startHolding(Long userId, UserState user, int index, int rule, long sinceMillis) {
+        if ((user.pets[index] & raisedBit(rule)) != 0 && petRules[rule].once()) {
+            return;
+        }
+        user.heldSince[index * petRules.length + rule] = sinceMillis;
+        deadlines.add(new Deadline(sinceMillis + heldForMillis[rule], userId, user.petIds[index], rule, sinceMillis));
+    }
+
+    private int petRuleIndex(PetRuleEnum rule) {
+        for (int i = 0; i < petRules.length; i++) {
+            if (petRules[i].rule() == rule) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int userRuleIndex(PetRuleEnum rule) {
+        for (int i = 0; i < userRules.length; i++) {
+            if (userRules[i].rule() == rule) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static long pack(PetState state) {
+        return (state.energyLevel() & LEVEL_MASK)
+                | (state.hungerLevel() & LEVEL_MASK) << HUNGER_SHIFT
+                | (long) state.type().ordinal() << TYPE_SHIFT
+                | (long) state.mood().ordinal() << MOOD_SHIFT;
+    }
+
+    private static long changedFields(long previous, long packed) {
+        long diff = previous ^ packed;
+        long changed = 0;
+        if ((diff & LEVEL_MASK) != 0) {
+            changed |= 1L << PetFieldEnum.ENERGY_LEVEL.ordinal();
+        }
+        if ((diff >>> HUNGER_SHIFT & LEVEL_MASK) != 0) {
+            changed |= 1L << PetFieldEnum.HUNGER_LEVEL.ordinal();
+        }
+        if ((diff >>> TYPE_SHIFT & ORDINAL_MASK) != 0) {
+            changed |= 1L << PetFieldEnum.TYPE.ordinal();
+        }
+        if ((diff >>> MOOD_SHIFT & ORDINAL_MASK) != 0) {
+            changed |= 1L << PetFieldEnum.MOOD.ordinal();
+        }
+        return changed;
+    }
+
+    private static int typeOrdinal(long packed) {
+        return (int) (packed >>> TYPE_SHIFT & ORDINAL_MASK);
+    }
+
+    private static long holdsBit(int rule) {
+        return 1L << (FLAGS_SHIFT + 2 * rule);
+    }
+
+    private static long raisedBit(int rule) {
+        return 1L << (FLAGS_SHIFT + 2 * rule + 1);
+    }
+
+    /**
+     * Parallel arrays over the pets of one user; users own a handful of pets, so lookups scan.
+     */
+    private static final class UserState {
+
+        private final int rules;
+        private long[] petIds;
+        private long[] pets;
+        private long[] heldSince;
+        private int size;
+        private final int[] typeCounts = new int[PetTypeEnum.values().length];
+        private long earned;
+        private long lastUsedMillis;
+
+        private UserState(int capacity, int rules) {
+            this.rules = rules;
+            int initial = Math.max(4, capacity);
+            this.petIds = new long[initial];
+            this.pets = new long[initial];
+            this.heldSince = new long[initial * rules];
+        }
+
+        private int indexOf(long petId) {
+            for (int i = 0; i < size; i++) {
+                if (petIds[i] == petId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private int add(long petId, long packed) {
+            if (size == petIds.length) {
+                petIds = Arrays.copyOf(petIds, size * 2);
+                pets = Arrays.copyOf(pets, size * 2);
+                heldSince = Arrays.copyOf(heldSince, size * 2 * rules);
+            }
+            petIds[size] = petId;
+            pets[size] = packed;
+            Arrays.fill(heldSince, size * rules, (size + 1) * rules, 0);
+            return size++;
+        }
+
+        private void remove(int index) {
+            int last = --size;
+            petIds[index] = petIds[last];
+            pets[index] = pets[last];
+            System.arraycopy(heldSince, last * rules, heldSince, index * rules, rules);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package S502.virtualPets.utils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache that keeps serving a value after it expires when reloading it fails.
+ * <ul>
+ *     <li>Younger than {@code refreshAfter}: served as is.</li>
+ *     <li>Between {@code refreshAfter} and {@code ttl}: served as is, and reloaded once in the
+ *     background so hot keys rarely expire.</li>
+ *     <li>Older than {@code ttl}: reloaded on the caller's thread. If the load fails with an
+ *     exception the {@code fallback} accepts and the value is younger than
+ *     {@code ttl + maxStale}, the old value is returned marked as stale.</li>
+ * </ul>
+ * Every invalidation bumps a generation number, and a load only stores its value if no
+ * invalidation happened while it ran, so a slow load cannot bring back what a write removed.
+ * <p>
+ * When callers may only see some values, {@code visible} tells whether the caller may see the
+ * cached one. A caller that may not neither gets it back as stale nor evicts it when its own
+ * load finds nothing: that answer is about the caller, not about the value.
+ */
+public class StaleWhileRevalidateCache<K, V> {
+
+    public record Read<V>(V value, Duration age, boolean stale) {
+    }
+
+    private record Entry<V>(V value, long loadedAtNanos) {
+    }
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong generation = new AtomicLong();
+    private final long refreshAfterNanos;
+    private final long ttlNanos;
+    private final long maxAgeNanos;
+    private final int maxEntries;
+    private final Executor refreshExecutor;
+    private final Predicate<Throwable> fallback;
+    private final Consumer<String> onRead;
+    private final LongSupplier nanoClock;
+
+    public StaleWhileRevalidateCache(Duration refreshAfter, Duration ttl, Duration maxStale, int maxEntries,
+                                     Executor refreshExecutor, Predicate<Throwable> fallback, Consumer<String> onRead) {
+        this(refreshAfter, ttl, maxStale, maxEntries, refreshExecutor, fallback, onRead, System::nanoTime);
+    }
+
+    public StaleWhileRevalidateCache(Duration refreshAfter, Duration ttl, Duration maxStale, int maxEntries,
+                                     Executor refreshExecutor, Predicate<Throwable> fallback, Consumer<String> onRead,
+                                     LongSupplier nanoClock) {
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.ttlNanos = ttl.toNanos();
+        this.maxAgeNanos = ttl.plus(maxStale).toNanos();
+        this.maxEntries = maxEntries;
+        this.refreshExecutor = refreshExecutor;
+        this.fallback = fallback;
+        this.onRead = onRead;
+        this.nanoClock = nanoClock;
+    }
+
+    public Read<V> get(K key, Supplier<V> loader) {
+        return get(key, loader, value -> true);
+    }
+
+    public Read<V> get(K key, Supplier<V> loader, Predicate<V> visible) {
+        Entry<V> entry = entries.get(key);
+        long now = nanoClock.getAsLong();
+        long age = entry != null ? now - entry.loadedAtNanos() : Long.MAX_VALUE;
+        if (age < ttlNanos) {
+            if (age >= refreshAfterNanos && refreshing.add(key)) {
+                refreshInBackground(key, loader);
+                onRead.accept("refresh");
+            } else {
+                onRead.accept("hit");
+            }
+            return new Read<>(entry.value(), Duration.ofNanos(age), false);
+        }
+
+        long loadGeneration = generation.get();
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException e) {
+            if (entry == null || !visible.test(entry.value())) {
+                throw e;
+            }
+            if (age < maxAgeNanos && fallback.test(e)) {
+                onRead.accept("stale");
+                return new Read<>(entry.value(), Duration.ofNanos(age), true);
+            }
+            if (!fallback.test(e)) {
+                // the source answered, and the answer is that there is nothing to serve
+                entries.remove(key, entry);
+            }
+            throw e;
+        }
+        store(key, value, loadGeneration, now);
+        onRead.accept("miss");
+        return new Read<>(value, Duration.ZERO, false);
+    }
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        entries.remove(key);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Drops entries too old to be served even as stale ones.
+     */
+    public void evictExpired() {
+        long now = nanoClock.getAsLong();
+        entries.values().removeIf(entry -> now - entry.loadedAtNanos() >= maxAgeNanos);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void refreshInBackground(K key, Supplier<V> loader) {
+        long loadGeneration = generation.get();
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long startedAt = nanoClock.getAsLong();
+                    store(key, loader.get(), loadGeneration, startedAt);
+                } catch (RuntimeException e) {
+                    // the entry stays until it expires; the next read past the ttl tries again
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+        }
+    }
+
+    private void store(K key, V value, long loadGeneration, long loadedAtNanos) {
+        if (generation.get() != loadGeneration) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, loadedAtNanos));
+        // an invalidation that slipped in between the check and the put wins
+        if (generation.get() != loadGeneration) {
+            entries.remove(key);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.utils.BattleEngine.Fighter;
+import S502.virtualPets.utils.BattleEngine.Outcome;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * Single-elimination bracket. The entrants are shuffled with the seed, paired up, and every
+ * match of a round is fought in parallel on the fork-join pool the simulation runs in. Each
+ * match draws from its own generator derived from (seed, round, match), so the bracket is
+ * the same for a given seed however the work is scheduled.
+ */
+public final class TournamentSimulator {
+
+    /**
+     * @param opponent null for a bye
+     */
+    public record Match(Fighter fighter, Fighter opponent, Fighter winner, int fighterWins, int opponentWins) {
+    }
+
+    private static final int SEQUENTIAL_THRESHOLD = 16;
+
+    private TournamentSimulator() {
+    }
+
+    /**
+     * Runs the whole bracket on the calling thread's fork-join pool (or the common pool).
+     *
+     * @param bestOf  battles per match; the first to win the majority advances
+     * @param onRound called after each round with its number, starting at 1, and its matches
+     * @return the champion, as it left its last battle
+     */
+    public static Fighter run(List<Fighter> entrants, long seed, int bestOf, BiConsumer<Integer, List<Match>> onRound) {
+        if (entrants.isEmpty()) {
+            throw new IllegalArgumentException("A tournament needs at least one entrant.");
+        }
+        Fighter[] field = entrants.toArray(Fighter[]::new);
+        shuffle(field, new SplittableRandom(seed));
+        int round = 0;
+        while (field.length > 1) {
+            round++;
+            Match[] matches = new Match[(field.length + 1) / 2];
+            new RoundTask(field, matches, seed, round, bestOf, 0, matches.length).invoke();
+            onRound.accept(round, Arrays.asList(matches));
+            field = Arrays.stream(matches).map(Match::winner).toArray(Fighter[]::new);
+        }
+        return field[0];
+    }
+
+    static Match play(Fighter fighter, Fighter opponent, SplittableRandom random, int bestOf) {
+        if (opponent == null) {
+            return new Match(fighter, null, fighter, 0, 0);
+        }
+        int needed = bestOf / 2 + 1;
+        int fighterWins = 0;
+        int opponentWins = 0;
+        Fighter winner = null;
+        while (fighterWins < needed && opponentWins < needed) {
+            // every battle of a match starts fresh; the winner keeps the state of the deciding one
+            Outcome outcome = BattleEngine.fight(fighter, opponent, random);
+            winner = outcome.winner();
+            if (winner.id().equals(fighter.id())) {
+                fighterWins++;
+            } else {
+                opponentWins++;
+            }
+        }
+        return new Match(fighter, opponent, winner, fighterWins, opponentWins);
+    }
+
+    private static void shuffle(Fighter[] field, SplittableRandom random) {
+        for (int i = field.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Fighter swap = field[i];
+            field[i] = field[j];
+            field[j] = swap;
+        }
+    }
+
+    /** SplitMix64 finalizer over the match coordinates. */
+    static long matchSeed(long seed, int round, int match) {
+        long z = seed + 0x9E3779B97F4A7C15L * round + 0xC2B2AE3D27D4EB4FL * (match + 1L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class RoundTask extends RecursiveAction {
+
+        private final Fighter[] field;
+        private final Match[] matches;
+        private final long seed;
+        private final int round;
+        private final int bestOf;
+        private final int from;
+        private final int to;
+
+        private RoundTask(Fighter[] field, Match[] matches, long seed, int round, int bestOf, int from, int to) {
+            this.field = field;
+            this.matches = matches;
+            this.seed = seed;
+            this.round = round;
+            this.bestOf = bestOf;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                for (int match = from; match < to; match++) {
+                    Fighter opponent = 2 * match + 1 < field.length ? field[2 * match + 1] : null;
+                    matches[match] = play(field[2 * match], opponent, new SplittableRandom(matchSeed(seed, round, match)), bestOf);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RoundTask(field, matches, seed, round, bestOf, from, middle),
+                    new RoundTask(field, matches, seed, round, bestOf, middle, to));
+        }
+    }
+}
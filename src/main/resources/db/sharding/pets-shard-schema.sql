@@ -0,0 +1,24 @@
+-- pets table for the non-home shards. Users live only on the home shard, so there is no
+-- foreign key to users here. Kept in sync with PetEntity by hand.
+create table if not exists pets (
+    id bigint not null auto_increment,
+    name varchar(50) not null,
+    pet_type varchar(50) not null,
+    mood varchar(255) not null,
+    energy_level integer not null,
+    hunger_level integer not null,
+    user_id bigint not null,
+    created_at datetime(6) not null,
+    updated_at datetime(6) not null,
+    deleted_at datetime(6),
+    primary key (id),
+    index idx_pets_user_id (user_id, id),
+    index idx_pets_name (name, id),
+    index idx_pets_type (pet_type, id),
+    index idx_pets_mood (mood, id),
+    index idx_pets_energy (energy_level, id),
+    index idx_pets_hunger (hunger_level, id),
+    index idx_pets_created_at (created_at, id),
+    index idx_pets_updated_at (updated_at, id),
+    index idx_pets_deleted_at (deleted_at)
+);
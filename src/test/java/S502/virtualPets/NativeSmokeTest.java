@@ -0,0 +1,129 @@
+package S502.virtualPets;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Auth and pet CRUD flows against an embedded database. Runs on the JVM with
+ * {@code ./mvnw test} and as a native image with {@code ./mvnw -PnativeTest test}.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("smoke")
+class NativeSmokeTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seedRoles() {
+        if (roleRepository.count() > 0) {
+            return;
+        }
+        Set<PermissionEntity> permissions = Arrays.stream(PermissionsEnum.values())
+                .map(permission -> PermissionEntity.builder().permissionsEnum(permission).build())
+                .collect(Collectors.toSet());
+        roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER).permissionEntities(permissions).build());
+    }
+
+    @Test
+    void signUpLogInAndManageAPet() throws Exception {
+        mockMvc.perform(post("/auth/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"username": "smoke", "password": "secret", "roleRequestDTO": {"roleListName": ["USER"]}}
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.jwt").isNotEmpty());
+
+        mockMvc.perform(get("/auth/username-available").param("username", "smoke"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.available").value(false));
+
+        mockMvc.perform(post("/auth/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"username": "smoke", "password": "other", "roleRequestDTO": {"roleListName": ["USER"]}}
+                                """))
+                .andExpect(status().isConflict());
+
+        MvcResult login = mockMvc.perform(post("/auth/log-in")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"username": "smoke", "password": "secret"}
+                                """))
+                .andExpect(status().isOk())
+                .andReturn();
+        String bearer = "Bearer " + read(login).get("jwt").asText();
+
+        MvcResult created = mockMvc.perform(post("/api/pets")
+                        .header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "Kakarot", "petType": "GOKU"}
+                                """))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.username").value("smoke"))
+                .andReturn();
+        long petId = read(created).get("id").asLong();
+
+        mockMvc.perform(get("/api/pets/my-pets").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(petId));
+
+        mockMvc.perform(put("/api/pets/{id}", petId)
+                        .header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"mood": "SAD", "energyLevel": 20}
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.mood").value("SAD"))
+                .andExpect(jsonPath("$.energyLevel").value(20));
+
+        mockMvc.perform(get("/api/pets/{id}", petId).header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Kakarot"));
+
+        mockMvc.perform(delete("/api/pets/{id}", petId).header("Authorization", bearer))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/pets/{id}", petId).header("Authorization", bearer))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode read(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,94 @@
+package S502.virtualPets.benchmark;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Bytes and latency trade-off of gzip on pet lists shaped like /api/pets/all.
+ * Run with {@code ./mvnw test -Pbenchmark}.
+ */
+@Tag("benchmark")
+class PetListCompressionBenchmarkTest {
+
+    private static final int[] LIST_SIZES = {10, 100, 1_000, 10_000};
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+    private static final double LINK_MBIT_PER_SECOND = 10.0;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void compareRawAndGzippedPetLists() throws IOException {
+        System.out.printf("%8s %12s %12s %7s %12s %12s %14s %14s%n",
+                "pets", "raw bytes", "gzip bytes", "ratio", "json ms", "gzip ms", "raw link ms", "gzip link ms");
+
+        for (int size : LIST_SIZES) {
+            List<PetResponseDTO> pets = pets(size);
+            byte[] json = objectMapper.writeValueAsBytes(pets);
+            byte[] gzipped = gzip(json);
+
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                gzip(objectMapper.writeValueAsBytes(pets));
+            }
+            long serializeNanos = 0;
+            long compressNanos = 0;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                byte[] body = objectMapper.writeValueAsBytes(pets);
+                long serialized = System.nanoTime();
+                gzip(body);
+                serializeNanos += serialized - start;
+                compressNanos += System.nanoTime() - serialized;
+            }
+
+            System.out.printf("%8d %12d %12d %6.1fx %12.3f %12.3f %14.2f %14.2f%n",
+                    size, json.length, gzipped.length, (double) json.length / gzipped.length,
+                    serializeNanos / 1e6 / MEASURED_ROUNDS, compressNanos / 1e6 / MEASURED_ROUNDS,
+                    transferMillis(json.length), transferMillis(gzipped.length));
+
+            if (size >= 100) {
+                assertThat(gzipped.length).isLessThan(json.length / 4);
+            }
+        }
+    }
+
+    private static List<PetResponseDTO> pets(int size) {
+        PetTypeEnum[] types = PetTypeEnum.values();
+        MoodEnum[] moods = MoodEnum.values();
+        LocalDateTime now = LocalDateTime.now();
+        List<PetResponseDTO> pets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            long userId = 1 + i % 50;
+            pets.add(new PetResponseDTO((long) i + 1, "Pet " + i, types[i % types.length], moods[i % moods.length],
+                    i % 101, (i * 7) % 101, userId, "user" + userId,
+                    now.minusMinutes(i), now.minusSeconds(i)));
+        }
+        return pets;
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private static double transferMillis(int bytes) {
+        return bytes * 8 / (LINK_MBIT_PER_SECOND * 1_000_000) * 1000;
+    }
+}
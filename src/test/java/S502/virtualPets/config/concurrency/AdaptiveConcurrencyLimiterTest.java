@@ -0,0 +1,75 @@
+package S502.virtualPets.config.concurrency;
+
+import S502.virtualPets.persistence.enums.RequestPriorityEnum;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    void lowerPrioritiesAreShedFirst() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new AdaptiveConcurrencyLimiter.Policy(10, 2, 10, 2.0, 0.9, 0.8, 0.5), clock::get);
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriorityEnum.LOW));
+        }
+        assertFalse(limiter.tryAcquire(RequestPriorityEnum.LOW));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriorityEnum.NORMAL));
+        }
+        assertFalse(limiter.tryAcquire(RequestPriorityEnum.NORMAL));
+        assertTrue(limiter.tryAcquire(RequestPriorityEnum.CRITICAL));
+        assertTrue(limiter.tryAcquire(RequestPriorityEnum.CRITICAL));
+        assertFalse(limiter.tryAcquire(RequestPriorityEnum.CRITICAL));
+        assertEquals(10, limiter.inFlight());
+
+        limiter.release("GET /api/pets/{id}", FAST);
+        assertFalse(limiter.tryAcquire(RequestPriorityEnum.LOW));
+        assertTrue(limiter.tryAcquire(RequestPriorityEnum.CRITICAL));
+    }
+
+    @Test
+    void limitShrinksWhenLatencyRisesAndGrowsBackWhenItRecovers() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+                new AdaptiveConcurrencyLimiter.Policy(20, 4, 40, 2.0, 0.5, 0.8, 0.5), clock::get);
+        for (int i = 0; i < 50; i++) {
+            runBusy(limiter, FAST);
+        }
+        int settled = limiter.limit();
+        assertTrue(settled > 20, "a busy but fast server earns a higher limit, got " + settled);
+
+        for (int i = 0; i < 10; i++) {
+            runBusy(limiter, SLOW);
+        }
+        assertEquals(4, limiter.limit());
+
+        for (int i = 0; i < 200; i++) {
+            runBusy(limiter, FAST);
+        }
+        assertTrue(limiter.limit() > 4, "the limit grows again once latency is back to normal");
+    }
+
+    // fills the current limit with critical requests and completes them with the given latency
+    private void runBusy(AdaptiveConcurrencyLimiter limiter, long durationNanos) {
+        int admitted = 0;
+        while (limiter.tryAcquire(RequestPriorityEnum.CRITICAL)) {
+            admitted++;
+        }
+        clock.addAndGet(durationNanos);
+        for (int i = 0; i < admitted; i++) {
+            limiter.release("GET /api/pets/my-pets", durationNanos);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package S502.virtualPets.config.filter;
+
+import S502.virtualPets.config.concurrency.AdaptiveConcurrencyLimiter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrencyLimitFilterTest {
+
+    private static final long CACHED_READ = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long BCRYPT = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private final AtomicLong clock = new AtomicLong();
+    // sequential requests never use half of the limit, so it cannot grow: any change is a cut
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+            new AdaptiveConcurrencyLimiter.Policy(10, 2, 20, 2.0, 0.5, 0.8, 0.5), clock::get);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiter,
+            List.of("/auth/**", "/api/pets/my-pets"), List.of("/api/pets/all"),
+            new ObjectMapper(), new SimpleMeterRegistry(), clock::get);
+
+    @Test
+    void slowLogInsDoNotLookLikeCongestionForCachedReadsOfTheSamePriority() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            handle("GET", "/api/pets/my-pets", "/api/pets/my-pets", 200, CACHED_READ);
+        }
+        for (int i = 0; i < 20; i++) {
+            handle("POST", "/auth/log-in", "/auth/log-in", 200, BCRYPT);
+        }
+        assertEquals(10, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void onlyHandledSuccessesAndServerErrorsAreSampled() throws Exception {
+        // fast rejections would set a baseline that the real requests then exceed many times over
+        for (int i = 0; i < 20; i++) {
+            handle("GET", "/api/pets/7", null, 401, CACHED_READ);
+            handle("GET", "/api/pets/7", null, 429, CACHED_READ);
+            handle("GET", "/api/pets/7", "/api/pets/{id}", 404, CACHED_READ);
+        }
+        for (int i = 0; i < 20; i++) {
+            handle("GET", "/api/pets/7", "/api/pets/{id}", 200, BCRYPT);
+        }
+        assertEquals(10, limiter.limit());
+
+        // server errors are load, and they are measured against the same route
+        for (int i = 0; i < 5; i++) {
+            handle("GET", "/api/pets/7", "/api/pets/{id}", 500, 10 * BCRYPT);
+        }
+        assertTrue(limiter.limit() < 10, "slow server errors cut the limit, got " + limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    private void handle(String method, String path, String pattern, int status, long durationNanos) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        request.setServletPath(path);
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            clock.addAndGet(durationNanos);
+            if (pattern != null) {
+                req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, pattern);
+            }
+            ((HttpServletResponse) res).setStatus(status);
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package S502.virtualPets.config.filter;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.service.RoleSnapshotService;
+import S502.virtualPets.utils.JwtUtils;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The limiter runs ahead of the JWT validator: a throttled request is answered from the token
+ * alone, without loading its user.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtualpets-ratelimit;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "security.rate-limit.api.capacity=1",
+        "security.rate-limit.api.refill-period=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("smoke")
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleSnapshotService roleSnapshotService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void throttledRequestsNeverLoadTheUser() throws Exception {
+        RoleEntity userRole = roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER)
+                .permissionEntities(Set.of(PermissionEntity.builder().permissionsEnum(PermissionsEnum.READ).build())).build());
+        roleSnapshotService.reload();
+        userRepository.save(UserEntity.builder().username("throttled").password("secret")
+                .isEnable(true).accountNotExpired(true).accountNoLocked(true).credentialNoExpired(true).roles(Set.of(userRole)).build());
+        String bearer = "Bearer " + jwtUtils.createToken(new UsernamePasswordAuthenticationToken("throttled", null, List.of()));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        mockMvc.perform(myPets(bearer)).andExpect(status().isOk());
+
+        long lookups = userLookups(statistics);
+        mockMvc.perform(myPets(bearer)).andExpect(status().isTooManyRequests());
+        assertEquals(lookups, userLookups(statistics), "a throttled request must not load its user");
+
+        // the bucket belongs to the verified user: a forged token falls back to the client address
+        mockMvc.perform(myPets(bearer + "x")).andExpect(status().isForbidden());
+    }
+
+    // the limiter matches on the servlet path, which MockMvc leaves empty unless told
+    private static MockHttpServletRequestBuilder myPets(String bearer) {
+        return get("/api/pets/my-pets").servletPath("/api/pets/my-pets").header("Authorization", bearer);
+    }
+
+    private static long userLookups(Statistics statistics) {
+        return statistics.getQueryExecutionCount() + statistics.getQueryCacheHitCount()
+                + statistics.getEntityLoadCount() + statistics.getSecondLevelCacheHitCount();
+    }
+}
@@ -0,0 +1,68 @@
+package S502.virtualPets.config.filter;
+
+import S502.virtualPets.persistence.enums.WorkloadEnum;
+import S502.virtualPets.persistence.workload.WorkloadContext;
+import S502.virtualPets.persistence.workload.WorkloadRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Requests to {@code pets.datasource.bulk.paths} take their connections from the bulk pool,
+ * every other request from the interactive one.
+ */
+@SpringBootTest
+@ActiveProfiles("smoke")
+class WorkloadFilterTest {
+
+    @Autowired
+    private FilterRegistrationBean<WorkloadFilter> workloadFilter;
+
+    @Autowired
+    private WorkloadRoutingDataSource dataSource;
+
+    @ParameterizedTest
+    @CsvSource({
+            "/api/pets/all, BULK, virtualpets-bulk",
+            "/api/pets/search, BULK, virtualpets-bulk",
+            "/api/admin/roles/reload, BULK, virtualpets-bulk",
+            "/api/pets/my-pets, INTERACTIVE, virtualpets-interactive",
+            "/auth/log-in, INTERACTIVE, virtualpets-interactive"
+    })
+    void connectionsComeFromThePoolOfTheEndpoint(String path, WorkloadEnum workload, String poolName) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setServletPath(path);
+        List<Object> seen = new ArrayList<>();
+
+        workloadFilter.getFilter().doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            seen.add(WorkloadContext.current());
+            try (Connection ignored = dataSource.getConnection()) {
+                seen.add(Stream.of(WorkloadEnum.values())
+                        .map(dataSource::pool)
+                        // a pool starts on its first connection request
+                        .filter(pool -> pool.getHikariPoolMXBean() != null && pool.getHikariPoolMXBean().getActiveConnections() > 0)
+                        .map(HikariDataSource::getPoolName)
+                        .toList());
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        assertEquals(List.of(workload, List.of(poolName)), seen);
+        assertEquals(WorkloadEnum.INTERACTIVE, WorkloadContext.current(), "the workload does not outlive the request");
+    }
+}
@@ -0,0 +1,77 @@
+package S502.virtualPets.config.jfr;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.service.PetService;
+import S502.virtualPets.utils.StaleWhileRevalidateCache.Read;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PetOperationInterceptorTest {
+
+    public static class Pets {
+        public List<PetResponseDTO> list(int count) {
+            UserEntity owner = UserEntity.builder().id(1L).username("owner").build();
+            return IntStream.range(0, count)
+                    .mapToObj(i -> PetService.convertToDto(PetEntity.builder().id((long) i).name("pet-" + i).user(owner).build()))
+                    .toList();
+        }
+
+        // the shape of readMyPets and readPetById, which go through the read cache
+        public Read<List<PetResponseDTO>> readMyPets(int count) {
+            return new Read<>(list(count), Duration.ZERO, false);
+        }
+    }
+
+    @Test
+    void recordsOperationPetCountAndMappingTime(@TempDir Path directory) throws Exception {
+        RecordedEvent event = record(directory, pets -> pets.list(25));
+        assertEquals("list", event.getString("operation"));
+        assertEquals(25, event.getInt("petCount"));
+        assertTrue(event.getDuration("mappingTime").toNanos() > 0);
+        assertTrue(event.getDuration("mappingTime").compareTo(event.getDuration()) <= 0);
+    }
+
+    @Test
+    void countsThePetsInsideACachedRead(@TempDir Path directory) throws Exception {
+        RecordedEvent event = record(directory, pets -> pets.readMyPets(7));
+        assertEquals("readMyPets", event.getString("operation"));
+        assertEquals(7, event.getInt("petCount"));
+    }
+
+    private static RecordedEvent record(Path directory, Consumer<Pets> operation) throws Exception {
+        ProxyFactory factory = new ProxyFactory(new Pets());
+        factory.setProxyTargetClass(true);
+        factory.addAdvice(new PetOperationInterceptor());
+        Pets pets = (Pets) factory.getProxy();
+
+        Path file = directory.resolve("pets.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(PetOperationEvent.class);
+            recording.start();
+            operation.accept(pets);
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("virtualpets.PetOperation"))
+                .toList();
+        assertEquals(1, events.size());
+        return events.get(0);
+    }
+}
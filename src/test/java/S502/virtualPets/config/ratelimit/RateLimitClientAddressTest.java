@@ -0,0 +1,43 @@
+package S502.virtualPets.config.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Through a real connector: clients behind a trusted proxy (loopback here) get a login bucket each.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"security.rate-limit.auth.capacity=2", "security.rate-limit.auth.refill-period=1h"})
+@ActiveProfiles("smoke")
+class RateLimitClientAddressTest {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @Test
+    void authLimitsFollowTheForwardedClientAddress() {
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, logIn("203.0.113.1"));
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, logIn("203.0.113.1"));
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, logIn("203.0.113.1"));
+
+        assertNotEquals(HttpStatus.TOO_MANY_REQUESTS, logIn("203.0.113.2"));
+    }
+
+    private HttpStatus logIn(String clientAddress) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.set("X-Forwarded-For", clientAddress);
+        HttpEntity<String> request = new HttpEntity<>("{\"username\": \"nobody\", \"password\": \"wrong\"}", headers);
+        return HttpStatus.valueOf(restTemplate.postForEntity("/auth/log-in", request, String.class).getStatusCode().value());
+    }
+}
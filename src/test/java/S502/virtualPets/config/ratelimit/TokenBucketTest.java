@@ -0,0 +1,55 @@
+package S502.virtualPets.config.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBucketTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void allowsABurstOfCapacityThenRefillsOneTokenPerInterval() {
+        TokenBucket bucket = new TokenBucket(new RateLimitPolicy("test", 4, Duration.ofSeconds(4)), 0);
+
+        for (long remaining = 3; remaining >= 0; remaining--) {
+            TokenBucket.Probe probe = bucket.tryConsume(0);
+            assertTrue(probe.allowed());
+            assertEquals(remaining, probe.remaining());
+        }
+        TokenBucket.Probe rejected = bucket.tryConsume(0);
+        assertFalse(rejected.allowed());
+        assertEquals(SECOND, rejected.retryAfterNanos());
+        assertEquals(4 * SECOND, rejected.nanosUntilFull());
+
+        assertFalse(bucket.tryConsume(SECOND - 1).allowed());
+        assertTrue(bucket.tryConsume(SECOND).allowed());
+        assertFalse(bucket.tryConsume(SECOND).allowed());
+
+        assertFalse(bucket.isFull(4 * SECOND));
+        assertTrue(bucket.isFull(5 * SECOND));
+        assertEquals(3, bucket.tryConsume(10 * SECOND).remaining(), "idle time never adds more than the capacity");
+    }
+
+    @Test
+    void storeKeepsOneBucketPerPolicyAndClientAndDropsRefilledOnes() throws InterruptedException {
+        RateLimiterStore store = new RateLimiterStore();
+        RateLimitPolicy auth = new RateLimitPolicy("auth", 1, Duration.ofMillis(50));
+        RateLimitPolicy api = new RateLimitPolicy("api", 1, Duration.ofMillis(50));
+
+        assertTrue(store.tryConsume(auth, "ip:10.0.0.1").allowed());
+        assertFalse(store.tryConsume(auth, "ip:10.0.0.1").allowed());
+        assertTrue(store.tryConsume(auth, "ip:10.0.0.2").allowed());
+        assertTrue(store.tryConsume(api, "ip:10.0.0.1").allowed());
+        assertEquals(3, store.size());
+
+        Thread.sleep(100);
+        assertEquals(3, store.evictIdle());
+        assertEquals(0, store.size());
+        assertTrue(store.tryConsume(auth, "ip:10.0.0.1").allowed());
+    }
+}
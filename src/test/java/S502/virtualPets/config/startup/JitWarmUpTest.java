@@ -0,0 +1,88 @@
+package S502.virtualPets.config.startup;
+
+import S502.virtualPets.utils.JwtUtils;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JitWarmUpTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Test
+    void readinessIsDownUntilTheWarmUpHasRun() throws Exception {
+        JitWarmUp warmUp = warmUp(new BlockingJwtUtils(null));
+        WarmUpHealthIndicator readiness = new WarmUpHealthIndicator(warmUp);
+
+        warmUp.start();
+        assertEquals(Status.DOWN, readiness.health().getStatus());
+        release.countDown();
+
+        awaitComplete(warmUp);
+        assertEquals(Status.UP, readiness.health().getStatus());
+        assertEquals("time limit reached", readiness.health().getDetails().get("result"));
+    }
+
+    @Test
+    void anErrorStillEndsTheWarmUp() throws Exception {
+        JitWarmUp warmUp = warmUp(new BlockingJwtUtils(new StackOverflowError()));
+        WarmUpHealthIndicator readiness = new WarmUpHealthIndicator(warmUp);
+
+        warmUp.start();
+        assertEquals(Status.DOWN, readiness.health().getStatus());
+        release.countDown();
+
+        awaitComplete(warmUp);
+        assertEquals(Status.UP, readiness.health().getStatus());
+        assertTrue(warmUp.status().result().startsWith("failed: java.lang.StackOverflowError"), warmUp.status().result());
+    }
+
+    // one short round and no repository calls, so the warm-up needs no database
+    private static JitWarmUp warmUp(JwtUtils jwtUtils) {
+        ReflectionTestUtils.setField(jwtUtils, "privateKey", "warm-up-test-key");
+        ReflectionTestUtils.setField(jwtUtils, "userGenerator", "warm-up-test");
+        return new JitWarmUp(jwtUtils, JsonMapper.builder().findAndAddModules().build(),
+                Validation.buildDefaultValidatorFactory().getValidator(), null, null,
+                true, 10, 0, 0.05, Duration.ZERO);
+    }
+
+    private static void awaitComplete(JitWarmUp warmUp) throws InterruptedException {
+        for (int i = 0; i < 500 && !warmUp.status().complete(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(warmUp.status().complete(), "the warm-up did not finish");
+    }
+
+    // holds the warm-up in its first round until released, then fails with the given error if any
+    private class BlockingJwtUtils extends JwtUtils {
+
+        private final Error error;
+
+        BlockingJwtUtils(Error error) {
+            this.error = error;
+        }
+
+        @Override
+        public String createToken(Authentication authentication) {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (error != null) {
+                throw error;
+            }
+            return super.createToken(authentication);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.service.RoleSnapshotService;
+import S502.virtualPets.service.UserDetailServiceImpl;
+import S502.virtualPets.utils.JwtUtils;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Requests are authorised from the in-memory role snapshot, which only changes when it is reloaded.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtualpets-roles;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=S502.virtualPets.controller.AdminControllerTest$CapturingInspector"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("smoke")
+class AdminControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleSnapshotService roleSnapshotService;
+
+    @Autowired
+    private UserDetailServiceImpl userDetailService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void seedUsers() {
+        if (roleRepository.count() > 0) {
+            return;
+        }
+        RoleEntity userRole = roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER)
+                .permissionEntities(Set.of(PermissionEntity.builder().permissionsEnum(PermissionsEnum.READ).build())).build());
+        RoleEntity adminRole = roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.ADMIN)
+                .permissionEntities(Set.of(
+                        PermissionEntity.builder().permissionsEnum(PermissionsEnum.CREATE).build(),
+                        PermissionEntity.builder().permissionsEnum(PermissionsEnum.UPDATE).build(),
+                        PermissionEntity.builder().permissionsEnum(PermissionsEnum.DELETE).build())).build());
+        userRepository.save(user("roles-user", userRole));
+        userRepository.save(user("roles-admin", adminRole));
+        roleSnapshotService.reload();
+    }
+
+    @Test
+    void authorisesWithoutReadingRolePermissions() throws Exception {
+        CapturingInspector.statements.clear();
+        mockMvc.perform(get("/api/pets/my-pets").header("Authorization", bearer("roles-user")))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/admin/roles/reload").header("Authorization", bearer("roles-user")))
+                .andExpect(status().isForbidden());
+
+        assertThat(CapturingInspector.statements).isNotEmpty()
+                .noneMatch(sql -> sql.toLowerCase().contains("permissions"));
+    }
+
+    @Test
+    void reloadPicksUpARoleChange() throws Exception {
+        RoleEntity userRole = role(RoleEnum.USER);
+        PermissionEntity update = role(RoleEnum.ADMIN).getPermissionEntities().stream()
+                .filter(permission -> permission.getPermissionsEnum() == PermissionsEnum.UPDATE)
+                .findFirst().orElseThrow();
+        userRole.getPermissionEntities().add(update);
+        roleRepository.save(userRole);
+
+        // the snapshot still answers with the old permissions until it is reloaded
+        assertThat(authorities("roles-user")).contains("ROLE_USER", "READ").doesNotContain("UPDATE");
+
+        mockMvc.perform(post("/api/admin/roles/reload").header("Authorization", bearer("roles-admin")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.authorities.USER", hasItem("UPDATE")))
+                .andExpect(jsonPath("$.loadedAt").exists());
+
+        assertThat(authorities("roles-user")).contains("ROLE_USER", "READ", "UPDATE");
+    }
+
+    private RoleEntity role(RoleEnum roleEnum) {
+        return roleRepository.findAllWithPermissions().stream()
+                .filter(role -> role.getRoleEnum() == roleEnum)
+                .findFirst().orElseThrow();
+    }
+
+    private List<String> authorities(String username) {
+        return userDetailService.loadUserByUsername(username).getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .toList();
+    }
+
+    private String bearer(String username) {
+        return "Bearer " + jwtUtils.createToken(new UsernamePasswordAuthenticationToken(username, null, List.of()));
+    }
+
+    private static UserEntity user(String username, RoleEntity role) {
+        return UserEntity.builder().username(username).password("secret")
+                .isEnable(true).accountNotExpired(true).accountNoLocked(true).credentialNoExpired(true)
+                .roles(Set.of(role)).build();
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
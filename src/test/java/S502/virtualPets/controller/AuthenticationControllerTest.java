@@ -0,0 +1,110 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.service.UsernameAvailabilityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Sign-up answers 409 only for a username the users table already holds; what the username
+ * filter says is a hint in both directions.
+ */
+@SpringBootTest(properties = "security.rate-limit.auth.capacity=1000")
+@AutoConfigureMockMvc
+@ActiveProfiles("smoke")
+class AuthenticationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UsernameAvailabilityService usernameAvailabilityService;
+
+    @BeforeEach
+    void seedRoles() {
+        if (roleRepository.count() > 0) {
+            return;
+        }
+        Set<PermissionEntity> permissions = Arrays.stream(PermissionsEnum.values())
+                .map(permission -> PermissionEntity.builder().permissionsEnum(permission).build())
+                .collect(Collectors.toSet());
+        roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER).permissionEntities(permissions).build());
+    }
+
+    @Test
+    void aDuplicateSignUpIsAConflict() throws Exception {
+        signUp("auth-duplicate").andExpect(status().isCreated());
+        signUp("auth-duplicate").andExpect(status().isConflict());
+        available("auth-duplicate", false);
+    }
+
+    @Test
+    void aFilterFalsePositiveStillSignsUp() throws Exception {
+        // in the filter, not in the table: exactly what a false positive looks like
+        usernameAvailabilityService.record("auth-ghost");
+        assertTrue(usernameAvailabilityService.mightBeTaken("auth-ghost"));
+
+        available("auth-ghost", true);
+        signUp("auth-ghost").andExpect(status().isCreated());
+        available("auth-ghost", false);
+    }
+
+    @Test
+    void aNameTakenBehindTheFiltersBackIsAConflict() throws Exception {
+        // as if another instance had signed it up since this one built its filter
+        userRepository.save(UserEntity.builder().username("auth-unseen").password("secret").build());
+        // the filter has never seen it, so the endpoint can only offer its hint
+        available("auth-unseen", true);
+
+        // the unique constraint catches it, and the filter learns the name
+        signUp("auth-unseen").andExpect(status().isConflict());
+        available("auth-unseen", false);
+    }
+
+    @Test
+    void availabilityNeedsAUsername() throws Exception {
+        available("auth-nobody", true);
+        mockMvc.perform(get("/auth/username-available").param("username", " ")).andExpect(status().isBadRequest());
+    }
+
+    private ResultActions signUp(String username) throws Exception {
+        return mockMvc.perform(post("/auth/sign-up").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"username\": \"" + username + "\", \"password\": \"secret\", \"roleRequestDTO\": {\"roleListName\": [\"USER\"]}}"));
+    }
+
+    private void available(String username, boolean available) throws Exception {
+        mockMvc.perform(get("/auth/username-available").param("username", username))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value(username))
+                .andExpect(jsonPath("$.available").value(available));
+    }
+}
@@ -0,0 +1,150 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.service.RoleSnapshotService;
+import S502.virtualPets.utils.JwtUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * {@code fields=} reads and returns only the requested columns, joins the owner only for the
+ * username, and {@code Accept: application/cbor} switches the same response to CBOR.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtualpets-fields;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=S502.virtualPets.controller.PetControllerFieldsTest$CapturingInspector"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("smoke")
+class PetControllerFieldsTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 3, 14, 15, 9, 26);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private RoleSnapshotService roleSnapshotService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    private String bearer;
+
+    @BeforeEach
+    void seedOwner() {
+        if (userRepository.findUserEntityByUsername("fields-owner").isEmpty()) {
+            RoleEntity userRole = roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER)
+                    .permissionEntities(Set.of(PermissionEntity.builder().permissionsEnum(PermissionsEnum.READ).build())).build());
+            roleSnapshotService.reload();
+            UserEntity owner = userRepository.save(UserEntity.builder().username("fields-owner").password("secret")
+                    .isEnable(true).accountNotExpired(true).accountNoLocked(true).credentialNoExpired(true).roles(Set.of(userRole)).build());
+            petRepository.save(PetEntity.builder().name("Rex").user(owner).createdAt(CREATED_AT).build());
+        }
+        bearer = "Bearer " + jwtUtils.createToken(new UsernamePasswordAuthenticationToken("fields-owner", null, List.of()));
+    }
+
+    @Test
+    void returnsOnlyTheRequestedFields() throws Exception {
+        mockMvc.perform(get("/api/pets/my-pets").param("fields", "name,mood").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].length()").value(3))
+                .andExpect(jsonPath("$[0].id").isNumber())
+                .andExpect(jsonPath("$[0].name").value("Rex"))
+                .andExpect(jsonPath("$[0].mood").value("HAPPY"));
+    }
+
+    @Test
+    void joinsTheOwnerOnlyForTheUsername() throws Exception {
+        CapturingInspector.statements.clear();
+        mockMvc.perform(get("/api/pets/my-pets").param("fields", "name,userId").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId").isNumber());
+        assertThat(petsQuery()).doesNotContainIgnoringCase("join");
+
+        CapturingInspector.statements.clear();
+        mockMvc.perform(get("/api/pets/my-pets").param("fields", "name,username").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].username").value("fields-owner"));
+        assertThat(petsQuery()).containsIgnoringCase("join");
+    }
+
+    @Test
+    void rejectsAnUnknownField() throws Exception {
+        mockMvc.perform(get("/api/pets/my-pets").param("fields", "name,password").header("Authorization", bearer))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void cborWritesDatesAsEpochMillis() throws Exception {
+        byte[] body = mockMvc.perform(get("/api/pets/my-pets").param("fields", "name,createdAt")
+                        .header("Authorization", bearer).header("Accept", "application/cbor"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/cbor"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Map<String, Object>> pets = new CBORMapper().readValue(body, new TypeReference<>() { });
+        assertThat(pets).hasSize(1);
+        assertThat(pets.get(0)).containsEntry("name", "Rex");
+        assertThat(((Number) pets.get(0).get("createdAt")).longValue())
+                .isEqualTo(CREATED_AT.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private String petsQuery() {
+        return CapturingInspector.statements.stream()
+                .filter(sql -> sql.toLowerCase().contains(" from pets"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> statements = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
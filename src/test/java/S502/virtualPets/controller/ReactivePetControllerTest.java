@@ -0,0 +1,101 @@
+package S502.virtualPets.controller;
+
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.service.RoleSnapshotService;
+import S502.virtualPets.utils.JwtUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The reactive profile serves the pet reads over R2DBC with JWT authentication. JPA and
+ * R2DBC point at the same embedded database, so test data is written with the JPA repositories.
+ */
+@SpringBootTest(properties = {
+        "spring.r2dbc.url=r2dbc:h2:mem:///virtualpets-smoke;DB_CLOSE_DELAY=-1",
+        "spring.r2dbc.username=sa",
+        "spring.r2dbc.password="
+})
+@AutoConfigureWebTestClient
+@ActiveProfiles({"smoke", "reactive"})
+class ReactivePetControllerTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private RoleSnapshotService roleSnapshotService;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Test
+    void streamsOwnPetsAndHidesOthers() {
+        RoleEntity userRole = roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER)
+                .permissionEntities(Set.of(PermissionEntity.builder().permissionsEnum(PermissionsEnum.READ).build())).build());
+        roleSnapshotService.reload();
+        UserEntity owner = userRepository.save(UserEntity.builder().username("reactive-owner").password("secret")
+                .isEnable(true).accountNotExpired(true).accountNoLocked(true).credentialNoExpired(true).roles(Set.of(userRole)).build());
+        UserEntity other = userRepository.save(UserEntity.builder().username("reactive-other").password("secret")
+                .isEnable(true).accountNotExpired(true).accountNoLocked(true).credentialNoExpired(true).roles(Set.of(userRole)).build());
+        PetEntity first = petRepository.save(PetEntity.builder().name("first").user(owner).build());
+        PetEntity second = petRepository.save(PetEntity.builder().name("second").user(owner).build());
+        PetEntity foreign = petRepository.save(PetEntity.builder().name("foreign").user(other).build());
+        String bearer = "Bearer " + jwtUtils.createToken(new UsernamePasswordAuthenticationToken("reactive-owner", null, List.of()));
+
+        List<PetResponseDTO> pets = webTestClient.get().uri("/api/pets/my-pets")
+                .header("Authorization", bearer)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(PetResponseDTO.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+        assertEquals(List.of(first.getId(), second.getId()), pets.stream().map(PetResponseDTO::id).toList());
+        assertEquals("reactive-owner", pets.get(0).username());
+
+        webTestClient.get().uri("/api/pets/{id}", first.getId())
+                .header("Authorization", bearer)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.name").isEqualTo("first");
+
+        webTestClient.get().uri("/api/pets/{id}", foreign.getId())
+                .header("Authorization", bearer)
+                .exchange()
+                .expectStatus().isNotFound();
+
+        webTestClient.get().uri("/api/pets/my-pets")
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+}
@@ -0,0 +1,130 @@
+package S502.virtualPets.persistence.coherence;
+
+import S502.virtualPets.persistence.coherence.InvalidationBatch.Invalidation;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The application node and a second node on the same loopback channel: committed writes reach
+ * the other node, remote invalidations evict the local second-level cache, and lost batches
+ * lead to a full flush.
+ */
+@SpringBootTest(properties = {
+        "pets.cache.coherence.enabled=true",
+        "pets.cache.coherence.transport=LOOPBACK",
+        "pets.cache.coherence.channel=coherence-test"
+})
+@ActiveProfiles("smoke")
+class CacheCoherenceServiceTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheCoherenceService applicationNode;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final List<Invalidation> received = new CopyOnWriteArrayList<>();
+    private final AtomicInteger remoteFlushes = new AtomicInteger();
+    private LoopbackTransport remoteTransport;
+    private CacheCoherenceService remoteNode;
+
+    @BeforeEach
+    void startRemoteNode() {
+        remoteTransport = new LoopbackTransport("coherence-test");
+        remoteNode = new CacheCoherenceService(remoteTransport, new InvalidationHandler() {
+            @Override
+            public void invalidate(String cache, String key) {
+                received.add(new Invalidation(cache, key, 0));
+            }
+
+            @Override
+            public void invalidateAll() {
+                remoteFlushes.incrementAndGet();
+            }
+        }, 500, Duration.ofSeconds(1), new SimpleMeterRegistry());
+        remoteNode.start();
+    }
+
+    @AfterEach
+    void stopRemoteNode() {
+        remoteNode.close();
+    }
+
+    @Test
+    void committedWritesAreBroadcastAndRemoteInvalidationsEvict() {
+        UserEntity owner = userRepository.save(UserEntity.builder().username("coherent-owner").password("secret").build());
+        PetEntity pet = petRepository.save(PetEntity.builder().name("coherent").user(owner).build());
+        applicationNode.publish();
+
+        assertTrue(received.contains(new Invalidation(PetEntity.class.getName(), pet.getId().toString(), 0)));
+        assertTrue(received.contains(new Invalidation(CacheCoherenceService.QUERY_SPACES, "pets", 0)));
+
+        petRepository.findById(pet.getId()).orElseThrow();
+        assertTrue(entityManagerFactory.getCache().contains(PetEntity.class, pet.getId()));
+        remoteNode.invalidate(PetEntity.class.getName(), pet.getId());
+        remoteNode.publish();
+        assertFalse(entityManagerFactory.getCache().contains(PetEntity.class, pet.getId()));
+    }
+
+    @Test
+    void missedBatchesFlushTheWholeCache() {
+        UserEntity owner = userRepository.save(UserEntity.builder().username("partitioned-owner").password("secret").build());
+        PetEntity pet = petRepository.save(PetEntity.builder().name("partitioned").user(owner).build());
+        remoteNode.publish();
+        petRepository.findById(pet.getId()).orElseThrow();
+        assertTrue(entityManagerFactory.getCache().contains(PetEntity.class, pet.getId()));
+        double flushes = meterRegistry.counter("virtualpets.cache.coherence.full.flushes").count();
+
+        remoteTransport.setConnected(false);
+        remoteNode.invalidate(UserEntity.class.getName(), owner.getId());
+        remoteNode.publish();
+        remoteTransport.setConnected(true);
+        remoteNode.invalidate(CacheCoherenceService.QUERY_SPACES, "users");
+        remoteNode.publish();
+
+        assertEquals(flushes + 1, meterRegistry.counter("virtualpets.cache.coherence.full.flushes").count());
+        assertFalse(entityManagerFactory.getCache().contains(PetEntity.class, pet.getId()));
+    }
+
+    @Test
+    void batchesStaySmallOnTheWire() {
+        List<Invalidation> invalidations = List.of(
+                new Invalidation(PetEntity.class.getName(), "12345", 1_700_000_000_000L),
+                new Invalidation(PetEntity.class.getName(), "12346", 1_700_000_000_001L),
+                new Invalidation(CacheCoherenceService.QUERY_SPACES, "pets", 1_700_000_000_001L));
+        InvalidationBatch batch = new InvalidationBatch(42L, 7L, invalidations);
+
+        byte[] encoded = batch.encode();
+        assertEquals(batch, InvalidationBatch.decode(encoded));
+        assertTrue(encoded.length < 110, "encoded to " + encoded.length + " bytes");
+    }
+}
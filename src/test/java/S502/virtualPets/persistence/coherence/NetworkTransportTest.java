@@ -0,0 +1,71 @@
+package S502.virtualPets.persistence.coherence;
+
+import S502.virtualPets.persistence.coherence.InvalidationBatch.Invalidation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Signed batches travel between two transports on ephemeral loopback ports; batches that are
+ * unsigned or signed with another secret are dropped by the receiver.
+ */
+class NetworkTransportTest {
+
+    private static final InetAddress LOOPBACK = InetAddress.getLoopbackAddress();
+    private static final byte[] SECRET = "cluster-secret-for-tests".getBytes(StandardCharsets.UTF_8);
+
+    private final List<InvalidationTransport> opened = new ArrayList<>();
+    private final BlockingQueue<byte[]> received = new LinkedBlockingQueue<>();
+
+    @AfterEach
+    void close() {
+        opened.forEach(InvalidationTransport::close);
+    }
+
+    @Test
+    void udpCarriesOnlySignedBatches() throws Exception {
+        UdpTransport receiver = new UdpTransport(LOOPBACK, 0, List.of());
+        open(new SignedTransport(receiver, SECRET)).start(received::add);
+        roundTrip(port -> new UdpTransport(LOOPBACK, 0, List.of(new InetSocketAddress(LOOPBACK, port))), receiver.localPort());
+    }
+
+    @Test
+    void tcpCarriesOnlySignedBatches() throws Exception {
+        TcpTransport receiver = new TcpTransport(LOOPBACK, 0, List.of());
+        open(new SignedTransport(receiver, SECRET)).start(received::add);
+        roundTrip(port -> new TcpTransport(LOOPBACK, 0, List.of(new InetSocketAddress(LOOPBACK, port))), receiver.localPort());
+    }
+
+    private void roundTrip(IntFunction<InvalidationTransport> sender, int port) throws Exception {
+        InvalidationBatch batch = new InvalidationBatch(42L, 7L, List.of(new Invalidation("S502.virtualPets.persistence.entity.PetEntity", "9", 1L)));
+
+        open(sender.apply(port)).start(payload -> { });
+        open(new SignedTransport(sender.apply(port), "another-secret-entirely".getBytes(StandardCharsets.UTF_8))).start(payload -> { });
+        opened.get(1).send(batch.encode());
+        opened.get(2).send(batch.encode());
+        assertNull(received.poll(300, TimeUnit.MILLISECONDS), "unsigned and wrongly signed batches are dropped");
+
+        open(new SignedTransport(sender.apply(port), SECRET)).start(payload -> { });
+        opened.get(3).send(batch.encode());
+        byte[] payload = received.poll(5, TimeUnit.SECONDS);
+        assertEquals(batch, InvalidationBatch.decode(payload));
+        assertNull(received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    private InvalidationTransport open(InvalidationTransport transport) {
+        opened.add(transport);
+        return transport;
+    }
+}
@@ -0,0 +1,68 @@
+package S502.virtualPets.persistence.repository;
+
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Repeated user and pet reads are answered from the second-level and query caches, and writes
+ * invalidate the cached query results.
+ */
+@SpringBootTest
+@ActiveProfiles("smoke")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void resetStatistics() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void repeatedReadsSkipSqlAndWritesInvalidate() {
+        UserEntity owner = userRepository.save(UserEntity.builder().username("cached-owner").password("secret").build());
+        petRepository.save(PetEntity.builder().name("first").user(owner).build());
+
+        userRepository.findUserEntityByUsername("cached-owner").orElseThrow();
+        assertEquals(1, petRepository.findByUserId(owner.getId()).size());
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 5; i++) {
+            userRepository.findUserEntityByUsername("cached-owner").orElseThrow();
+            assertEquals(1, petRepository.findByUserId(owner.getId()).size());
+        }
+        assertEquals(statements, statistics.getPrepareStatementCount(), "cached reads must not run SQL");
+        assertTrue(statistics.getQueryCacheHitCount() >= 10);
+
+        petRepository.save(PetEntity.builder().name("second").user(owner).build());
+        assertEquals(2, petRepository.findByUserId(owner.getId()).size());
+
+        assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests").tag("region", "pets").functionCounter());
+    }
+}
@@ -0,0 +1,248 @@
+package S502.virtualPets.persistence.sharding;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pet storage spread over three embedded databases: writes land on the owner's shard,
+ * owner reads stay on it and admin listings merge every shard.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"smoke", "shardtest"})
+class ShardedPetStorageTest {
+
+    private static final int USERS = 8;
+    private static final int PETS_PER_USER = 3;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ShardRoutingDataSource shards;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seedRoles() {
+        if (roleRepository.count() > 0) {
+            return;
+        }
+        Set<PermissionEntity> permissions = Arrays.stream(PermissionsEnum.values())
+                .map(permission -> PermissionEntity.builder().permissionsEnum(permission).build())
+                .collect(Collectors.toSet());
+        roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER).permissionEntities(permissions).build());
+        roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.ADMIN).build());
+    }
+
+    @Test
+    void petsLiveOnTheirOwnersShardAndAdminListingsMergeAllShards() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        for (int u = 0; u < USERS; u++) {
+            String bearer = signUp("owner" + u, "USER");
+            for (int p = 0; p < PETS_PER_USER; p++) {
+                MvcResult created = mockMvc.perform(post("/api/pets")
+                                .header("Authorization", bearer)
+                                .contentType(MediaType.APPLICATION_JSON)
+                                .content("{\"name\": \"pet-" + u + "-" + p + "\", \"petType\": \"GOKU\"}"))
+                        .andExpect(status().isCreated())
+                        .andReturn();
+                long id = read(created).get("id").asLong();
+                assertTrue(ids.add(id), "pet ids must be unique across shards");
+                mockMvc.perform(get("/api/pets/" + id).header("Authorization", bearer))
+                        .andExpect(status().isOk());
+            }
+            mockMvc.perform(get("/api/pets/my-pets").header("Authorization", bearer))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(PETS_PER_USER));
+        }
+
+        Set<Integer> usedShards = new HashSet<>();
+        for (int u = 0; u < USERS; u++) {
+            long userId = userRepository.findUserEntityByUsername("owner" + u).orElseThrow().getId();
+            int home = shards.shardForUser(userId);
+            usedShards.add(home);
+            for (int shard = 0; shard < shards.size(); shard++) {
+                assertEquals(shard == home ? PETS_PER_USER : 0, countPets(shard, userId));
+            }
+        }
+        assertTrue(usedShards.size() > 1, "users should spread over several shards");
+
+        String admin = signUp("admin", "ADMIN");
+        mockMvc.perform(get("/api/pets/all").header("Authorization", admin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS * PETS_PER_USER));
+
+        List<Long> paged = new ArrayList<>();
+        for (int page = 0; page < 3; page++) {
+            JsonNode body = read(mockMvc.perform(get("/api/pets/all")
+                            .param("page", String.valueOf(page)).param("size", "10")
+                            .header("Authorization", admin))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.totalElements").value(USERS * PETS_PER_USER))
+                    .andReturn());
+            body.get("pets").forEach(pet -> paged.add(pet.get("id").asLong()));
+        }
+        assertEquals(ids.stream().sorted().toList(), paged);
+
+        mockMvc.perform(get("/api/pets/all").param("fields", "name,username").header("Authorization", admin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(USERS * PETS_PER_USER))
+                .andExpect(jsonPath("$[0].username").isNotEmpty())
+                .andExpect(jsonPath("$[0].userId").doesNotExist());
+
+        JsonNode search = read(mockMvc.perform(get("/api/pets/search")
+                        .param("sort", "NAME").param("direction", "DESC").param("size", "5")
+                        .header("Authorization", admin))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pets.length()").value(5))
+                .andReturn());
+        assertEquals("pet-" + (USERS - 1) + "-" + (PETS_PER_USER - 1), search.get("pets").get(0).get("name").asText());
+    }
+
+    @Test
+    void deepPagesAreRefusedAcrossShards() throws Exception {
+        String admin = signUp("deep-admin", "ADMIN");
+        // the default limit is 1000 rows: page 5 of 200 starts exactly at it, page 6 past it
+        mockMvc.perform(get("/api/pets/all").param("page", "5").param("size", "200").header("Authorization", admin))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/pets/all").param("page", "6").param("size", "200").header("Authorization", admin))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void searchPagesThroughMixedCaseNamesInDatabaseOrder() throws Exception {
+        List<String> names = List.of("Delta", "alpha", "echo", "Bravo", "charlie");
+        for (int i = 0; i < names.size(); i++) {
+            createPet(signUp("collation" + i, "USER"), names.get(i));
+        }
+        // same owner, so the ids follow the creation order
+        String kiloOwner = signUp("collation-kilo", "USER");
+        long lower = createPet(kiloOwner, "kilo");
+        long upper = createPet(kiloOwner, "Kilo");
+
+        String admin = signUp("collation-admin", "ADMIN");
+        List<Long> ids = new ArrayList<>();
+        List<String> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            var request = get("/api/pets/search").param("sort", "NAME").param("size", "3").header("Authorization", admin);
+            if (cursor != null) {
+                request = request.param("cursor", cursor);
+            }
+            JsonNode body = read(mockMvc.perform(request).andExpect(status().isOk()).andReturn());
+            body.get("pets").forEach(pet -> {
+                ids.add(pet.get("id").asLong());
+                paged.add(pet.get("name").asText());
+            });
+            cursor = body.get("nextCursor").isNull() ? null : body.get("nextCursor").asText();
+        } while (cursor != null);
+
+        int total = 0;
+        for (int shard = 0; shard < shards.size(); shard++) {
+            total += new JdbcTemplate(shards.shard(shard)).queryForObject("select count(*) from pets", Integer.class);
+        }
+        assertEquals(total, ids.size());
+        assertEquals(total, new HashSet<>(ids).size(), "no pet may appear on two pages");
+        List<String> ours = paged.stream().filter(name -> names.contains(name) || name.equalsIgnoreCase("kilo")).toList();
+        assertEquals(List.of("alpha", "Bravo", "charlie", "Delta", "echo", "kilo", "Kilo"), ours);
+        assertTrue(ids.indexOf(lower) < ids.indexOf(upper), "names equal under the collation are ordered by id");
+    }
+
+    @Test
+    void rebalancerMovesMisplacedPetsBackToTheirShard() throws Exception {
+        // pets only ever move up to a shard appended later, so misplace one on a higher shard
+        String username;
+        String bearer;
+        long userId;
+        int attempt = 0;
+        do {
+            username = "misplaced" + attempt++;
+            bearer = signUp(username, "USER");
+            userId = userRepository.findUserEntityByUsername(username).orElseThrow().getId();
+        } while (shards.shardForUser(userId) == shards.size() - 1);
+        long petId = createPet(bearer, "wanderer");
+        int home = shards.shardForUser(userId);
+        int other = home + 1;
+
+        JdbcTemplate homeJdbc = new JdbcTemplate(shards.shard(home));
+        List<Object[]> row = homeJdbc.query("select id, name, pet_type, mood, energy_level, hunger_level, user_id, created_at, updated_at from pets where id = ?",
+                (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4), rs.getInt(5),
+                        rs.getInt(6), rs.getLong(7), rs.getTimestamp(8), rs.getTimestamp(9)}, petId);
+        new JdbcTemplate(shards.shard(other)).update("insert into pets (id, name, pet_type, mood, energy_level, hunger_level, user_id, created_at, updated_at) "
+                + "values (?, ?, ?, ?, ?, ?, ?, ?, ?)", row.get(0));
+        homeJdbc.update("delete from pets where id = ?", petId);
+
+        assertEquals(1, rebalancer.rebalance(false));
+        assertEquals(1, countPets(home, userId));
+        assertEquals(0, countPets(other, userId));
+        mockMvc.perform(get("/api/pets/" + petId).header("Authorization", bearer))
+                .andExpect(status().isOk());
+    }
+
+    private long createPet(String bearer, String name) throws Exception {
+        return read(mockMvc.perform(post("/api/pets")
+                        .header("Authorization", bearer)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"" + name + "\", \"petType\": \"GOKU\"}"))
+                .andExpect(status().isCreated())
+                .andReturn()).get("id").asLong();
+    }
+
+    private int countPets(int shard, long userId) {
+        return new JdbcTemplate(shards.shard(shard)).queryForObject("select count(*) from pets where user_id = ?", Integer.class, userId);
+    }
+
+    private String signUp(String username, String role) throws Exception {
+        MvcResult result = mockMvc.perform(post("/auth/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + username + "\", \"password\": \"secret\", \"roleRequestDTO\": {\"roleListName\": [\"" + role + "\"]}}"))
+                .andExpect(status().isCreated())
+                .andReturn();
+        return "Bearer " + read(result).get("jwt").asText();
+    }
+
+    private JsonNode read(MvcResult result) throws Exception {
+        return objectMapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,122 @@
+package S502.virtualPets.persistence.specification;
+
+import S502.virtualPets.dto.PetSearchRequestDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetSortFieldEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs EXPLAIN over the SQL generated for every combination of search filters, including
+ * none at all, under every sort order and checks that none of them falls back to a full
+ * table scan.
+ */
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=S502.virtualPets.persistence.specification.PetSearchIndexPlanTest$CapturingInspector"
+})
+class PetSearchIndexPlanTest {
+
+    private static final int FILTER_COUNT = 8;
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 12, 31, 0, 0);
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void everyFilterCombinationUsesAnIndex() {
+        for (PetSortFieldEnum sort : PetSortFieldEnum.values()) {
+            for (int mask = 0; mask < (1 << FILTER_COUNT); mask++) {
+                PetSearchRequestDTO criteria = criteriaFor(mask);
+                Specification<PetEntity> spec = PetSpecifications.fromCriteria(criteria);
+
+                String sql = captureSql(spec, sort);
+                String plan = explain(sql);
+
+                assertThat(plan)
+                        .as("filters %s sorted by %s produced plan %s", Integer.toBinaryString(mask), sort, plan)
+                        .doesNotContainIgnoringCase("tableScan");
+            }
+        }
+    }
+
+    @Test
+    void keysetContinuationUsesAnIndexForEverySort() {
+        PetSearchRequestDTO criteria = criteriaFor(0b10);
+        for (PetSortFieldEnum sort : PetSortFieldEnum.values()) {
+            PetEntity last = PetEntity.builder()
+                    .id(42L).name("Rex").energyLevel(50).hungerLevel(50)
+                    .createdAt(FROM).updatedAt(TO)
+                    .build();
+            Specification<PetEntity> spec = PetSpecifications.fromCriteria(criteria)
+                    .and(PetSpecifications.after(PetSearchCursor.after(sort, last), Sort.Direction.ASC));
+
+            String plan = explain(captureSql(spec, sort));
+
+            assertThat(plan).as("sort %s produced plan %s", sort, plan).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    private PetSearchRequestDTO criteriaFor(int mask) {
+        return new PetSearchRequestDTO(
+                (mask & 1) != 0 ? "Re" : null,
+                (mask & 1 << 1) != 0 ? PetTypeEnum.VEGETA : null,
+                (mask & 1 << 2) != 0 ? MoodEnum.SAD : null,
+                (mask & 1 << 3) != 0 ? 10 : null,
+                (mask & 1 << 3) != 0 ? 20 : null,
+                (mask & 1 << 4) != 0 ? 30 : null,
+                (mask & 1 << 4) != 0 ? 40 : null,
+                (mask & 1 << 5) != 0 ? 7L : null,
+                (mask & 1 << 6) != 0 ? FROM : null,
+                (mask & 1 << 6) != 0 ? TO : null,
+                (mask & 1 << 7) != 0 ? FROM : null,
+                (mask & 1 << 7) != 0 ? TO : null,
+                null, null, null, null);
+    }
+
+    private String captureSql(Specification<PetEntity> spec, PetSortFieldEnum sort) {
+        CapturingInspector.statements.clear();
+        petRepository.findBy(spec, query -> query
+                .sortBy(PetSpecifications.sortWithTiebreak(sort, Sort.Direction.ASC))
+                .limit(51)
+                .all());
+        assertThat(CapturingInspector.statements).isNotEmpty();
+        return CapturingInspector.statements.get(CapturingInspector.statements.size() - 1);
+    }
+
+    private String explain(String sql) {
+        String inlined = sql.replace("?", "51");
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + inlined, String.class));
+    }
+
+    public static class CapturingInspector implements StatementInspector {
+
+        static final List<String> statements = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            statements.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package S502.virtualPets.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyServiceTest {
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    private IdempotencyService service(int maxEntries) {
+        return new IdempotencyService(new ObjectMapper(), Duration.ofMinutes(10), maxEntries, Duration.ofSeconds(5));
+    }
+
+    private ResponseEntity<String> created() {
+        return new ResponseEntity<>("pet-" + executions.incrementAndGet(), HttpStatus.CREATED);
+    }
+
+    @Test
+    void equalBodiesReplayEvenWithoutValueBasedToString() {
+        IdempotencyService service = service(100);
+
+        ResponseEntity<String> first = service.execute("create-pet", "k1", new Body("Rex"), this::created);
+        ResponseEntity<String> retry = service.execute("create-pet", "k1", new Body("Rex"), this::created);
+
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), retry.getBody());
+        assertEquals("true", retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+
+        ResponseStatusException reused = assertThrows(ResponseStatusException.class,
+                () -> service.execute("create-pet", "k1", new Body("Max"), this::created));
+        assertEquals(HttpStatus.UNPROCESSABLE_ENTITY, reused.getStatusCode());
+    }
+
+    @Test
+    void failuresOfAnyKindReleaseTheKey() {
+        IdempotencyService service = service(100);
+
+        assertThrows(StackOverflowError.class, () -> service.execute("create-pet", "k1", new Body("Rex"), () -> {
+            throw new StackOverflowError();
+        }));
+        assertEquals(HttpStatus.CREATED, service.execute("create-pet", "k1", new Body("Rex"), this::created).getStatusCode());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void overflowEvictsCompletedEntriesAndRunningOnesOnceTheyFinish() throws Exception {
+        IdempotencyService service = service(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<ResponseEntity<String>> running = CompletableFuture.supplyAsync(() ->
+                service.execute("create-pet", "slow", new Body("Slow"), () -> {
+                    started.countDown();
+                    await(release);
+                    return created();
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        // over the limit while "slow" runs: it stays, so a duplicate still waits for it
+        service.execute("create-pet", "k2", new Body("Rex"), this::created);
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        assertEquals(2, executions.get());
+
+        // "slow" went back in line and is evicted once it has completed
+        service.execute("create-pet", "k3", new Body("Max"), this::created);
+        service.execute("create-pet", "slow", new Body("Slow"), this::created);
+        assertEquals(4, executions.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // a plain DTO: equal content, identity toString
+    static final class Body {
+        private final String name;
+
+        Body(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+    }
+}
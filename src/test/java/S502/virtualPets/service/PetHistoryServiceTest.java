@@ -0,0 +1,82 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.dto.PetHistoryPointDTO;
+import S502.virtualPets.dto.PetHistoryResponseDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.repository.PetHistoryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * History is read back averaged into time buckets, and compaction merges the small blocks
+ * written by each flush without changing what is read back.
+ */
+@SpringBootTest(properties = {"pets.history.compact-after=0s", "pets.history.flush-interval-ms=3600000"})
+@ActiveProfiles("smoke")
+class PetHistoryServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.now().minusHours(2).truncatedTo(ChronoUnit.HOURS);
+
+    @Autowired
+    private PetHistoryService petHistoryService;
+
+    @Autowired
+    private PetHistoryRepository historyRepository;
+
+    @Test
+    void downsamplingAveragesEachBucketAndSkipsEmptyOnes() {
+        long petId = 9001L;
+        record(petId, 0, 10, 20, MoodEnum.HAPPY);
+        record(petId, 5, 30, 40, MoodEnum.SAD);
+        record(petId, 50, 70, 80, MoodEnum.HAPPY);
+        record(petId, 55, 90, 100, MoodEnum.SAD);
+        petHistoryService.flush();
+
+        PetHistoryResponseDTO raw = petHistoryService.getHistory(petId, START, START.plusMinutes(60), 10);
+        assertEquals(4, raw.points().size());
+        assertEquals(1, raw.points().get(0).samples());
+
+        PetHistoryResponseDTO history = petHistoryService.getHistory(petId, START, START.plusMinutes(60), 2);
+        assertEquals(4, history.rawSamples());
+        assertEquals(List.of(
+                new PetHistoryPointDTO(START, 20, 30, MoodEnum.SAD, 2),
+                new PetHistoryPointDTO(START.plusMinutes(30), 80, 90, MoodEnum.SAD, 2)), history.points());
+
+        // the middle bucket of three is empty and left out
+        assertEquals(2, petHistoryService.getHistory(petId, START, START.plusMinutes(60), 3).points().size());
+    }
+
+    @Test
+    void compactionMergesSmallBlocksAndKeepsEverySample() {
+        long petId = 9002L;
+        for (int minute = 0; minute < 4; minute++) {
+            record(petId, minute, 50 + minute, 50 - minute, MoodEnum.HAPPY);
+            petHistoryService.flush();
+        }
+        PetHistoryResponseDTO before = petHistoryService.getHistory(petId, START, START.plusMinutes(60), 100);
+        assertEquals(4, blocks(petId));
+
+        petHistoryService.maintain();
+
+        assertEquals(1, blocks(petId));
+        assertEquals(before, petHistoryService.getHistory(petId, START, START.plusMinutes(60), 100));
+    }
+
+    private void record(long petId, int minute, int energy, int hunger, MoodEnum mood) {
+        petHistoryService.record(PetEntity.builder().id(petId).energyLevel(energy).hungerLevel(hunger).mood(mood)
+                .updatedAt(START.plusMinutes(minute)).build());
+    }
+
+    private long blocks(long petId) {
+        return historyRepository.findOlderThan(petId, LocalDateTime.now()).size();
+    }
+}
@@ -0,0 +1,123 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Deleting a pet only marks the row; every read path stops seeing it at once and the
+ * purge job removes the row later.
+ */
+@SpringBootTest(properties = {"pets.purge.grace-period=0s", "pets.purge.batch-size=1", "pets.purge.pause=0s"})
+@AutoConfigureMockMvc
+@ActiveProfiles("smoke")
+class PetPurgeServiceTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private PetPurgeService petPurgeService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seedRoles() {
+        if (roleRepository.count() > 0) {
+            return;
+        }
+        Set<PermissionEntity> permissions = Arrays.stream(PermissionsEnum.values())
+                .map(permission -> PermissionEntity.builder().permissionsEnum(permission).build())
+                .collect(Collectors.toSet());
+        roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER).permissionEntities(permissions).build());
+    }
+
+    @Test
+    void deletedPetsDisappearAtOnceAndArePurgedLater() throws Exception {
+        String owner = signUp("purge-owner");
+        String stranger = signUp("purge-stranger");
+        long deletedId = createPet(owner, "Gone");
+        long keptId = createPet(owner, "Kept");
+        mockMvc.perform(get("/api/pets/" + deletedId).header("Authorization", owner)).andExpect(status().isOk());
+
+        mockMvc.perform(delete("/api/pets/" + deletedId).header("Authorization", stranger)).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/api/pets/" + deletedId).header("Authorization", owner)).andExpect(status().isNoContent());
+        mockMvc.perform(delete("/api/pets/" + deletedId).header("Authorization", owner)).andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/pets/" + deletedId).header("Authorization", owner)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/pets/my-pets").header("Authorization", owner))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(keptId));
+        assertTrue(petRepository.findById(deletedId).isEmpty());
+        assertNotNull(jdbcTemplate.queryForObject("select deleted_at from pets where id = ?", Object.class, deletedId));
+
+        history(deletedId);
+        history(keptId);
+
+        assertTrue(petPurgeService.purgeBatches() >= 1);
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from pets where id = ?", Integer.class, deletedId));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from pets where id = ?", Integer.class, keptId));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from pet_history where pet_id = ?", Integer.class, deletedId));
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from pet_history where pet_id = ?", Integer.class, keptId));
+    }
+
+    private void history(long petId) {
+        LocalDateTime at = LocalDateTime.now();
+        jdbcTemplate.update("insert into pet_history (pet_id, first_at, last_at, sample_count, payload) values (?, ?, ?, 1, ?)",
+                petId, at, at, new byte[]{0});
+    }
+
+    private String signUp(String username) throws Exception {
+        String body = mockMvc.perform(post("/auth/sign-up").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"username\": \"" + username + "\", \"password\": \"secret\", \"roleRequestDTO\": {\"roleListName\": [\"USER\"]}}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return "Bearer " + objectMapper.readTree(body).get("jwt").asText();
+    }
+
+    private long createPet(String bearer, String name) throws Exception {
+        String body = mockMvc.perform(post("/api/pets").header("Authorization", bearer).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\": \"" + name + "\", \"petType\": \"GOKU\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body).get("id").asLong();
+    }
+}
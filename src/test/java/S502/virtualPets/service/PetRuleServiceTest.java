@@ -0,0 +1,123 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.PetRuleEventEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetRuleEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.PetRuleEventRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import S502.virtualPets.utils.PetRuleEngine.PetState;
+import S502.virtualPets.utils.PetRuleEngine.Snapshot;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Rule state follows changes made on other instances, and an achievement is stored once even
+ * when two instances earn it.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtualpets-rules;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "pets.rules.flush-interval-ms=3600000",
+        "pets.rules.timer-interval-ms=3600000"})
+@ActiveProfiles("smoke")
+class PetRuleServiceTest {
+
+    @Autowired
+    private PetRuleService petRuleService;
+
+    @Autowired
+    private PetRuleEventRepository eventRepository;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private UserEntity owner;
+
+    @BeforeEach
+    void reset() {
+        petRuleService.invalidateAll();
+        jdbcTemplate.update("delete from pet_rule_events");
+        jdbcTemplate.update("delete from pets");
+        owner = userRepository.findAll().stream().findFirst()
+                .orElseGet(() -> userRepository.save(UserEntity.builder().username("rules-owner").password("secret").build()));
+    }
+
+    @Test
+    void achievementsEarnedTwiceAreStoredOnce() {
+        LocalDateTime at = LocalDateTime.now();
+        eventRepository.insertAchievements(List.of(achievement(at), achievement(at.plusSeconds(1))));
+        eventRepository.insertAchievements(List.of(achievement(at.plusSeconds(2))));
+        assertEquals(1, eventRepository.count());
+
+        // alerts repeat freely
+        eventRepository.saveAll(List.of(alert(), alert()));
+        assertEquals(3, eventRepository.count());
+    }
+
+    @Test
+    void aBattleBetweenPetsOfAnUnloadedOwnerSeesBothBeforeStates() {
+        PetEntity pet = petRepository.save(pet("Goku", 95));
+        PetEntity opponent = petRepository.save(pet("Vegeta", 95));
+        Snapshot petBefore = new Snapshot(pet.getId(), new PetState(PetTypeEnum.GOKU, MoodEnum.HAPPY, 50, 50), 0);
+        Snapshot opponentBefore = new Snapshot(opponent.getId(), new PetState(PetTypeEnum.GOKU, MoodEnum.HAPPY, 50, 50), 0);
+
+        petRuleService.battled(petBefore, pet, opponentBefore, opponent);
+        petRuleService.flush();
+
+        assertEquals(List.of(pet.getId(), opponent.getId()), jdbcTemplate.queryForList(
+                "select pet_id from pet_rule_events where rule = 'PET_STARVING' and raised = true order by pet_id", Long.class));
+    }
+
+    @Test
+    void petsChangedElsewhereDropTheirOwnerState() {
+        PetEntity pet = petRepository.save(pet("Goku", 50));
+        petRuleService.created(pet);
+        assertEquals(1.0, loadedUsers());
+
+        petRuleService.invalidate(PetEntity.class.getName(), "999999");
+        assertEquals(1.0, loadedUsers(), "a pet nobody loaded here changes nothing");
+        petRuleService.invalidate(PetEntity.class.getName(), String.valueOf(pet.getId()));
+        assertEquals(0.0, loadedUsers());
+    }
+
+    private double loadedUsers() {
+        return meterRegistry.get("virtualpets.rules.users").gauge().value();
+    }
+
+    private PetEntity pet(String name, int hunger) {
+        return PetEntity.builder().name(name).petType(PetTypeEnum.GOKU).mood(MoodEnum.HAPPY).energyLevel(50).hungerLevel(hunger)
+                .user(owner).build();
+    }
+
+    private PetRuleEventEntity achievement(LocalDateTime at) {
+        return PetRuleEventEntity.builder().userId(owner.getId()).rule(PetRuleEnum.ALL_PET_TYPES).raised(true)
+                .occurredAt(at).achievementKey(PetRuleEventEntity.achievementKey(PetRuleEnum.ALL_PET_TYPES, null)).build();
+    }
+
+    private PetRuleEventEntity alert() {
+        return PetRuleEventEntity.builder().userId(owner.getId()).rule(PetRuleEnum.PET_STARVING).raised(true)
+                .occurredAt(LocalDateTime.now()).build();
+    }
+}
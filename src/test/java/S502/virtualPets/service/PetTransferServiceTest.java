@@ -0,0 +1,175 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.dto.PetImportRequestDTO;
+import S502.virtualPets.dto.PetResponseDTO;
+import S502.virtualPets.dto.PetTransferJobDTO;
+import S502.virtualPets.persistence.entity.PetEntity;
+import S502.virtualPets.persistence.entity.UserEntity;
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.persistence.enums.TransferFormatEnum;
+import S502.virtualPets.persistence.enums.TransferStatusEnum;
+import S502.virtualPets.persistence.repository.PetRepository;
+import S502.virtualPets.persistence.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Exports and imports go through files in the transfer directory; an import that stopped
+ * part way resumes after its checkpoint without importing any row twice.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtualpets-transfer;DB_CLOSE_DELAY=-1;MODE=MySQL",
+        "pets.transfer.directory=target/transfer-test",
+        "pets.transfer.chunk-size=2"})
+@ActiveProfiles("smoke")
+class PetTransferServiceTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+
+    @Autowired
+    private PetTransferService petTransferService;
+
+    @Autowired
+    private PetRepository petRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pets.transfer.directory}")
+    private Path directory;
+
+    private UserEntity owner;
+
+    @BeforeEach
+    void seedOwner() {
+        jdbcTemplate.update("delete from pets");
+        owner = userRepository.findAll().stream().findFirst()
+                .orElseGet(() -> userRepository.save(UserEntity.builder().username("transfer-owner").password("secret").build()));
+    }
+
+    @ParameterizedTest
+    @EnumSource(TransferFormatEnum.class)
+    void exportedPetsImportUnchanged(TransferFormatEnum format) throws Exception {
+        petRepository.saveAll(List.of(
+                pet("Rex", CREATED, CREATED.plusDays(1)),
+                pet("Max, \"the second\"", CREATED.plusHours(1), CREATED.plusHours(2)),
+                pet("Kira", CREATED.plusHours(3), CREATED.plusHours(3))));
+        List<Map<String, Object>> exported = rows();
+
+        PetTransferJobDTO export = await(petTransferService.startExport(format, true));
+        assertEquals(3, export.processedRows());
+        jdbcTemplate.update("delete from pets");
+
+        PetTransferJobDTO imported = await(petTransferService.startImport(new PetImportRequestDTO(export.fileName(), format)));
+        assertEquals(3, imported.processedRows());
+        assertEquals(exported, rows());
+        assertFalse(Files.exists(directory.resolve(export.fileName() + ".progress")));
+    }
+
+    @Test
+    void resumedImportSkipsBlankLinesAndRowsCommittedWithoutCheckpoint() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            lines.add(objectMapper.writeValueAsString(new PetResponseDTO(null, "Pet" + i, PetTypeEnum.GOKU, MoodEnum.HAPPY,
+                    80, 20, owner.getId(), owner.getUsername(), CREATED.plusMinutes(i), CREATED.plusMinutes(i))));
+            if (i % 2 == 0) {
+                lines.add("");
+            }
+        }
+        Files.createDirectories(directory);
+        Files.write(directory.resolve("resume.ndjson"), lines);
+        // rows 1-3 are checkpointed; the chunk of rows 4-5 was committed, its checkpoint never written
+        Files.writeString(directory.resolve("resume.ndjson.progress"), "3");
+        petRepository.saveAll(List.of(pet("Pet4", CREATED.plusMinutes(4), CREATED.plusMinutes(4)),
+                pet("Pet5", CREATED.plusMinutes(5), CREATED.plusMinutes(5))));
+
+        PetTransferJobDTO job = await(petTransferService.startImport(new PetImportRequestDTO("resume.ndjson", TransferFormatEnum.NDJSON)));
+        assertEquals(TransferStatusEnum.COMPLETED, job.status());
+        assertEquals(7, job.processedRows());
+        assertEquals(List.of("Pet4", "Pet5", "Pet6", "Pet7"),
+                jdbcTemplate.queryForList("select name from pets order by name", String.class));
+    }
+
+    @Test
+    void aFailedImportIsResumedByOneJobOnly() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 7; i++) {
+            lines.add(objectMapper.writeValueAsString(new PetResponseDTO(null, "Pet" + i, PetTypeEnum.GOKU, MoodEnum.HAPPY,
+                    80, 20, owner.getId(), owner.getUsername(), CREATED.plusMinutes(i), CREATED.plusMinutes(i))));
+        }
+        List<String> broken = new ArrayList<>(lines);
+        broken.set(4, "{not json");
+        Files.createDirectories(directory);
+        Path file = directory.resolve("twice.ndjson");
+        Files.write(file, broken);
+        Files.deleteIfExists(directory.resolve("twice.ndjson.progress"));
+
+        PetTransferJobDTO failed = finished(petTransferService.startImport(new PetImportRequestDTO("twice.ndjson", TransferFormatEnum.NDJSON)));
+        assertEquals(TransferStatusEnum.FAILED, failed.status());
+        Files.write(file, lines);
+
+        PetTransferJobDTO resumed = petTransferService.resumeImport(failed.id());
+        ResponseStatusException again = assertThrows(ResponseStatusException.class, () -> petTransferService.resumeImport(failed.id()));
+        assertEquals(HttpStatus.CONFLICT, again.getStatusCode());
+        await(resumed);
+        assertThrows(ResponseStatusException.class, () -> petTransferService.resumeImport(failed.id()));
+
+        assertEquals(List.of("Pet1", "Pet2", "Pet3", "Pet4", "Pet5", "Pet6", "Pet7"),
+                jdbcTemplate.queryForList("select name from pets order by name", String.class));
+    }
+
+    private PetEntity pet(String name, LocalDateTime createdAt, LocalDateTime updatedAt) {
+        return PetEntity.builder().name(name).petType(PetTypeEnum.VEGETA).mood(MoodEnum.SAD).energyLevel(70).hungerLevel(30)
+                .user(owner).createdAt(createdAt).updatedAt(updatedAt).build();
+    }
+
+    private List<Map<String, Object>> rows() {
+        return jdbcTemplate.queryForList("select name, pet_type, mood, energy_level, hunger_level, user_id, created_at, updated_at "
+                + "from pets order by name");
+    }
+
+    private PetTransferJobDTO await(PetTransferJobDTO started) throws InterruptedException {
+        PetTransferJobDTO job = finished(started);
+        assertEquals(TransferStatusEnum.COMPLETED, job.status(), job.error());
+        return job;
+    }
+
+    private PetTransferJobDTO finished(PetTransferJobDTO started) throws InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            PetTransferJobDTO job = petTransferService.getJob(started.id());
+            if (job.status() == TransferStatusEnum.COMPLETED || job.status() == TransferStatusEnum.FAILED) {
+                return job;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("Transfer job " + started.id() + " did not finish");
+    }
+}
@@ -0,0 +1,110 @@
+package S502.virtualPets.service;
+
+import S502.virtualPets.persistence.entity.PermissionEntity;
+import S502.virtualPets.persistence.entity.RoleEntity;
+import S502.virtualPets.persistence.enums.PermissionsEnum;
+import S502.virtualPets.persistence.enums.RoleEnum;
+import S502.virtualPets.persistence.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Every role combination maps to exactly one profile: the mask gives the union of the roles'
+ * authorities, and the authorities and roles of a profile give back its mask.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:virtualpets-profiles;DB_CLOSE_DELAY=-1;MODE=MySQL")
+@ActiveProfiles("smoke")
+class RoleSnapshotServiceTest {
+
+    private static final List<String> USER_AUTHORITIES = List.of("ROLE_USER", "READ");
+    private static final List<String> ADMIN_AUTHORITIES = List.of("ROLE_ADMIN", "CREATE", "DELETE");
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private RoleSnapshotService roleSnapshotService;
+
+    private List<RoleEntity> roles;
+
+    @BeforeEach
+    void seedRoles() {
+        if (roleRepository.count() == 0) {
+            roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.USER)
+                    .permissionEntities(Set.of(PermissionEntity.builder().permissionsEnum(PermissionsEnum.READ).build())).build());
+            roleRepository.save(RoleEntity.builder().roleEnum(RoleEnum.ADMIN)
+                    .permissionEntities(Set.of(
+                            PermissionEntity.builder().permissionsEnum(PermissionsEnum.CREATE).build(),
+                            PermissionEntity.builder().permissionsEnum(PermissionsEnum.DELETE).build())).build());
+        }
+        roleSnapshotService.reload();
+        roles = roleRepository.findAllWithPermissions();
+    }
+
+    @Test
+    void everyMaskMapsToTheAuthoritiesOfItsRoles() {
+        AuthorityProfile[] profiles = roleSnapshotService.current().profiles();
+        assertThat(profiles).hasSize(1 << RoleEnum.values().length);
+
+        for (int mask = 0; mask < profiles.length; mask++) {
+            AuthorityProfile profile = roleSnapshotService.profileFor(mask);
+            List<String> expected = new ArrayList<>();
+            for (RoleEnum role : RoleEnum.values()) {
+                if ((mask & AuthorityProfile.bit(role)) != 0) {
+                    expected.addAll(role == RoleEnum.ADMIN ? ADMIN_AUTHORITIES : USER_AUTHORITIES);
+                }
+            }
+
+            assertThat(profile.roleMask()).isEqualTo(mask);
+            assertThat(authorities(profile)).as("mask %s", Integer.toBinaryString(mask))
+                    .containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void everyProfileMapsBackToItsMask() {
+        for (int mask = 0; mask < 1 << RoleEnum.values().length; mask++) {
+            AuthorityProfile profile = roleSnapshotService.profileFor(mask);
+
+            EnumSet<RoleEnum> fromAuthorities = EnumSet.noneOf(RoleEnum.class);
+            authorities(profile).stream()
+                    .filter(authority -> authority.startsWith("ROLE_"))
+                    .forEach(authority -> fromAuthorities.add(RoleEnum.valueOf(authority.substring("ROLE_".length()))));
+            assertThat(maskOf(fromAuthorities)).as("roles granted by mask %s", Integer.toBinaryString(mask)).isEqualTo(mask);
+
+            EnumSet<RoleEnum> held = EnumSet.noneOf(RoleEnum.class);
+            for (RoleEnum role : RoleEnum.values()) {
+                if (profile.hasRole(role)) {
+                    held.add(role);
+                }
+            }
+            assertThat(held).isEqualTo(fromAuthorities);
+
+            List<RoleEntity> entities = roles.stream().filter(role -> held.contains(role.getRoleEnum())).toList();
+            assertThat(roleSnapshotService.profileFor(entities)).isSameAs(profile);
+        }
+    }
+
+    private static int maskOf(Set<RoleEnum> roles) {
+        int mask = 0;
+        for (RoleEnum role : roles) {
+            mask |= AuthorityProfile.bit(role);
+        }
+        return mask;
+    }
+
+    private static List<String> authorities(AuthorityProfile profile) {
+        return profile.authorities().stream().map(GrantedAuthority::getAuthority).toList();
+    }
+}
@@ -0,0 +1,28 @@
+package S502.virtualPets.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void neverMissesAddedKeysAndStaysNearItsFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.put("user-" + i);
+        }
+
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("user-" + i), "missed user-" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("other-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 1_500, "expected about 1% false positives but got " + falsePositives);
+        assertTrue(filter.bitSize() / 8 < 128 * 1024, "expected under 10 bits per key but got " + filter.bitSize() + " bits");
+    }
+}
@@ -0,0 +1,67 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.utils.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    private static final long FAST = Duration.ofMillis(5).toNanos();
+    private static final long SLOW = Duration.ofSeconds(2).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<State> transitions = new ArrayList<>();
+    private final CircuitBreaker breaker = new CircuitBreaker(
+            new CircuitBreaker.Policy(10, 4, 0.5, 0.8, Duration.ofSeconds(1), Duration.ofSeconds(10), 2),
+            (from, to) -> transitions.add(to), clock::get);
+
+    private void call(long durationNanos, boolean failed) {
+        assertTrue(breaker.tryAcquire());
+        breaker.record(durationNanos, failed);
+    }
+
+    @Test
+    void opensOnFailureRateAndClosesAfterSuccessfulTrials() {
+        call(FAST, true);
+        call(FAST, true);
+        call(FAST, false);
+        assertEquals(State.CLOSED, breaker.state(), "below the minimum number of calls");
+        call(FAST, false);
+        assertEquals(State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(Duration.ofSeconds(10), breaker.retryAfter());
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "only the trial calls are let through");
+        breaker.record(FAST, false);
+        breaker.record(FAST, false);
+        assertEquals(State.CLOSED, breaker.state());
+        assertEquals(List.of(State.OPEN, State.HALF_OPEN, State.CLOSED), transitions);
+    }
+
+    @Test
+    void opensOnSlowCallsAndReopensWhenATrialFails() {
+        for (int i = 0; i < 10; i++) {
+            call(i < 3 ? FAST : SLOW, false);
+        }
+        assertEquals(State.CLOSED, breaker.state(), "70% slow is under the threshold");
+        call(SLOW, false);
+        assertEquals(State.OPEN, breaker.state(), "the oldest fast call left the window");
+
+        clock.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertTrue(breaker.tryAcquire());
+        breaker.record(FAST, true);
+        assertEquals(State.OPEN, breaker.state());
+        assertFalse(breaker.tryAcquire());
+    }
+}
@@ -0,0 +1,36 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.utils.PetHistoryCodec.Sample;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PetHistoryCodecTest {
+
+    @Test
+    void roundTripsSamplesAndKeepsThemSmall() {
+        Random random = new Random(42);
+        LocalDateTime at = LocalDateTime.of(2025, 1, 1, 12, 0, 0, 123_000_000);
+        int energy = 100;
+        int hunger = 50;
+        List<Sample> samples = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            at = at.plusSeconds(random.nextInt(600)).plusNanos(random.nextInt(1000) * 1_000_000L);
+            energy = Math.max(0, Math.min(100, energy + random.nextInt(21) - 10));
+            hunger = Math.max(0, Math.min(100, hunger + random.nextInt(21) - 10));
+            samples.add(new Sample(at, energy, hunger, MoodEnum.values()[random.nextInt(MoodEnum.values().length)]));
+        }
+
+        byte[] payload = PetHistoryCodec.encode(samples);
+
+        assertEquals(samples, PetHistoryCodec.decode(samples.get(0).at(), samples.size(), payload));
+        assertTrue(payload.length <= samples.size() * 6, "expected at most 6 bytes per sample but got " + payload.length);
+    }
+}
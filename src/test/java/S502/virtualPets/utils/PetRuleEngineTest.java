@@ -0,0 +1,103 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetFieldEnum;
+import S502.virtualPets.persistence.enums.PetRuleEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.utils.PetRuleEngine.Earned;
+import S502.virtualPets.utils.PetRuleEngine.Outcome;
+import S502.virtualPets.utils.PetRuleEngine.PetRule;
+import S502.virtualPets.utils.PetRuleEngine.PetState;
+import S502.virtualPets.utils.PetRuleEngine.Snapshot;
+import S502.virtualPets.utils.PetRuleEngine.UserRule;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PetRuleEngineTest {
+
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final Long USER = 7L;
+
+    private final AtomicInteger starvingChecks = new AtomicInteger();
+    private final PetRuleEngine engine = new PetRuleEngine(
+            List.of(new PetRule(PetRuleEnum.PET_STARVING, EnumSet.of(PetFieldEnum.HUNGER_LEVEL),
+                            pet -> starvingChecks.incrementAndGet() > 0 && pet.hungerLevel() >= 90, Duration.ZERO, false),
+                    new PetRule(PetRuleEnum.ENERGY_MAXED, EnumSet.of(PetFieldEnum.ENERGY_LEVEL),
+                            pet -> pet.energyLevel() >= 100, Duration.ofHours(24), true)),
+            List.of(new UserRule(PetRuleEnum.ALL_PET_TYPES, counts -> Arrays.stream(counts).allMatch(count -> count > 0))));
+
+    @Test
+    void alertsFollowTheFieldsTheyRead() {
+        engine.load(USER, List.of(), List.of(), 0);
+        assertEquals(List.of(), engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 50, 50), 0));
+
+        starvingChecks.set(0);
+        assertEquals(List.of(), engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 60, 50), 1));
+        assertEquals(0, starvingChecks.get(), "an energy change does not evaluate a hunger rule");
+
+        assertEquals(List.of(new Outcome(PetRuleEnum.PET_STARVING, USER, 1L, true, 2)),
+                engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 60, 95), 2));
+        assertEquals(List.of(), engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 60, 99), 3));
+        assertEquals(List.of(new Outcome(PetRuleEnum.PET_STARVING, USER, 1L, false, 4)),
+                engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 60, 10), 4));
+
+        engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 60, 95), 5);
+        assertEquals(List.of(new Outcome(PetRuleEnum.PET_STARVING, USER, 1L, false, 6)),
+                engine.apply(USER, 1L, null, 6), "deleting a starving pet clears its alert");
+    }
+
+    @Test
+    void heldConditionsFireOnlyWhenUninterrupted() {
+        engine.load(USER, List.of(new Snapshot(1L, pet(PetTypeEnum.GOKU, 100, 50), 0)), List.of(), 0);
+        engine.apply(USER, 2L, pet(PetTypeEnum.VEGETA, 100, 50), 10 * HOUR);
+
+        engine.apply(USER, 2L, pet(PetTypeEnum.VEGETA, 80, 50), 20 * HOUR);
+        engine.apply(USER, 2L, pet(PetTypeEnum.VEGETA, 100, 50), 30 * HOUR);
+        assertEquals(List.of(), engine.fireDue(23 * HOUR));
+        assertEquals(List.of(new Outcome(PetRuleEnum.ENERGY_MAXED, USER, 1L, true, 24 * HOUR)), engine.fireDue(40 * HOUR));
+        assertEquals(List.of(new Outcome(PetRuleEnum.ENERGY_MAXED, USER, 2L, true, 54 * HOUR)), engine.fireDue(60 * HOUR));
+
+        // achievements are earned once per pet
+        engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 50, 50), 61 * HOUR);
+        engine.apply(USER, 1L, pet(PetTypeEnum.GOKU, 100, 50), 62 * HOUR);
+        assertEquals(List.of(), engine.fireDue(100 * HOUR));
+        assertEquals(0, engine.pendingDeadlines());
+    }
+
+    @Test
+    void userRulesAreEarnedOnceAndRestoredOnLoad() {
+        engine.load(USER, List.of(
+                new Snapshot(1L, pet(PetTypeEnum.GOKU, 50, 50), 0),
+                new Snapshot(2L, pet(PetTypeEnum.VEGETA, 50, 50), 0),
+                new Snapshot(3L, pet(PetTypeEnum.FREZER, 50, 50), 0)), List.of(), 0);
+        List<Outcome> outcomes = engine.apply(USER, 4L, pet(PetTypeEnum.MR_SATAN, 50, 50), 1);
+        assertEquals(List.of(new Outcome(PetRuleEnum.ALL_PET_TYPES, USER, null, true, 1)), outcomes);
+        assertEquals(USER, engine.ownerOf(4L));
+
+        engine.apply(USER, 4L, null, 2);
+        assertEquals(List.of(), engine.apply(USER, 5L, pet(PetTypeEnum.MR_SATAN, 50, 50), 3));
+
+        engine.unload(USER);
+        assertEquals(null, engine.ownerOf(5L));
+        engine.load(USER, List.of(
+                new Snapshot(1L, pet(PetTypeEnum.GOKU, 50, 50), 0),
+                new Snapshot(2L, pet(PetTypeEnum.VEGETA, 50, 50), 0),
+                new Snapshot(3L, pet(PetTypeEnum.FREZER, 50, 50), 0)), List.of(new Earned(PetRuleEnum.ALL_PET_TYPES, null)), 4);
+        assertEquals(List.of(), engine.apply(USER, 5L, pet(PetTypeEnum.MR_SATAN, 50, 50), 5));
+        assertTrue(engine.isLoaded(USER));
+        assertEquals(1, engine.unloadIdle(6));
+        assertEquals(0, engine.loadedUsers());
+    }
+
+    private static PetState pet(PetTypeEnum type, int energy, int hunger) {
+        return new PetState(type, MoodEnum.HAPPY, energy, hunger);
+    }
+}
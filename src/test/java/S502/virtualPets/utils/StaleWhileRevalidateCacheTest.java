@@ -0,0 +1,116 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.utils.StaleWhileRevalidateCache.Read;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaleWhileRevalidateCacheTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Runnable> refreshes = new ArrayList<>();
+    private final List<String> reads = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+    // refresh after 10s, expire after 30s, serve stale for 60s more
+    private final StaleWhileRevalidateCache<String, String> cache = new StaleWhileRevalidateCache<>(
+            Duration.ofSeconds(10), Duration.ofSeconds(30), Duration.ofSeconds(60), 100,
+            refreshes::add, e -> e instanceof Unavailable, reads::add, clock::get);
+
+    private String load() {
+        return "value-" + loads.incrementAndGet();
+    }
+
+    @Test
+    void invalidationDuringALoadKeepsItsValueOut() {
+        Read<String> read = cache.get("k", () -> {
+            cache.invalidate("k");
+            return load();
+        });
+        assertEquals("value-1", read.value());
+        assertEquals(0, cache.size());
+
+        cache.get("k", this::load);
+        clock.addAndGet(15 * SECOND);
+        cache.get("k", this::load);
+        assertEquals(1, refreshes.size());
+        cache.invalidate("k");
+        refreshes.get(0).run();
+        assertEquals(0, cache.size(), "a refresh started before the invalidation is dropped");
+    }
+
+    @Test
+    void keysPastRefreshAfterReloadOnceInTheBackground() {
+        cache.get("k", this::load);
+        clock.addAndGet(15 * SECOND);
+
+        assertEquals("value-1", cache.get("k", this::load).value());
+        assertEquals("value-1", cache.get("k", this::load).value());
+        assertEquals(1, refreshes.size(), "one refresh per key at a time");
+        assertEquals(List.of("miss", "refresh", "hit"), reads);
+
+        refreshes.get(0).run();
+        Read<String> read = cache.get("k", this::load);
+        assertEquals("value-2", read.value());
+        assertEquals(Duration.ZERO, read.age());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void expiredValuesAreServedStaleOnlyWhileTheSourceIsUnavailable() {
+        cache.get("k", this::load);
+        clock.addAndGet(40 * SECOND);
+
+        Read<String> stale = cache.get("k", this::unavailable);
+        assertEquals("value-1", stale.value());
+        assertTrue(stale.stale());
+        assertEquals(Duration.ofSeconds(40), stale.age());
+
+        clock.addAndGet(60 * SECOND);
+        assertThrows(Unavailable.class, () -> cache.get("k", this::unavailable), "too old even to be stale");
+
+        clock.set(0);
+        cache.invalidate("k");
+        cache.get("k", this::load);
+        clock.addAndGet(40 * SECOND);
+        assertThrows(IllegalStateException.class, () -> cache.get("k", this::gone));
+        assertEquals(0, cache.size(), "an answer from the source evicts the copy");
+    }
+
+    @Test
+    void callersThatCannotSeeTheValueLeaveItAlone() {
+        cache.get("k", () -> "owner's");
+        clock.addAndGet(40 * SECOND);
+
+        assertThrows(IllegalStateException.class, () -> cache.get("k", this::gone, value -> false));
+        assertEquals(1, cache.size(), "a load that finds nothing for this caller keeps the copy");
+        assertThrows(Unavailable.class, () -> cache.get("k", this::unavailable, value -> false));
+
+        Read<String> stale = cache.get("k", this::unavailable, value -> true);
+        assertSame("owner's", stale.value());
+        assertTrue(stale.stale());
+        assertFalse(reads.contains("hit"));
+    }
+
+    private String unavailable() {
+        throw new Unavailable();
+    }
+
+    private String gone() {
+        throw new IllegalStateException("not found");
+    }
+
+    private static final class Unavailable extends RuntimeException {
+    }
+}
@@ -0,0 +1,65 @@
+package S502.virtualPets.utils;
+
+import S502.virtualPets.persistence.enums.MoodEnum;
+import S502.virtualPets.persistence.enums.PetTypeEnum;
+import S502.virtualPets.utils.BattleEngine.Fighter;
+import S502.virtualPets.utils.BattleEngine.Outcome;
+import S502.virtualPets.utils.TournamentSimulator.Match;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TournamentSimulatorTest {
+
+    @Test
+    void sameSeedGivesSameFight() {
+        Fighter goku = new Fighter(1L, PetTypeEnum.GOKU, 80, 30, MoodEnum.HAPPY);
+        Fighter frezer = new Fighter(2L, PetTypeEnum.FREZER, 90, 10, MoodEnum.ANGRY);
+
+        Outcome first = BattleEngine.fight(goku, frezer, new SplittableRandom(7));
+        Outcome second = BattleEngine.fight(goku, frezer, new SplittableRandom(7));
+
+        assertEquals(first, second);
+        assertNotEquals(first.winner().id(), first.loser().id());
+        assertEquals(MoodEnum.EXCITED, first.winner().mood());
+        assertTrue(first.winner().energyLevel() < (first.winner().id() == 1L ? 80 : 90));
+    }
+
+    @Test
+    void bracketDoesNotDependOnParallelism() throws Exception {
+        Random random = new Random(3);
+        List<Fighter> entrants = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            entrants.add(new Fighter(id, PetTypeEnum.values()[random.nextInt(PetTypeEnum.values().length)],
+                    random.nextInt(101), random.nextInt(101), MoodEnum.values()[random.nextInt(MoodEnum.values().length)]));
+        }
+
+        List<List<Match>> single = simulate(entrants, 1);
+        List<List<Match>> parallel = simulate(entrants, 8);
+
+        assertEquals(single, parallel);
+        // 1000 entrants need 10 rounds, the odd ones out get a bye
+        assertEquals(10, single.size());
+        assertEquals(500, single.get(0).size());
+        assertEquals(1, single.get(single.size() - 1).size());
+    }
+
+    private static List<List<Match>> simulate(List<Fighter> entrants, int parallelism) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<List<Match>> rounds = new ArrayList<>();
+            pool.submit(() -> TournamentSimulator.run(entrants, 42L, 3, (round, matches) -> rounds.add(List.copyOf(matches)))).get();
+            return rounds;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}